@@ -4,10 +4,12 @@ import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @MapperScan("com.mynote.app.domain.mapper")
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class MyNoteApplication {
 
 	public static void main(String[] args) {
@@ -14,10 +14,12 @@ import org.springframework.web.bind.annotation.RestController;
 import com.mynote.app.api.dto.ApiResponse;
 import com.mynote.app.api.dto.admin.AdminUserResponseDto;
 import com.mynote.app.api.dto.admin.ContactResponseDto;
+import com.mynote.app.api.dto.admin.IngestCacheStatsDto;
 import com.mynote.app.api.dto.admin.RoleUpdateRequestDto;
 import com.mynote.app.api.service.admin.AdminService;
 import com.mynote.app.api.service.note.NoteService;
 import com.mynote.app.api.service.upload.FirebaseStorageService;
+import com.mynote.app.api.service.upload.IngestFingerprintService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +33,7 @@ public class AdminApiController {
     private final AdminService adminService;
     private final NoteService noteService;
     private final FirebaseStorageService firebaseStorageService;
+    private final IngestFingerprintService ingestFingerprintService;
     // --- 問い合わせ管理エンドポイント ---
 
 	/** 問い合わせ一覧取得エンドポイント (GET /api/notes/admin/contacts) */
@@ -81,4 +84,13 @@ public class AdminApiController {
         log.info("[ADMIN] User role updated successfully: userId={}, newRole={}", userId, req.getRole());
         return ResponseEntity.ok(ApiResponse.ok(null, "UPDATED"));
     }
+
+    // --- 取り込みキャッシュ ---
+
+	/** 取り込みキャッシュのヒット/ミス統計 (GET /api/notes/admin/ingest-cache/stats) */
+    @GetMapping("/ingest-cache/stats")
+    public ResponseEntity<ApiResponse<IngestCacheStatsDto>> getIngestCacheStats() {
+        log.info("[ADMIN] GET /ingest-cache/stats");
+        return ResponseEntity.ok(ApiResponse.ok(ingestFingerprintService.stats()));
+    }
 }
\ No newline at end of file
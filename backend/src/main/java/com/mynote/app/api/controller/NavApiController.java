@@ -0,0 +1,38 @@
+package com.mynote.app.api.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mynote.app.api.dto.ApiResponse;
+import com.mynote.app.api.dto.nav.NavChangesDto;
+import com.mynote.app.api.service.nav.NavService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping("/api/nav")
+@RequiredArgsConstructor
+@Slf4j
+public class NavApiController {
+
+	private final NavService navService;
+
+	/**
+	 * since（前回のレスポンスの version）より後のナビゲーションの差分を取得する。
+	 * since を省略した場合や、差分を返せないほど古い場合は全体（snapshot）を返す。
+	 */
+	@GetMapping("/changes")
+	public ResponseEntity<ApiResponse<NavChangesDto>> getChanges(
+			@RequestAttribute("userId") Long userId,
+			@RequestParam(name = "since", required = false) Long since) {
+		NavChangesDto changes = navService.getChanges(userId, since);
+		log.debug("[GET] nav changes: userId={} since={} version={} full={}",
+				userId, since, changes.version(), changes.full());
+		return ResponseEntity.ok(ApiResponse.ok(changes));
+	}
+}
@@ -4,23 +4,32 @@ import java.io.IOException;
 
 import jakarta.validation.Valid;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.mynote.app.api.dto.category.CategoryRequestDto;
-import com.mynote.app.api.dto.nav.NavTreeDto;
 import com.mynote.app.api.dto.upload.PdfUploadRequestDto;
 import com.mynote.app.api.service.category.CategoryService;
 import com.mynote.app.api.service.nav.NavService;
+import com.mynote.app.api.service.upload.IngestAdmissionService;
+import com.mynote.app.api.service.upload.IngestJobWorker;
+import com.mynote.app.api.service.upload.JobEventStreams;
+import com.mynote.app.api.service.upload.PdfSpoolService;
+import com.mynote.app.api.service.upload.PdfSpoolService.SpooledPdf;
 import com.mynote.app.api.service.upload.ProcessStatusEvent;
 import com.mynote.app.api.service.upload.ProcessStatusEvent.Mode;
-import com.mynote.app.api.service.upload.UploadFacadeService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -33,34 +42,53 @@ import lombok.RequiredArgsConstructor;
 @Validated
 public class PdfUploadApiController {
 
-	private final UploadFacadeService uploadFacadeService;
 	private final CategoryService categoryService;
 	private final NavService navService;
+	private final PdfSpoolService pdfSpoolService;
+	private final IngestJobWorker ingestJobWorker;
+	private final IngestAdmissionService ingestAdmissionService;
+	private final JobEventStreams jobEventStreams;
 	
+	/** NavTreeDto の JSON。キャッシュ済みのバイト列をそのまま返す（ヒット時は DB・Jackson とも通らない） */
 	@PostMapping("/nav")
-	public NavTreeDto reFreshNav(
+	public ResponseEntity<byte[]> reFreshNav(
 			@RequestAttribute(name = "userId", required = true) Long userId) {
-		NavTreeDto navTree = navService.getNavTree(userId);
-		System.out.println("Refreshed NavTree: " + navTree);
-		return navTree;
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(navService.getNavTreeJson(userId));
 	}
 
 	/* =========================
 	 * 1) PDFアップロード & 処理ストリームの開始 (SSEを利用)
 	 *    - Mode.FULL   : 画像→OCR→AI
 	 *    - Mode.SIMPLE : 画像→AI（OCRスキップ）
+	 *    混雑時は副作用（カテゴリ作成・ジョブ登録）の前に 429 + Retry-After で断る
+	 *    （本文の受信前に UploadAdmissionInterceptor が簡易判定し、受信後にページ数込みで判定し直す）
 	 * ========================= */
 	@PostMapping(path = "/process-stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public SseEmitter processPdfAndStream(
+	public ResponseEntity<SseEmitter> processPdfAndStream(
 			@RequestAttribute(name = "userId", required = true) Long userId,
 			@Valid @ModelAttribute PdfUploadRequestDto req) {
 		System.out.println(req);
-		// 1. SSE接続確立（以降の進捗は Facade 側から push）
-		SseEmitter emitter = uploadFacadeService.addEmitter(userId);
-
-		// 2. モード解決（未指定は FULL）
+		// 1. モード解決（未指定は FULL）
 		Mode mode = req.getMode();
 
+		// 2. PDFをディスクへ退避し、コストを見積もって受け入れ判定
+		//    （MultipartFile はリクエスト終了で破棄されるため、ジョブへはファイルで渡す）
+		SpooledPdf spooled;
+		try {
+			spooled = pdfSpoolService.spool(req.getFile());
+		} catch (IOException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(singleEvent(ProcessStatusEvent.error(null, "PDFの一時保存に失敗しました", mode)));
+		}
+		int pageEstimate = pdfSpoolService.countPages(spooled.file());
+		IngestAdmissionService.Decision decision = ingestAdmissionService.admit(userId, pageEstimate, spooled.size());
+		if (!decision.admitted()) {
+			spooled.close();
+			return reject(decision, pageEstimate, mode);
+		}
+
 		// 3. カテゴリ解決
 		Long categoryId;
 		String tocPrompt = req.getTocPrompt();
@@ -69,12 +97,10 @@ public class PdfUploadApiController {
 		try {
 			if (req.isCreateNewCategory()) {
 				if (req.getNewCategoryName() == null || req.getNewCategoryName().isBlank()) {
-					emitter.send(SseEmitter.event().data(
+					spooled.close();
+					return ResponseEntity.ok(singleEvent(
 							ProcessStatusEvent.error(null, "newCategoryName is required when createNewCategory=true",
-									mode),
-							MediaType.APPLICATION_JSON));
-					emitter.complete();
-					return emitter;
+									mode)));
 				}
 
 				CategoryRequestDto categoryDto = new CategoryRequestDto();
@@ -89,24 +115,20 @@ public class PdfUploadApiController {
 
 				Long newCategoryId = categoryService.create(userId, categoryDto);
 				if (newCategoryId == null) {
-					emitter.send(SseEmitter.event().data(
+					spooled.close();
+					return ResponseEntity.ok(singleEvent(
 							ProcessStatusEvent.error(null,
-									"Category creation failed, potentially due to duplicate name.", mode),
-							MediaType.APPLICATION_JSON));
-					emitter.complete();
-					return emitter;
+									"Category creation failed, potentially due to duplicate name.", mode)));
 				}
 				categoryId = newCategoryId;
 			
 
 			} else {
 				if (req.getExistingCategoryId() == null) {
-					emitter.send(SseEmitter.event().data(
+					spooled.close();
+					return ResponseEntity.ok(singleEvent(
 							ProcessStatusEvent.error(null,
-									"existingCategoryId is required when createNewCategory=false", mode),
-							MediaType.APPLICATION_JSON));
-					emitter.complete();
-					return emitter;
+									"existingCategoryId is required when createNewCategory=false", mode)));
 				}
 				categoryId = req.getExistingCategoryId();
 				if (Boolean.TRUE.equals((req.getSaveAsDefault()))){
@@ -117,31 +139,69 @@ public class PdfUploadApiController {
 
 		
 
-			// 4. メイン処理開始（非同期）
-			uploadFacadeService.processPdfAsync(
+			// 4. 取り込みジョブとして登録（永続キュー）。以降 spool ファイルの削除はジョブ側の責務
+			//    推定ページ数は取り出し順（ユーザー間の公平性・小さい文書の優先）に使う
+			Long jobId = ingestJobWorker.enqueue(
 					userId,
 					categoryId,
 					req.getNoteTitle(),
-					req.getFile(),
+					spooled,
 					tocPrompt,
 					pagePrompt,
-					mode);
+					mode,
+					pageEstimate);
 
-			return emitter;
+			// 5. ジョブの進捗ストリームを購読（登録後に出たイベントは先頭から再送される）
+			return ResponseEntity.ok(jobEventStreams.subscribe(jobId, userId, null));
 
-		} catch (IOException e) {
-			// SSE送信中に起こり得るI/O例外（接続切断など）
-			return emitter;
 		} catch (Exception e) {
-			try {
-				emitter.send(SseEmitter.event().data(
-						ProcessStatusEvent.error(null, "初期処理中にエラーが発生しました: " + e.getMessage(), mode),
-						MediaType.APPLICATION_JSON));
-			} catch (IOException ignore) {
-			}
-			emitter.complete();
-			return emitter;
+			// ジョブを登録できなかった場合は spool ファイルをここで片付ける
+			spooled.close();
+			return ResponseEntity.ok(singleEvent(
+					ProcessStatusEvent.error(null, "初期処理中にエラーが発生しました: " + e.getMessage(), mode)));
+		}
+	}
+
+	/* =========================
+	 * 2) 進捗ストリームへの再接続
+	 *    - Last-Event-ID より後のイベントを再送してから購読を続ける
+	 * ========================= */
+	@GetMapping(path = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> reconnectJobStream(
+			@RequestAttribute(name = "userId", required = true) Long userId,
+			@PathVariable Long jobId,
+			@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+		SseEmitter emitter = jobEventStreams.subscribe(jobId, userId, lastEventId);
+		return (emitter == null) ? ResponseEntity.notFound().build() : ResponseEntity.ok(emitter);
+	}
+
+	/**
+	 * 受け入れ判定で断る。混雑（キュー・ノードの余力不足）は 429 + Retry-After、
+	 * ページ数が上限を超える文書は 413（再試行しても通らない）。
+	 */
+	private ResponseEntity<SseEmitter> reject(IngestAdmissionService.Decision decision, int pageEstimate, Mode mode) {
+		if (decision.reason() == IngestAdmissionService.Reason.TOO_LARGE) {
+			return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+					.body(singleEvent(ProcessStatusEvent.rejected(mode,
+							"ページ数が多すぎるため処理できません（" + pageEstimate + "ページ）",
+							decision.reason().name(), 0)));
+		}
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()))
+				.body(singleEvent(ProcessStatusEvent.rejected(mode,
+						"混雑しているため受け付けできませんでした。" + decision.retryAfterSeconds() + "秒ほど後に再度お試しください",
+						decision.reason().name(), decision.retryAfterSeconds())));
+	}
+
+	/** イベント1件だけを送って閉じる SSE（進捗用の SSE 接続としては登録しない） */
+	private SseEmitter singleEvent(ProcessStatusEvent event) {
+		SseEmitter emitter = new SseEmitter();
+		try {
+			emitter.send(SseEmitter.event().name(event.code().name()).data(event, MediaType.APPLICATION_JSON));
+		} catch (IOException ignore) {
 		}
+		emitter.complete();
+		return emitter;
 	}
 
 }
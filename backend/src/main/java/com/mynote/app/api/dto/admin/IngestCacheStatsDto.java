@@ -0,0 +1,17 @@
+package com.mynote.app.api.dto.admin;
+
+import lombok.Data;
+
+/**
+ * 取り込みキャッシュ（同一 PDF の再取り込み省略）の統計。
+ * hits / misses は起動以降、entries / totalHits は DB 上の累計。
+ */
+@Data
+public class IngestCacheStatsDto {
+	private boolean enabled;
+	private long hits;
+	private long misses;
+	private double hitRate;
+	private long entries;
+	private long totalHits;
+}
@@ -0,0 +1,32 @@
+package com.mynote.app.api.dto.nav;
+
+import java.util.List;
+
+/**
+ * ナビゲーションの差分（GET /api/nav/changes）。次回は version を since に渡す。
+ * <ul>
+ *   <li>full = true : snapshot に全体が入る（差分の各リストは空）。手元の状態は捨てて置き換える</li>
+ *   <li>full = false: categories / notes は since 以降に作成・更新されたものの現在の内容（同じ ID は置き換え）、
+ *       deletedCategoryIds / deletedNoteIds は削除された ID。
+ *       カテゴリの削除ではそのカテゴリのノートも消える（ノートの削除としては返らない）</li>
+ * </ul>
+ */
+public record NavChangesDto(
+		long version,
+		boolean full,
+		NavSnapshotDto snapshot,
+		List<CategoryNavDto> categories,
+		List<Long> deletedCategoryIds,
+		List<NoteNavDto> notes,
+		List<Long> deletedNoteIds) {
+
+	public static NavChangesDto full(long version, NavSnapshotDto snapshot) {
+		return new NavChangesDto(version, true, snapshot, List.of(), List.of(), List.of(), List.of());
+	}
+
+	public static NavChangesDto delta(long version,
+			List<CategoryNavDto> categories, List<Long> deletedCategoryIds,
+			List<NoteNavDto> notes, List<Long> deletedNoteIds) {
+		return new NavChangesDto(version, false, null, categories, deletedCategoryIds, notes, deletedNoteIds);
+	}
+}
@@ -10,4 +10,5 @@ public class NotePageRequestDto {
 	private String firebasePublicUrl;
 	private String firebaseAdminPath;
 	private String extractedText;
+	private Integer renderDpi;
 }
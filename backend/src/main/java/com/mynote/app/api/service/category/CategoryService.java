@@ -3,6 +3,7 @@ package com.mynote.app.api.service.category;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.mynote.app.api.dto.category.CategoryPromptResponseDto;
 import com.mynote.app.api.dto.category.CategoryRequestDto;
 import com.mynote.app.api.dto.category.CategoryResponseDto;
+import com.mynote.app.api.service.nav.NavChangedEvent;
 import com.mynote.app.domain.entity.Category;
 import com.mynote.app.domain.mapper.CategoryMapper;
 
@@ -22,6 +24,8 @@ import lombok.extern.slf4j.Slf4j;
 public class CategoryService {
 
  private final CategoryMapper categoryMapper;
+ /** ナビゲーション（カテゴリ一覧）が変わったら NavChangedEvent を発行する */
+ private final ApplicationEventPublisher eventPublisher;
 
  /**
   * 新しいカテゴリーを作成し、DBに永続化する。
@@ -46,6 +50,7 @@ public class CategoryService {
          categoryMapper.insert(category);
          
          Long newId = category.getId();
+         eventPublisher.publishEvent(NavChangedEvent.category(userId, newId, false));
          log.debug("Category created successfully with id={} for userId={}", newId, userId);
          
          // 💡 成功した場合、生成されたIDを返す
@@ -144,7 +149,11 @@ public class CategoryService {
          return 0;
      }
      
-     return categoryMapper.updateName(id, name);
+     int updated = categoryMapper.updateName(id, name);
+     if (updated > 0) {
+         eventPublisher.publishEvent(NavChangedEvent.category(userId, id, false));
+     }
+     return updated;
  }
 
 
@@ -179,6 +188,7 @@ public class CategoryService {
       
          throw new IllegalArgumentException("Category not found or not owned by user.");
      }
+     eventPublisher.publishEvent(NavChangedEvent.category(userId, id, true));
      // ここでDBのFKに ON DELETE CASCADE を設定しておけば
 
  }
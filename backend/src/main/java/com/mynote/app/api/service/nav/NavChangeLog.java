@@ -0,0 +1,84 @@
+package com.mynote.app.api.service.nav;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mynote.app.domain.entity.NavChange;
+import com.mynote.app.domain.mapper.NavChangeMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ナビゲーションの変更履歴（差分同期 GET /api/nav/changes 用）。
+ *
+ * <p>{@link NavChangedEvent} を発行元のトランザクション内で受け、ユーザーの版（nav_versions.version）を1つ進めて
+ * 変更したカテゴリ・ノートをその版で nav_changes に記録する。版の行ロックはコミットまで残るため、
+ * 同じユーザーの版はコミット順に並び、記録と本体の変更は一緒にコミット／ロールバックされる。
+ *
+ * <p>nav_changes はカテゴリ・ノート1件につき最新の変更1行だけを持つ（作成・更新を何度しても1行）。
+ * 削除の記録だけは対象が消えた後も残るため、{@code nav.changes.retention-seconds} を過ぎたものを定期的に消し、
+ * 消した記録の版まで compacted_version を進める（それより古い版からの差分要求には全体を返す）。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NavChangeLog {
+
+    private final NavChangeMapper navChangeMapper;
+
+    /** 削除の記録を残す秒数（これより長くオフラインだったクライアントは全体を取り直す） */
+    @Value("${nav.changes.retention-seconds:604800}")
+    private long retentionSeconds;
+
+    /** トランザクション外で発行された場合は、版の更新と記録だけをここでトランザクションにする */
+    @EventListener
+    @Transactional
+    public void onNavChanged(NavChangedEvent event) {
+        if (event.userId() == null || event.changes().isEmpty()) return;
+
+        long version = advance(event.userId());
+        if (version == 0) return; // ユーザーが削除済み
+
+        List<NavChange> rows = new ArrayList<>(event.changes().size());
+        for (NavChangedEvent.Change c : event.changes()) {
+            if (c.id() == null) continue;
+            NavChange row = new NavChange();
+            row.setUserId(event.userId());
+            row.setEntityType(c.kind() == NavChangedEvent.Kind.CATEGORY ? NavChange.CATEGORY : NavChange.NOTE);
+            row.setEntityId(c.id());
+            row.setVersion(version);
+            row.setDeleted(c.deleted());
+            rows.add(row);
+        }
+        if (!rows.isEmpty()) navChangeMapper.upsertChanges(rows);
+        log.debug("[nav-changes] userId={} version={} changes={}", event.userId(), version, rows.size());
+    }
+
+    /** 版を1つ進めて新しい値を返す（ユーザーの行が無ければ作る。ユーザーが消えていれば 0） */
+    private long advance(Long userId) {
+        if (navChangeMapper.advanceVersion(userId) == 0) {
+            navChangeMapper.initVersion(userId);
+            if (navChangeMapper.advanceVersion(userId) == 0) return 0;
+        }
+        return navChangeMapper.lastInsertId();
+    }
+
+    /** 古い削除の記録を消す（全ノードで動くが、どちらの文も何度実行しても同じ結果になる） */
+    @Scheduled(fixedDelayString = "${nav.changes.purge-interval-ms:3600000}")
+    public void compact() {
+        try {
+            int users = navChangeMapper.advanceCompactedVersion(retentionSeconds);
+            int rows = navChangeMapper.deleteCompacted();
+            if (rows > 0) log.debug("[nav-changes] compacted users={} rows={}", users, rows);
+        } catch (RuntimeException e) {
+            log.warn("[nav-changes] compact failed: {}", e.toString());
+        }
+    }
+}
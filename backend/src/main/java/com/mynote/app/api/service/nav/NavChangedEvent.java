@@ -0,0 +1,47 @@
+package com.mynote.app.api.service.nav;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ナビゲーション（カテゴリ一覧・ノート一覧）の内容が変わったことの通知。
+ * カテゴリ・ノートの作成／名前変更／削除などの後に、変更と同じトランザクション内で発行する。
+ * <ul>
+ *   <li>{@link NavChangeLog} が発行元のトランザクション内で版を進め、変更履歴に記録する</li>
+ *   <li>{@link NavTreeCache} がコミット後にそのユーザーの分を破棄する</li>
+ * </ul>
+ *
+ * @param userId  変更があったユーザー
+ * @param changes 変更したカテゴリ・ノート（空ならキャッシュの破棄だけ行う）
+ */
+public record NavChangedEvent(Long userId, List<Change> changes) {
+
+    public enum Kind { CATEGORY, NOTE }
+
+    /**
+     * @param deleted true なら削除、false なら作成・更新
+     */
+    public record Change(Kind kind, Long id, boolean deleted) {}
+
+    /** カテゴリの作成・名前変更・削除 */
+    public static NavChangedEvent category(Long userId, Long categoryId, boolean deleted) {
+        return new NavChangedEvent(userId, List.of(new Change(Kind.CATEGORY, categoryId, deleted)));
+    }
+
+    /**
+     * ノートの作成・更新・削除。
+     *
+     * @param categoryId ノート数が変わる場合（作成・削除）はそのカテゴリ、変わらなければ null
+     */
+    public static NavChangedEvent note(Long userId, Long noteId, Long categoryId, boolean deleted) {
+        List<Change> changes = new ArrayList<>(2);
+        changes.add(new Change(Kind.NOTE, noteId, deleted));
+        if (categoryId != null) changes.add(new Change(Kind.CATEGORY, categoryId, false));
+        return new NavChangedEvent(userId, List.copyOf(changes));
+    }
+
+    /** ユーザーごと削除した（変更履歴も外部キーで消えるため、キャッシュの破棄だけ行う） */
+    public static NavChangedEvent userDeleted(Long userId) {
+        return new NavChangedEvent(userId, List.of());
+    }
+}
@@ -7,24 +7,44 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.mynote.app.api.dto.nav.CategoryNavDto;
+import com.mynote.app.api.dto.nav.NavChangesDto;
+import com.mynote.app.api.dto.nav.NavSnapshotDto;
 import com.mynote.app.api.dto.nav.NavTreeDto;
 import com.mynote.app.api.dto.nav.NoteNavDto;
+import com.mynote.app.domain.entity.NavChange;
+import com.mynote.app.domain.entity.NavVersion;
 import com.mynote.app.domain.mapper.CategoryMapper;
+import com.mynote.app.domain.mapper.NavChangeMapper;
 import com.mynote.app.domain.mapper.NoteMapper;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
-@Transactional(readOnly = true)
 public class NavService {
 	private final CategoryMapper categoryMapper;
 	private final NoteMapper noteMapper;
+	private final NavChangeMapper navChangeMapper;
+	private final NavTreeCache navTreeCache;
+	private final PlatformTransactionManager transactionManager;
+
+	/** キャッシュにヒットしたときは版の確認（主キー1行）だけで済ませ、ミス時だけ読み取り専用トランザクションを張る */
+	private TransactionTemplate readOnlyTx;
+
+	@PostConstruct
+	void init() {
+		readOnlyTx = new TransactionTemplate(transactionManager);
+		readOnlyTx.setReadOnly(true);
+	}
 
 	/** 表示順で取得される前提（SQL側で ORDER BY 済み） */
+	@Transactional(readOnly = true)
 	public Map<Long, CategoryNavDto> getNavCategories(Long userId) {
 		List<CategoryNavDto> categories = categoryMapper.selectNavByUserId(userId);
 
@@ -37,6 +57,7 @@ public class NavService {
 	}
 
 	/** カテゴリIDごとにノートをグルーピング（表示順維持） */
+	@Transactional(readOnly = true)
 	public Map<Long, List<NoteNavDto>> getNotesGroupedByCategory(Long userId) {
 		var notes = noteMapper.findNavByUser(userId);
 
@@ -47,8 +68,66 @@ public class NavService {
 				Collectors.toCollection(ArrayList::new)));
 	}
 
-	/** Jotai 側に直で流せる Map 形式 */
+	/** Jotai 側に直で流せる Map 形式（ユーザー単位でキャッシュ。返す DTO は共有なので変更しないこと） */
 	public NavTreeDto getNavTree(Long userId) {
+		return cachedNavTree(userId).tree();
+	}
+
+	/** getNavTree を JSON にシリアライズ済みのバイト列で返す（ヒット時は Jackson も通らない） */
+	public byte[] getNavTreeJson(Long userId) {
+		return cachedNavTree(userId).json();
+	}
+
+	/**
+	 * since（前回取得した版）より後の差分を返す。
+	 * 版と差分（または全体）は同じ読み取り専用トランザクションで読み、同じ時点の内容にそろえる。
+	 * 次の場合は全体（snapshot）を返す。目次は差分の対象外のため snapshot の tocList は空。
+	 * <ul>
+	 *   <li>since の省略（初回）</li>
+	 *   <li>since が compacted_version より前（その間の削除の記録が消えている可能性がある）</li>
+	 *   <li>since が現在の版より後（DB の作り直しなどで版が戻った）</li>
+	 * </ul>
+	 */
+	@Transactional(readOnly = true)
+	public NavChangesDto getChanges(Long userId, Long since) {
+		NavVersion v = navChangeMapper.findVersion(userId);
+		long version = (v == null) ? 0 : v.getVersion();
+		long compacted = (v == null) ? 0 : v.getCompactedVersion();
+
+		if (since == null || since < compacted || since > version) {
+			NavTreeDto tree = buildNavTree(userId);
+			return NavChangesDto.full(version,
+					new NavSnapshotDto(tree.categories(), tree.notesByCategory(), Map.of()));
+		}
+		if (since == version) {
+			return NavChangesDto.delta(version, List.of(), List.of(), List.of(), List.of());
+		}
+		return NavChangesDto.delta(version,
+				navChangeMapper.findCategoryUpsertsSince(userId, since),
+				navChangeMapper.findDeletedIdsSince(userId, NavChange.CATEGORY, since),
+				navChangeMapper.findNoteUpsertsSince(userId, since),
+				navChangeMapper.findDeletedIdsSince(userId, NavChange.NOTE, since));
+	}
+
+	/** キャッシュ済みの版が DB の版と違えば（他ノードで変更された）読み込み直す */
+	private NavTreeCache.Entry cachedNavTree(Long userId) {
+		return navTreeCache.get(userId, () -> currentVersion(userId), () -> loadNavTree(userId));
+	}
+
+	/** 版とツリーを同じ読み取り専用トランザクションで読む（読んだ版より後の変更は必ず版の不一致で検出される） */
+	private NavTreeCache.Snapshot loadNavTree(Long userId) {
+		return readOnlyTx.execute(status -> {
+			long version = currentVersion(userId);
+			return new NavTreeCache.Snapshot(buildNavTree(userId), version);
+		});
+	}
+
+	private long currentVersion(Long userId) {
+		NavVersion v = navChangeMapper.findVersion(userId);
+		return (v == null) ? 0 : v.getVersion();
+	}
+
+	private NavTreeDto buildNavTree(Long userId) {
 		Map<Long, CategoryNavDto> categoriesById = getNavCategories(userId);
 		Map<Long, List<NoteNavDto>>  notesByCategory = getNotesGroupedByCategory(userId);
 
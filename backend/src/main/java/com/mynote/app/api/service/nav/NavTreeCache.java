@@ -0,0 +1,266 @@
+package com.mynote.app.api.service.nav;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mynote.app.api.dto.nav.NavTreeDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ユーザーごとの {@link NavTreeDto} のキャッシュ（このノードのメモリ内）。
+ *
+ * <p>組み立てた DTO と、それを JSON にシリアライズしたバイト列、読み込んだ時点の nav_versions.version を一緒に持つ。
+ * ヒット時は現在の版（主キー1行）だけを読み、一致すれば Jackson を通さずにそのまま返す。
+ * 版が進んでいれば（他ノードでの変更）捨てて読み込み直す。
+ * <ul>
+ *   <li>LRU: 合計サイズが {@code nav.cache.max-bytes} か件数が {@code nav.cache.max-entries} を超えたら、
+ *       最も長く使われていないユーザーの分から捨てる。サイズは JSON のバイト数の2倍（DTO 分も同程度とみなす）で見積もる</li>
+ *   <li>TTL: 読み込みから {@code nav.cache.ttl-seconds} 秒を過ぎたものは次の参照時に捨てる
+ *       （版を進めない経路での変更の取りこぼしを時間で回収する）</li>
+ *   <li>無効化: {@link NavChangedEvent} を受けたらそのユーザーの分を捨てる（トランザクション内の発行はコミット後）</li>
+ *   <li>版の確認: ヒット時に現在の版と比べ、異なれば捨てる（他ノードでの変更はイベントが届かないため）</li>
+ * </ul>
+ * 読み込み中に無効化が来た場合、読み込んだ結果は古い可能性があるため格納しない（ユーザーIDで分けた世代番号で判定）。
+ * 返す DTO は全呼び出し元で共有するため、変更しないこと。
+ *
+ * <p>メトリクス:
+ * <ul>
+ *   <li>{@code nav.cache.gets}       : 参照回数（result=hit / miss）</li>
+ *   <li>{@code nav.cache.hit.ratio}  : 起動からのヒット率</li>
+ *   <li>{@code nav.cache.evictions}  : 捨てた件数（cause=size / expired / invalidated / stale）</li>
+ *   <li>{@code nav.cache.size} / {@code nav.cache.bytes} : 保持件数と見積もりサイズ</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NavTreeCache {
+
+    /**
+     * 読み込み結果。
+     *
+     * @param version tree と同じトランザクションで読んだ nav_versions.version（行が無ければ 0）
+     */
+    public record Snapshot(NavTreeDto tree, long version) {}
+
+    /** キャッシュの1件（json は tree をシリアライズしたもの） */
+    public record Entry(NavTreeDto tree, byte[] json, long version, long loadedAt) {
+        long weight() {
+            return 2L * json.length;
+        }
+    }
+
+    /** 世代番号の分割数（ユーザーIDで振り分ける。衝突しても余計に格納を見送るだけ） */
+    private static final int STRIPES = 256;
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    /** 合計サイズの上限（バイト、0 でキャッシュしない） */
+    @Value("${nav.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${nav.cache.max-entries:10000}")
+    private int maxEntries;
+
+    /** 読み込みからの有効期間（秒、0 でキャッシュしない） */
+    @Value("${nav.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    /** アクセス順（先頭が最も古い）。lock で保護する */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private long bytes;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictedBySize;
+    private Counter evictedByTtl;
+    private Counter invalidated;
+    private Counter stale;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("nav.cache.gets").tag("result", "hit")
+                .description("ナビゲーションキャッシュの参照回数").register(meterRegistry);
+        misses = Counter.builder("nav.cache.gets").tag("result", "miss")
+                .description("ナビゲーションキャッシュの参照回数").register(meterRegistry);
+        evictedBySize = eviction("size");
+        evictedByTtl = eviction("expired");
+        invalidated = eviction("invalidated");
+        stale = eviction("stale");
+        Gauge.builder("nav.cache.hit.ratio", this, NavTreeCache::hitRatio)
+                .description("ナビゲーションキャッシュのヒット率").register(meterRegistry);
+        Gauge.builder("nav.cache.size", this, NavTreeCache::size)
+                .description("ナビゲーションキャッシュの保持件数").register(meterRegistry);
+        Gauge.builder("nav.cache.bytes", this, NavTreeCache::bytes)
+                .description("ナビゲーションキャッシュの見積もりサイズ（バイト）").register(meterRegistry);
+    }
+
+    private Counter eviction(String cause) {
+        return Counter.builder("nav.cache.evictions").tag("cause", cause)
+                .description("ナビゲーションキャッシュから捨てた件数").register(meterRegistry);
+    }
+
+    /**
+     * キャッシュから取得する。無い・期限切れ・版が古いときは loader で組み立てて格納する。
+     * loader は呼び出し元のスレッドで実行する（同じユーザーの同時ミスはそれぞれ読み込む）。
+     *
+     * @param currentVersion 現在の nav_versions.version（キャッシュにあるときだけ呼ぶ）
+     */
+    public Entry get(Long userId, LongSupplier currentVersion, Supplier<Snapshot> loader) {
+        Entry cached = lookup(userId);
+        if (cached != null) {
+            if (cached.version() == currentVersion.getAsLong()) {
+                hits.increment();
+                return cached;
+            }
+            discard(userId, cached, stale);
+        }
+        misses.increment();
+
+        long generation = generations.get(stripe(userId));
+        Snapshot snapshot = loader.get();
+        Entry loaded = new Entry(snapshot.tree(), serialize(snapshot.tree()), snapshot.version(), System.currentTimeMillis());
+        store(userId, loaded, generation);
+        return loaded;
+    }
+
+    /** そのユーザーの分を捨てる（読み込み中の結果も格納させない） */
+    public void invalidate(Long userId) {
+        generations.incrementAndGet(stripe(userId));
+        lock.lock();
+        try {
+            Entry removed = entries.remove(userId);
+            if (removed != null) {
+                bytes -= removed.weight();
+                invalidated.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNavChanged(NavChangedEvent event) {
+        if (event.userId() != null) invalidate(event.userId());
+    }
+
+    /** 保持件数 */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 見積もりサイズ（バイト） */
+    public long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    double hitRatio() {
+        double h = hits.count();
+        double total = h + misses.count();
+        return (total == 0) ? 0 : h / total;
+    }
+
+    private Entry lookup(Long userId) {
+        lock.lock();
+        try {
+            Entry e = entries.get(userId);
+            if (e == null) return null;
+            if (expired(e)) {
+                entries.remove(userId);
+                bytes -= e.weight();
+                evictedByTtl.increment();
+                return null;
+            }
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 見つけた時点のものがまだ入っていれば捨てる（その間に別スレッドが新しいものを入れていれば残す） */
+    private void discard(Long userId, Entry entry, Counter cause) {
+        lock.lock();
+        try {
+            if (entries.remove(userId, entry)) {
+                bytes -= entry.weight();
+                cause.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(Long userId, Entry entry, long generation) {
+        if (maxBytes <= 0 || maxEntries <= 0 || ttlSeconds <= 0) return;
+        if (entry.weight() > maxBytes) {
+            log.debug("[nav-cache] too large to cache userId={} bytes={}", userId, entry.json().length);
+            return;
+        }
+        lock.lock();
+        try {
+            // 読み込み中に無効化された（古いデータを読んだかもしれない）
+            if (generations.get(stripe(userId)) != generation) return;
+
+            Entry previous = entries.put(userId, entry);
+            if (previous != null) bytes -= previous.weight();
+            bytes += entry.weight();
+
+            Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+            while ((bytes > maxBytes || entries.size() > maxEntries) && it.hasNext()) {
+                Map.Entry<Long, Entry> eldest = it.next();
+                if (eldest.getKey().equals(userId)) continue;
+                it.remove();
+                bytes -= eldest.getValue().weight();
+                evictedBySize.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean expired(Entry e) {
+        return System.currentTimeMillis() - e.loadedAt() >= ttlSeconds * 1000;
+    }
+
+    private byte[] serialize(NavTreeDto tree) {
+        try {
+            return objectMapper.writeValueAsBytes(tree);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("nav tree serialize failed", e);
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(Long.hashCode(userId), STRIPES);
+    }
+}
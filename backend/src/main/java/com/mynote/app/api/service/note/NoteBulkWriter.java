@@ -0,0 +1,237 @@
+package com.mynote.app.api.service.note;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.boot.autoconfigure.MybatisProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mynote.app.config.DedicatedSqlSessions;
+import com.mynote.app.domain.entity.NoteIndex;
+import com.mynote.app.domain.entity.NotePage;
+import com.mynote.app.domain.mapper.NoteIndexMapper;
+import com.mynote.app.domain.mapper.NotePageMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * note_pages / note_index の一括書き込み（取り込み・AI 結果反映用）。
+ *
+ * <p>通常の Mapper は SIMPLE executor（1文ずつ送信）だが、ここでは BATCH executor の SqlSessionTemplate で
+ * 1行ずつの単純な INSERT / UPDATE を JDBC バッチとして送る。バッチは {@code rewriteBatchedStatements=true} を付けた
+ * 専用の接続プール（{@link DedicatedSqlSessions}、最大 {@code mybatis.batch.pool-size} 本）で実行し、
+ * ドライバ側で INSERT は複数行 VALUES に、UPDATE は複数文の1往復にまとめられるため、
+ * CASE 式で巨大な1文を組み立てるより MySQL 側の構文解析が軽い。既定のプールにはこのプロパティを付けない。
+ * {@code mybatis.batch.chunk-size} 件ごとに flush する。
+ *
+ * <p>専用プールのトランザクションは呼び出し元のトランザクションとは別の接続になる（呼び出し元の未コミットの行が見えない）。
+ * そのため呼び出し時にトランザクションが無ければ専用プールのトランザクションでバッチを実行し、
+ * 既にトランザクション内なら従来の複数行 INSERT / CASE UPDATE を同じ件数ずつ区切って、呼び出し元のトランザクションで実行する。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NoteBulkWriter {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final MybatisProperties mybatisProperties;
+    /** フォールバック用の通常（SIMPLE）の Mapper */
+    private final NotePageMapper notePageMapper;
+    private final NoteIndexMapper noteIndexMapper;
+
+    /** 1回の flush（JDBC バッチ実行）にまとめる件数。フォールバック時は1文あたりの件数 */
+    @Value("${mybatis.batch.chunk-size:500}")
+    private int chunkSize;
+
+    /** バッチ専用プールの最大接続数 */
+    @Value("${mybatis.batch.pool-size:4}")
+    private int poolSize;
+
+    private DedicatedSqlSessions batchSessions;
+    private SqlSessionTemplate batchTemplate;
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    void init() {
+        batchSessions = DedicatedSqlSessions.create("bulk-write", poolSize,
+                Map.of("rewriteBatchedStatements", "true"), dataSourceProperties, mybatisProperties);
+        batchTemplate = new SqlSessionTemplate(batchSessions.sqlSessionFactory(), ExecutorType.BATCH);
+        tx = new TransactionTemplate(batchSessions.transactionManager());
+    }
+
+    @PreDestroy
+    void close() {
+        if (batchSessions != null) batchSessions.close();
+    }
+
+    /**
+     * ページをまとめて登録する。採番された ID はリストの順に各エンティティへ詰め直される。
+     *
+     * @return 登録件数
+     */
+    public int insertPages(List<NotePage> pages) {
+        return write("note_pages insert", NotePageMapper.class, pages,
+                NotePageMapper::insert,
+                part -> notePageMapper.insertBatch(part));
+    }
+
+    /**
+     * 目次をまとめて登録する。採番された ID はリストの順に各エンティティへ詰め直される。
+     *
+     * @return 登録件数
+     */
+    public int insertIndexes(List<NoteIndex> indexes) {
+        return write("note_index insert", NoteIndexMapper.class, indexes,
+                NoteIndexMapper::insert,
+                part -> noteIndexMapper.insertBatch(part));
+    }
+
+    /**
+     * ページの extracted_text をまとめて更新する。
+     *
+     * @param updates ページID → 本文
+     * @return 更新件数
+     */
+    public int updatePageTexts(Map<Long, String> updates) {
+        List<Map.Entry<Long, String>> rows = new ArrayList<>(updates.entrySet());
+        return write("note_pages update", NotePageMapper.class, rows,
+                (m, e) -> m.updateExtractedText(e.getKey(), e.getValue()),
+                part -> {
+                    Map<Long, String> chunk = new LinkedHashMap<>();
+                    part.forEach(e -> chunk.put(e.getKey(), e.getValue()));
+                    notePageMapper.updateExtractedTextBatch(chunk);
+                    return chunk.size();
+                });
+    }
+
+    /**
+     * 目次の差分反映の結果。
+     *
+     * @param written 書き込んだ行数
+     */
+    public record IndexSync(NoteIndexDiff.Plan plan, int written) {}
+
+    /**
+     * ノートの目次を sections に差分反映する。
+     * 既存の行を FOR UPDATE で読んで差分（{@link NoteIndexDiff.Plan}）を求め、同じトランザクションで
+     * DELETE → UPDATE → INSERT の順に反映する。読んでから書くまでの間にユーザーが編集した行を
+     * 編集前の内容で上書きしないよう、読んだ行はコミットまでロックする。
+     * INSERT した目次には採番された ID が詰め直される。
+     */
+    public IndexSync syncIndexes(Long noteId, List<NoteIndex> sections) {
+        int chunk = Math.max(1, chunkSize);
+        long t0 = System.currentTimeMillis();
+
+        if (!canBatch()) {
+            NoteIndexDiff.Plan plan = NoteIndexDiff.plan(noteIndexMapper.findByNoteIdForUpdate(noteId), sections);
+            int n = 0;
+            for (List<Long> ids : chunks(plan.deletes(), chunk)) n += noteIndexMapper.deleteByIds(ids);
+            for (NoteIndex idx : plan.updates()) n += noteIndexMapper.update(idx);
+            for (List<NoteIndex> part : chunks(plan.inserts(), chunk)) n += noteIndexMapper.insertBatch(part);
+            log.debug("[bulk] note_index diff {} (in caller tx) {}ms", describe(plan), System.currentTimeMillis() - t0);
+            return new IndexSync(plan, n);
+        }
+
+        IndexSync synced = tx.execute(status -> {
+            NoteIndexMapper mapper = batchTemplate.getMapper(NoteIndexMapper.class);
+            NoteIndexDiff.Plan plan = NoteIndexDiff.plan(mapper.findByNoteIdForUpdate(noteId), sections);
+            if (plan.isEmpty()) return new IndexSync(plan, 0);
+            int n = 0;
+            int queued = 0;
+            for (List<Long> ids : chunks(plan.deletes(), chunk)) {
+                mapper.deleteByIds(ids);
+            }
+            for (NoteIndex idx : plan.updates()) {
+                mapper.update(idx);
+                if (++queued % chunk == 0) n += count(batchTemplate.flushStatements());
+            }
+            for (NoteIndex idx : plan.inserts()) {
+                mapper.insert(idx);
+                if (++queued % chunk == 0) n += count(batchTemplate.flushStatements());
+            }
+            return new IndexSync(plan, n + count(batchTemplate.flushStatements()));
+        });
+        log.debug("[bulk] note_index diff {} {}ms", describe(synced.plan()), System.currentTimeMillis() - t0);
+        return synced;
+    }
+
+    /**
+     * @param statement BATCH 用 Mapper で1行分を実行する
+     * @param fallback  トランザクション内で呼ばれたときに、区切った1塊を通常の Mapper で実行する
+     */
+    private <M, T> int write(String what, Class<M> mapperType, List<T> rows,
+            BiConsumer<M, T> statement, ToIntFunction<List<T>> fallback) {
+        if (rows == null || rows.isEmpty()) return 0;
+        int chunk = Math.max(1, chunkSize);
+        long t0 = System.currentTimeMillis();
+
+        if (!canBatch()) {
+            int n = 0;
+            for (List<T> part : chunks(rows, chunk)) {
+                n += fallback.applyAsInt(part);
+            }
+            log.debug("[bulk] {} rows={} statements={} (multi-row, in caller tx) {}ms",
+                    what, rows.size(), (rows.size() + chunk - 1) / chunk, System.currentTimeMillis() - t0);
+            return n;
+        }
+
+        Integer written = tx.execute(status -> {
+            M mapper = batchTemplate.getMapper(mapperType);
+            int n = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                statement.accept(mapper, rows.get(i));
+                if ((i + 1) % chunk == 0 || i == rows.size() - 1) {
+                    n += count(batchTemplate.flushStatements());
+                }
+            }
+            return n;
+        });
+        log.debug("[bulk] {} rows={} batches={} {}ms",
+                what, rows.size(), (rows.size() + chunk - 1) / chunk, System.currentTimeMillis() - t0);
+        return (written == null) ? 0 : written;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> rows, int size) {
+        List<List<T>> out = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += size) {
+            out.add(new ArrayList<>(rows.subList(from, Math.min(rows.size(), from + size))));
+        }
+        return out;
+    }
+
+    private static String describe(NoteIndexDiff.Plan plan) {
+        return "insert=" + plan.inserts().size() + " update=" + plan.updates().size()
+                + " delete=" + plan.deletes().size() + " unchanged=" + plan.unchanged();
+    }
+
+    /** 専用プールでバッチを実行できるか（呼び出し元のトランザクションが無い） */
+    private boolean canBatch() {
+        return !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /** 件数を合計する（rewriteBatchedStatements で件数が返らない文は 1 件とみなす） */
+    private static int count(List<BatchResult> results) {
+        int n = 0;
+        for (BatchResult r : results) {
+            for (int c : r.getUpdateCounts()) {
+                n += (c == Statement.SUCCESS_NO_INFO) ? 1 : Math.max(0, c);
+            }
+        }
+        return n;
+    }
+}
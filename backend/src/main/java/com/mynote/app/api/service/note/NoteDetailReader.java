@@ -0,0 +1,65 @@
+package com.mynote.app.api.service.note;
+
+import java.util.Map;
+
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.boot.autoconfigure.MybatisProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mynote.app.api.dto.note.NoteByUserSeqNoResponseDto;
+import com.mynote.app.config.DedicatedSqlSessions;
+import com.mynote.app.domain.dedicated.NoteDetailMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ノート詳細（ノート・ページ・目次）の1往復取得。
+ *
+ * <p>3つの SELECT を1回の送信で実行して複数結果セットで受け取るため、接続に {@code allowMultiQueries=true} が要る。
+ * このプロパティは SQL を連結できてしまうため既定のプールには付けず、
+ * このクラス専用の接続プール（{@link DedicatedSqlSessions}、最大 {@code note.detail.pool-size} 本）だけで使う。
+ * Mapper（{@link NoteDetailMapper}）も既定の SqlSessionFactory には登録せず、このプールにだけ読み込む。
+ * 3つの結果を同じスナップショットから読むため、専用プールの読み取り専用トランザクションで実行する。
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteDetailReader {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final MybatisProperties mybatisProperties;
+
+    /** 専用プールの最大接続数 */
+    @Value("${note.detail.pool-size:8}")
+    private int poolSize;
+
+    private DedicatedSqlSessions sessions;
+    private NoteDetailMapper mapper;
+    private TransactionTemplate readOnlyTx;
+
+    @PostConstruct
+    void init() {
+        sessions = DedicatedSqlSessions.create("note-detail", poolSize,
+                Map.of("allowMultiQueries", "true"), "classpath:mybatis-dedicated/NoteDetailMapper.xml",
+                dataSourceProperties, mybatisProperties);
+        mapper = new SqlSessionTemplate(sessions.sqlSessionFactory()).getMapper(NoteDetailMapper.class);
+        readOnlyTx = new TransactionTemplate(sessions.transactionManager());
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @PreDestroy
+    void close() {
+        if (sessions != null) sessions.close();
+    }
+
+    /**
+     * @return 該当ノートが無ければ null。ページ・目次が無い場合、そのリストは null のまま
+     */
+    public NoteByUserSeqNoResponseDto find(Long userId, Integer userSeqNo) {
+        return readOnlyTx.execute(status -> mapper.findDetailByUserAndSeq(userId, userSeqNo));
+    }
+}
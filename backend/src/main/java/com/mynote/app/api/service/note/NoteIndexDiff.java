@@ -0,0 +1,131 @@
+package com.mynote.app.api.service.note;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.mynote.app.domain.entity.NoteIndex;
+
+/**
+ * 目次（note_index）の差分計算。
+ *
+ * <p>AI の再解析で得た目次と既存の行を突き合わせ、必要最小限の INSERT / UPDATE / DELETE を求める。
+ * 突き合わせは次の順で行い、対応が付いた既存行は ID をそのまま使う。
+ * <ol>
+ *   <li>(index_number, start_index, end_index) が一致する行</li>
+ *   <li>残りのうち (start_index, end_index) が一致する行（途中に目次が挿入・削除されて番号だけずれた場合）。
+ *       同じ範囲が複数あるときは番号順に対応させる</li>
+ * </ol>
+ * 対応が付いた行は内容が変わった場合だけ UPDATE し、対応の付かなかった既存行は DELETE、新しい目次は INSERT する。
+ *
+ * <p>ユーザーが編集したタイトル・本文（title_edited / body_edited）は AI の出力で上書きせず、既存の値を引き継ぐ。
+ * 番号・ページ範囲は AI の出力に合わせる。対応の付かなくなった行は編集済みでも削除する（その範囲の目次自体が無くなったため）。
+ */
+public final class NoteIndexDiff {
+
+    private NoteIndexDiff() {
+    }
+
+    /**
+     * 差分反映の計画。
+     *
+     * @param inserts   新規登録する目次（id 未設定）
+     * @param updates   更新する目次（既存の id を設定済み）
+     * @param deletes   削除する目次ID
+     * @param unchanged 変更の無かった行数
+     */
+    public record Plan(List<NoteIndex> inserts, List<NoteIndex> updates, List<Long> deletes, int unchanged) {
+
+        /** 書き込みが発生する行数 */
+        public int touched() {
+            return inserts.size() + updates.size() + deletes.size();
+        }
+
+        public boolean isEmpty() {
+            return touched() == 0;
+        }
+    }
+
+    /**
+     * @param existing 既存の目次（同じノートの全行）
+     * @param incoming 新しい目次（index_number 採番済み・id 未設定）
+     */
+    public static Plan plan(List<NoteIndex> existing, List<NoteIndex> incoming) {
+        List<NoteIndex> pending = new ArrayList<>();
+        List<NoteIndex> updates = new ArrayList<>();
+        int unchanged = 0;
+
+        // 1) 番号とページ範囲が一致
+        Map<String, LinkedList<NoteIndex>> byKey = group(existing, true);
+        for (NoteIndex in : incoming) {
+            NoteIndex old = take(byKey, key(in, true));
+            if (old == null) {
+                pending.add(in);
+            } else if (match(old, in, updates)) {
+                unchanged++;
+            }
+        }
+
+        // 2) 残りのうちページ範囲のみ一致（番号ずれ）
+        List<NoteIndex> rest = new ArrayList<>();
+        byKey.values().forEach(rest::addAll);
+        Map<String, LinkedList<NoteIndex>> byRange = group(rest, false);
+        List<NoteIndex> inserts = new ArrayList<>();
+        for (NoteIndex in : pending) {
+            NoteIndex old = take(byRange, key(in, false));
+            if (old == null) {
+                inserts.add(in);
+            } else if (match(old, in, updates)) {
+                unchanged++;
+            }
+        }
+
+        List<Long> deletes = new ArrayList<>();
+        byRange.values().forEach(l -> l.forEach(old -> deletes.add(old.getId())));
+        return new Plan(inserts, updates, deletes, unchanged);
+    }
+
+    /** 既存行の ID と編集済みの項目を引き継ぎ、内容が違えば更新対象に加える。変更が無ければ true */
+    private static boolean match(NoteIndex old, NoteIndex in, List<NoteIndex> updates) {
+        in.setId(old.getId());
+        in.setTitleEdited(old.isTitleEdited());
+        in.setBodyEdited(old.isBodyEdited());
+        if (old.isTitleEdited()) in.setTitle(old.getTitle());
+        if (old.isBodyEdited()) in.setBody(old.getBody());
+        if (Objects.equals(old.getIndexNumber(), in.getIndexNumber())
+                && Objects.equals(old.getStartIndex(), in.getStartIndex())
+                && Objects.equals(old.getEndIndex(), in.getEndIndex())
+                && Objects.equals(old.getTitle(), in.getTitle())
+                && Objects.equals(old.getBody(), in.getBody())) {
+            return true;
+        }
+        updates.add(in);
+        return false;
+    }
+
+    /** キーごとに番号順で並べる（同じキーが複数あれば先頭から対応させる） */
+    private static Map<String, LinkedList<NoteIndex>> group(List<NoteIndex> rows, boolean withNumber) {
+        Map<String, LinkedList<NoteIndex>> map = new LinkedHashMap<>();
+        rows.stream()
+                .sorted((a, b) -> Integer.compare(num(a.getIndexNumber()), num(b.getIndexNumber())))
+                .forEach(r -> map.computeIfAbsent(key(r, withNumber), k -> new LinkedList<>()).add(r));
+        return map;
+    }
+
+    private static NoteIndex take(Map<String, LinkedList<NoteIndex>> map, String key) {
+        LinkedList<NoteIndex> l = map.get(key);
+        return (l == null) ? null : l.pollFirst();
+    }
+
+    private static String key(NoteIndex r, boolean withNumber) {
+        String range = r.getStartIndex() + "-" + r.getEndIndex();
+        return withNumber ? r.getIndexNumber() + ":" + range : range;
+    }
+
+    private static int num(Integer n) {
+        return (n == null) ? Integer.MAX_VALUE : n;
+    }
+}
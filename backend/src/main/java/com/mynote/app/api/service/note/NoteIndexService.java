@@ -20,12 +20,32 @@ public class NoteIndexService {
 
     private final NoteIndexMapper noteIndexMapper;
     private final com.mynote.app.domain.mapper.NoteMapper noteMapper;
+    private final NoteBulkWriter noteBulkWriter;
 
     @Transactional(readOnly = true)
     public List<NoteIndex> findByNoteId(Long noteId) {
         return noteIndexMapper.findByNoteId(noteId);
     }
 
+    /**
+     * AI の解析結果の目次をノートへ差分反映する（全削除＋再登録はしない）。
+     * <p>既存行と (番号, ページ範囲) で突き合わせ（{@link NoteIndexDiff}）、変わった行だけを
+     * INSERT / UPDATE / DELETE する。既存行の読み込み（FOR UPDATE）と書き込みは {@link NoteBulkWriter} で
+     * 1トランザクションにまとめ、その間のユーザーの編集を上書きしない。</p>
+     * @param noteId ノートID
+     * @param sections 新しい目次（index_number 採番済み・id 未設定）
+     * @return 反映した差分（{@code touched()} が書き込みの発生した行数）
+     */
+    public NoteIndexDiff.Plan syncSections(Long noteId, List<NoteIndex> sections) {
+        NoteBulkWriter.IndexSync synced = noteBulkWriter.syncIndexes(noteId, sections);
+        NoteIndexDiff.Plan plan = synced.plan();
+        int written = synced.written();
+        log.info("NoteIndex synced noteId={} touched={} written={} (insert={}, update={}, delete={}, unchanged={})",
+                noteId, plan.touched(), written, plan.inserts().size(), plan.updates().size(),
+                plan.deletes().size(), plan.unchanged());
+        return plan;
+    }
+
     /**
      * 新しい目次インデックスを作成する。
      * @param requestDto 目次情報を含むDTO
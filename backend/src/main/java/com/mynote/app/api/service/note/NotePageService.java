@@ -20,6 +20,7 @@ public class NotePageService {
 
     private final NotePageMapper notePageMapper;
     private final com.mynote.app.domain.mapper.NoteMapper noteMapper;
+    private final NoteBulkWriter noteBulkWriter;
 
     @Transactional(readOnly = true)
     public List<NotePage> findByNoteId(Long noteId) {
@@ -43,6 +44,7 @@ public class NotePageService {
             notePage.setFirebasePublicUrl(requestDto.getFirebasePublicUrl());
             notePage.setFirebaseAdminPath(requestDto.getFirebaseAdminPath());
             notePage.setExtractedText(requestDto.getExtractedText());
+            notePage.setRenderDpi(requestDto.getRenderDpi());
 
             notePageMapper.insert(notePage);
             
@@ -58,6 +60,25 @@ public class NotePageService {
         }
 	}
 
+    /**
+     * ページをまとめて登録する（取り込み時用）。
+     * <p>{@link NoteBulkWriter} 経由で JDBC バッチ（トランザクション内から呼ばれた場合は複数行 INSERT）にまとめるため、
+     * 300ページでも数回の往復で済む。採番された ID は引数の順に各エンティティへ詰め直される。</p>
+     *
+     * @param pages 登録対象（id は未設定）
+     * @return 引数と同じリスト（id 設定済み）
+     */
+    public List<NotePage> createNotePages(List<NotePage> pages) {
+        int inserted = noteBulkWriter.insertPages(pages);
+        if (inserted != pages.size()) {
+            throw new IllegalStateException("NotePage batch insert failed: expected=" + pages.size() + " inserted=" + inserted);
+        }
+        if (!pages.isEmpty()) {
+            log.info("NotePages created noteId={} pages={}", pages.get(0).getNoteId(), pages.size());
+        }
+        return pages;
+    }
+
     /**
      * ページのOCRテキストを更新する。
      * @param pageId 更新対象のページID
@@ -0,0 +1,89 @@
+package com.mynote.app.api.service.note;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mynote.app.domain.mapper.UserSequenceMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ユーザー別ノート連番（notes.user_seq_no）の払い出し。
+ *
+ * <p>user_sequences の行を {@code note.seq.block-size} ずつ進めて範囲（hi-lo）を確保し、
+ * 範囲内の番号はメモリから払い出す。DB に行くのは範囲を使い切ったときだけで、
+ * それも主キー1行の UPDATE のため、notes の (user_id, user_seq_no) に範囲ロックは掛からない。
+ *
+ * <p>範囲の確保は独立したトランザクション（REQUIRES_NEW）でコミットする。呼び出し側がロールバックしても
+ * 確保済みの範囲は戻らないため、同じ番号が二度払い出されることはない（代わりに欠番ができる）。
+ * 再起動やノートの作成失敗、複数ノードでの並行確保でも欠番・順序の前後は生じるが、番号の一意性は保たれる。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NoteSeqAllocator {
+
+    private final UserSequenceMapper userSequenceMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /** 1回の確保で進める番号の数（1 にすると欠番は作成失敗時だけになるが、毎回 DB に行く） */
+    @Value("${note.seq.block-size:10}")
+    private int blockSize;
+
+    private final ConcurrentHashMap<Long, Block> blocks = new ConcurrentHashMap<>();
+    private TransactionTemplate tx;
+
+    /** ユーザーごとの確保済み範囲（仮想スレッドを固定しないよう synchronized ではなく ReentrantLock） */
+    private static final class Block {
+        final ReentrantLock lock = new ReentrantLock();
+        int next = 1;
+        int high = 0;
+    }
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** 次のノート連番を払い出す */
+    public int next(Long userId) {
+        if (userId == null) throw new IllegalArgumentException("userId is required");
+        Block b = blocks.computeIfAbsent(userId, k -> new Block());
+        b.lock.lock();
+        try {
+            if (b.next > b.high) {
+                int size = Math.max(1, blockSize);
+                int high = reserve(userId, size);
+                b.next = high - size + 1;
+                b.high = high;
+            }
+            return b.next++;
+        } finally {
+            b.lock.unlock();
+        }
+    }
+
+    /** 連番を size 進め、確保した範囲の上限を返す */
+    private int reserve(Long userId, int size) {
+        Integer high = tx.execute(status -> {
+            if (userSequenceMapper.advanceNoteSeq(userId, size) == 0) {
+                userSequenceMapper.initNoteSeq(userId);
+                if (userSequenceMapper.advanceNoteSeq(userId, size) == 0) {
+                    throw new IllegalStateException("user_sequences row not found: userId=" + userId);
+                }
+            }
+            return userSequenceMapper.lastInsertId();
+        });
+        log.debug("[seq] reserved userId={} range={}..{}", userId, high - size + 1, high);
+        return high;
+    }
+}
@@ -1,18 +1,23 @@
 package com.mynote.app.api.service.note;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.mynote.app.api.dto.note.NoteByUserSeqNoResponseDto;
 import com.mynote.app.api.dto.note.NoteRequestDto;
 import com.mynote.app.api.dto.note.NoteResponseDto;
 import com.mynote.app.api.dto.note.PageResponseDto;
 import com.mynote.app.api.dto.note.TocResponseDto;
+import com.mynote.app.api.service.nav.NavChangedEvent;
 import com.mynote.app.domain.entity.Note;
 import com.mynote.app.domain.entity.NoteIndex;
 import com.mynote.app.domain.entity.NotePage;
@@ -21,6 +26,7 @@ import com.mynote.app.domain.mapper.NoteMapper;
 import com.mynote.app.domain.mapper.NotePageMapper;
 import com.mynote.app.domain.mapper.UserMapper;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
@@ -34,8 +40,24 @@ public class NoteService {
 	private final NotePageMapper notePageMapper;
 	private final NoteIndexMapper noteIndexMapper;
 	private final UserMapper userMapper;
+	private final NoteSeqAllocator noteSeqAllocator;
+	private final NoteDetailReader noteDetailReader;
+	/** ナビゲーション（ノート一覧）に出る項目が変わったら NavChangedEvent を発行する */
+	private final ApplicationEventPublisher eventPublisher;
+	private final PlatformTransactionManager transactionManager;
 
-	@Transactional(rollbackFor = Exception.class)
+	private TransactionTemplate tx;
+
+	@PostConstruct
+	void init() {
+		tx = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * ノートを作成する。
+	 * 連番の採番は NoteSeqAllocator が別トランザクションで先に済ませ、INSERT とナビゲーションの変更記録だけを
+	 * 短いトランザクションで行う（採番時に接続を2本同時に握らないため、メソッド全体にはトランザクションを張らない）。
+	 */
 	public Long createNote(Long userId, NoteRequestDto dto) {
 	  try {
 	    log.info("Attempting to create note for userId={}", userId);
@@ -53,8 +75,12 @@ public class NoteService {
 	    note.setDescription(dto.getDescription());
 	    note.setOriginalFilename(dto.getOriginalFilename());
 
-	    // 挿入（userSeqNo は BEFORE selectKey で、id は useGeneratedKeys で入る想定）
-	    noteMapper.insertAutoSeq(note);
+	    // 挿入（userSeqNo はユーザー別カウンタから採番、id は useGeneratedKeys で入る）
+	    note.setUserSeqNo(noteSeqAllocator.next(userId));
+	    tx.executeWithoutResult(status -> {
+	      noteMapper.insert(note);
+	      eventPublisher.publishEvent(NavChangedEvent.note(userId, note.getId(), note.getCategoryId(), false));
+	    });
 
 	 
 	    final Note saved = (note.getId() != null)
@@ -80,23 +106,28 @@ public class NoteService {
 	  }
 	}
 
-	public  NoteByUserSeqNoResponseDto getNoteByUserSeqNo(Long userId, Integer userSeqNo) {
-		
-		Note note = noteMapper.findByUserAndSeq(userId, userSeqNo);
-		if (note == null) {
+	/**
+	 * ノート詳細（ノート・ページ・目次）を取得する。
+	 * 3つの SELECT を1往復で送り（複数結果セット）、レスポンスDTOへ直接マッピングする。
+	 * NoteDetailReader の専用プールの読み取り専用トランザクションで実行し、3つの結果を同じスナップショットから読む
+	 * （既定のプールの接続は使わないため、このメソッドにはトランザクションを張らない）。
+	 *
+	 * @param userId ユーザーID
+	 * @param userSeqNo ユーザー別連番
+	 * @return ノート詳細（該当ノートが無ければ null）
+	 */
+	public NoteByUserSeqNoResponseDto getNoteByUserSeqNo(Long userId, Integer userSeqNo) {
+		NoteByUserSeqNoResponseDto dto = noteDetailReader.find(userId, userSeqNo);
+		if (dto == null || dto.getNote() == null) {
 			return null;
 		}
-		List<NotePage> pages = notePageMapper.findByNoteId(note.getId());
-		List<NoteIndex> indices = noteIndexMapper.findByNoteId(note.getId());
-		
-		System.out.println(note.getId());
-		NoteResponseDto noteDto = toListResponseDto(note);
-		List<PageResponseDto> page = pages.stream().map(this::toPageResponseDto).collect(Collectors.toList());
-		List<TocResponseDto> toc = indices.stream().map(this::toTocResponseDto).collect(Collectors.toList());
-		NoteByUserSeqNoResponseDto dto = new NoteByUserSeqNoResponseDto();
-		dto.setNote(noteDto);
-		dto.setPage(page);
-		dto.setToc(toc);
+		// ページ・目次が0件の場合は空リストで返す（従来どおり）
+		if (dto.getPage() == null) {
+			dto.setPage(new ArrayList<>());
+		}
+		if (dto.getToc() == null) {
+			dto.setToc(new ArrayList<>());
+		}
 		return dto;
 	}
 
@@ -250,7 +281,9 @@ public class NoteService {
 	        throw new IllegalArgumentException("title is required");
 	    }
 
-	    return noteMapper.updateTitle(note.getId(), title.trim());
+	    int updated = noteMapper.updateTitle(note.getId(), title.trim());
+	    eventPublisher.publishEvent(NavChangedEvent.note(userId, note.getId(), null, false));
+	    return updated;
 	}
 	
 	/**
@@ -275,6 +308,8 @@ public class NoteService {
 
 		// 2. 取得したNote IDを使って更新を実行
 		noteMapper.updateDescription(note.getId(), description);
+		// updated_at がナビゲーションにも出るため
+		eventPublisher.publishEvent(NavChangedEvent.note(userId, note.getId(), null, false));
 
 		return 1;
 	}
@@ -334,6 +369,7 @@ public class NoteService {
 			// 同時更新などで消えてた等の稀ケース
 			return null;
 		}
+		eventPublisher.publishEvent(NavChangedEvent.note(userId, noteId, categoryId, true));
 
 		return new DeletedNoteMeta(noteId, categoryId);
 	}
@@ -343,7 +379,9 @@ public class NoteService {
 		if (userId == null)
 			throw new IllegalArgumentException("userId is required");
 		// FK(CASCADE) 前提：notes を消せば note_pages / note_indexes 等も連鎖削除
-		return userMapper.deleteUser(userId);
+		int rows = userMapper.deleteUser(userId);
+		eventPublisher.publishEvent(NavChangedEvent.userDeleted(userId));
+		return rows;
 
 	}
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.List;
+
+import com.mynote.app.api.dto.ai.AiDocumentSummaryDto;
+import com.mynote.app.api.dto.ai.AiPageDetailDto;
+import com.mynote.app.api.dto.ai.AiSectionDto;
+
+/**
+ * Gemini の出力を要素単位で受け取るリスナー。
+ * ストリーミング生成中、各要素の JSON が閉じた時点で呼ばれる（map-reduce では窓の完了ごと）。
+ * map-reduce の場合は複数スレッドから呼ばれることがあるため、実装側でスレッドセーフにすること。
+ */
+public interface AiIngestListener {
+
+    AiIngestListener NONE = new AiIngestListener() {};
+
+    default void onPageDetail(AiPageDetailDto detail) {}
+
+    default void onSection(AiSectionDto section) {}
+
+    default void onDocumentSummary(List<AiDocumentSummaryDto> summary) {}
+}
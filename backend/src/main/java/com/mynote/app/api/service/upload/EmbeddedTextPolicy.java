@@ -0,0 +1,48 @@
+package com.mynote.app.api.service.upload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * PDF の埋め込みテキストがそのまま使えるかを判定する。
+ *
+ * <p>スキャンページ（テキスト無し）や、フォントのエンコーディング不備で文字化けしたページは
+ * 埋め込みテキストを使わず OCR に回す。判定は1ページ単位で行う。
+ * <ul>
+ *   <li>空白を除いた文字数が {@code min-chars} 以上</li>
+ *   <li>置換文字 U+FFFD・制御文字・私用領域の文字などを除いた「読める文字」の割合が {@code min-readable-ratio} 以上</li>
+ * </ul>
+ */
+@Component
+public class EmbeddedTextPolicy {
+
+    @Value("${upload.simple.min-embedded-chars:20}")
+    private int minChars;
+
+    @Value("${upload.simple.min-readable-ratio:0.6}")
+    private double minReadableRatio;
+
+    /** 埋め込みテキストをそのまま AI に渡してよいか */
+    public boolean isPlausible(String text) {
+        if (text == null) return false;
+
+        int total = 0;
+        int readable = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp)) continue;
+            total++;
+            if (isReadable(cp)) readable++;
+        }
+        return total >= minChars && readable >= total * minReadableRatio;
+    }
+
+    private static boolean isReadable(int cp) {
+        if (cp == 0xFFFD) return false;
+        return switch (Character.getType(cp)) {
+            case Character.CONTROL, Character.PRIVATE_USE, Character.UNASSIGNED, Character.SURROGATE -> false;
+            default -> true;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.mynote.app.api.service.upload;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import com.mynote.app.api.service.upload.PageImageBufferPool.PooledBuffer;
+
+/**
+ * エンコード済みのページ画像。
+ * 通常はプールから借りたメモリ上のバッファに保持し、メモリ上限を超えた場合のみ temp ファイルに退避する。
+ * {@link #close()} でバッファ返却／temp ファイル削除を行う。
+ */
+final class EncodedPage implements AutoCloseable {
+
+    private final PooledBuffer buffer;
+    private final File spillFile;
+    private final String ext;
+    private final String contentType;
+
+    private EncodedPage(PooledBuffer buffer, File spillFile, String ext, String contentType) {
+        this.buffer = buffer;
+        this.spillFile = spillFile;
+        this.ext = ext;
+        this.contentType = contentType;
+    }
+
+    static EncodedPage inMemory(PooledBuffer buffer, String ext, String contentType) {
+        return new EncodedPage(buffer, null, ext, contentType);
+    }
+
+    static EncodedPage spilled(File file, String ext, String contentType) {
+        return new EncodedPage(null, file, ext, contentType);
+    }
+
+    boolean isInMemory() {
+        return buffer != null;
+    }
+
+    ByteBuffer bytes() {
+        return buffer.toByteBuffer();
+    }
+
+    File file() {
+        return spillFile;
+    }
+
+    String ext() {
+        return ext;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    long size() {
+        return isInMemory() ? buffer.size() : spillFile.length();
+    }
+
+    @Override
+    public void close() {
+        if (buffer != null) {
+            buffer.close();
+        }
+        if (spillFile != null) {
+            try {
+                if (spillFile.exists()) spillFile.delete();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+}
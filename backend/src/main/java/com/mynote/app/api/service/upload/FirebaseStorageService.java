@@ -3,11 +3,14 @@ package com.mynote.app.api.service.upload;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.StorageClient;
@@ -53,6 +56,28 @@ public class FirebaseStorageService {
     return new UploadedImage(publicUrl, bucket(), objectPath);
   }
 
+  /**
+   * メモリ上のバイト列をそのままアップロードする（temp ファイルを経由しない）。
+   * position〜limit の範囲を送信し、配列を持つバッファはコピーせずに渡す。
+   */
+  public UploadedImage uploadBytes(ByteBuffer data, String objectPath, String contentType) throws IOException {
+    BlobInfo info = BlobInfo.newBuilder(bucket(), objectPath).setContentType(contentType).build();
+    try {
+      if (data.hasArray()) {
+        storage.create(info, data.array(), data.arrayOffset() + data.position(), data.remaining());
+      } else {
+        byte[] copy = new byte[data.remaining()];
+        data.duplicate().get(copy);
+        storage.create(info, copy);
+      }
+    } catch (RuntimeException e) {
+      throw new IOException("Upload failed: " + objectPath, e);
+    }
+    String publicUrl = buildPublicUrl(bucket(), objectPath);
+    log.debug("Uploaded {} bytes: gs://{}/{} -> {}", data.remaining(), bucket(), objectPath, publicUrl);
+    return new UploadedImage(publicUrl, bucket(), objectPath);
+  }
+
   // ========== ノートのページ画像アップロード ==========
   public UploadedImage uploadNotePageImage(long userId, long categoryId, long noteId, int pageNo, File imageFile)
       throws IOException {
@@ -61,6 +86,37 @@ public class FirebaseStorageService {
     return uploadToPath(imageFile, path, detectContentType(imageFile));
   }
 
+  public UploadedImage uploadNotePageBytes(long userId, long categoryId, long noteId, int pageNo,
+      ByteBuffer data, String ext, String contentType) throws IOException {
+    String path = pageObjectPath(userId, categoryId, noteId, pageNo, ext);
+    return uploadBytes(data, path, contentType);
+  }
+
+  /**
+   * 既存オブジェクトをサーバー側でコピーする（データをダウンロード／再アップロードしない）。
+   * 取り込みキャッシュのヒット時に、元ノートの画像を新しいノートのパスへ複製するために使う。
+   *
+   * @param sourceGsUri コピー元（gs://bucket/path）
+   */
+  public UploadedImage copyObject(String sourceGsUri, String objectPath) throws IOException {
+    if (sourceGsUri == null || !sourceGsUri.startsWith("gs://"))
+      throw new IOException("Invalid gs uri: " + sourceGsUri);
+    String rest = sourceGsUri.substring("gs://".length());
+    int slash = rest.indexOf('/');
+    if (slash <= 0) throw new IOException("Invalid gs uri: " + sourceGsUri);
+
+    BlobId source = BlobId.of(rest.substring(0, slash), rest.substring(slash + 1));
+    BlobId target = BlobId.of(bucket(), objectPath);
+    try {
+      storage.copy(Storage.CopyRequest.of(source, target)).getResult();
+    } catch (RuntimeException e) {
+      throw new IOException("Copy failed: " + sourceGsUri + " -> " + objectPath, e);
+    }
+    String publicUrl = buildPublicUrl(bucket(), objectPath);
+    log.debug("Copied: {} -> gs://{}/{}", sourceGsUri, bucket(), objectPath);
+    return new UploadedImage(publicUrl, bucket(), objectPath);
+  }
+
 //========== まとめて削除（非同期・例外吸収） ==========
 @Async
 public void deleteUserAssetsAsync(long userId) {
@@ -121,6 +177,7 @@ public void deleteNoteAssetsAsync(long userId, long categoryId, long noteId) {
     String n = filename == null ? "" : filename.toLowerCase();
     if (n.endsWith(".jpg") || n.endsWith(".jpeg")) return "jpg";
     if (n.endsWith(".gif")) return "gif";
+    if (n.endsWith(".webp")) return "webp";
     if (n.endsWith(".png")) return "png";
     return "png";
   }
@@ -129,6 +186,7 @@ public void deleteNoteAssetsAsync(long userId, long categoryId, long noteId) {
     if (n.endsWith(".png")) return "image/png";
     if (n.endsWith(".jpg") || n.endsWith(".jpeg")) return "image/jpeg";
     if (n.endsWith(".gif")) return "image/gif";
+    if (n.endsWith(".webp")) return "image/webp";
     if (n.endsWith(".pdf")) return "application/pdf";
     return "application/octet-stream";
   }
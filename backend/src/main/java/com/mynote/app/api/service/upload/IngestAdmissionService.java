@@ -0,0 +1,185 @@
+package com.mynote.app.api.service.upload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 取り込みジョブの受け入れ判定（アドミッション制御）。
+ *
+ * <p>ジョブ登録・カテゴリ作成などの副作用より前に、PDF のページ数とサイズから見積もったコストと
+ * 現在のキューの深さ・ノードの余力（ヒープ・spool ディスク）を突き合わせ、受け入れられない場合は
+ * 呼び出し側が 429（Retry-After 付き）で断れるよう理由と再試行までの秒数を返す。
+ * 本文の受信前には {@link #precheck}（ページ数を見ない簡易判定）、spool 後には {@link #admit} で判定する。
+ *
+ * <p>メトリクス:
+ * <ul>
+ *   <li>{@code upload.admission.decisions}       : 判定件数（result=admitted/rejected, reason）</li>
+ *   <li>{@code upload.admission.estimated-pages} : 判定した PDF の推定ページ数</li>
+ *   <li>{@code upload.admission.queued-pages}    : 待ちジョブの推定ページ数の合計</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestAdmissionService {
+
+    /** Retry-After の上限（秒） */
+    private static final int MAX_RETRY_AFTER_SECONDS = 600;
+
+    /** 断った理由 */
+    public enum Reason {
+        /** 1文書のページ数が上限を超えている（再試行しても通らない） */
+        TOO_LARGE,
+        /** そのユーザーの待ち・実行中ジョブが多すぎる */
+        USER_JOBS,
+        /** 待ちジョブ数が上限に達している */
+        QUEUE_JOBS,
+        /** 待ちジョブのページ数が上限に達している */
+        QUEUE_PAGES,
+        /** ヒープの空きが足りない */
+        HEAP,
+        /** spool ディスクの空きが足りない */
+        DISK
+    }
+
+    /**
+     * 判定結果。
+     *
+     * @param reason            断った理由（受け入れた場合は null）
+     * @param retryAfterSeconds 再試行までの秒数の目安（受け入れた場合・TOO_LARGE は 0）
+     */
+    public record Decision(boolean admitted, Reason reason, int retryAfterSeconds) {
+
+        static Decision admit() {
+            return new Decision(true, null, 0);
+        }
+
+        static Decision reject(Reason reason, int retryAfterSeconds) {
+            return new Decision(false, reason, retryAfterSeconds);
+        }
+    }
+
+    private final IngestJobService ingestJobService;
+    private final PdfSpoolService pdfSpoolService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${upload.admission.enabled:true}")
+    private boolean enabled;
+
+    /** 1文書のページ数の上限 */
+    @Value("${upload.admission.max-pages-per-document:1000}")
+    private int maxPagesPerDocument;
+
+    /** 1ユーザーの待ち・実行中ジョブ数の上限 */
+    @Value("${upload.admission.max-jobs-per-user:10}")
+    private int maxJobsPerUser;
+
+    /** 全体の待ちジョブ数の上限 */
+    @Value("${upload.admission.max-queued-jobs:200}")
+    private int maxQueuedJobs;
+
+    /** 全体の待ちジョブの推定ページ数の上限 */
+    @Value("${upload.admission.max-queued-pages:10000}")
+    private long maxQueuedPages;
+
+    /** 受け入れに必要なヒープの空き（MB） */
+    @Value("${upload.admission.min-free-heap-mb:256}")
+    private long minFreeHeapMb;
+
+    /** 受け入れに必要な spool ディスクの空き（MB）。PDF 自身のサイズに加えて確保する */
+    @Value("${upload.admission.min-free-disk-mb:1024}")
+    private long minFreeDiskMb;
+
+    /** ノードの余力不足で断るときの Retry-After（秒）。キュー起因の場合もこれを下限とする */
+    @Value("${upload.admission.retry-after-seconds:30}")
+    private int retryAfterSeconds;
+
+    private DistributionSummary estimatedPages;
+
+    @PostConstruct
+    void init() {
+        estimatedPages = DistributionSummary.builder("upload.admission.estimated-pages")
+                .description("受け入れ判定した PDF の推定ページ数").register(meterRegistry);
+        Gauge.builder("upload.admission.queued-pages", ingestJobService, IngestJobService::queuedPages)
+                .description("待ちジョブの推定ページ数の合計").register(meterRegistry);
+    }
+
+    /**
+     * 取り込みジョブを受け入れてよいか判定する。
+     *
+     * @param pageEstimate PDF の推定ページ数
+     * @param bytes        PDF のサイズ
+     */
+    public Decision admit(Long userId, int pageEstimate, long bytes) {
+        estimatedPages.record(pageEstimate);
+        Decision d = enabled ? decide(userId, pageEstimate, bytes) : Decision.admit();
+
+        count(d);
+        if (!d.admitted()) {
+            log.info("[admission] rejected userId={} pages={} bytes={} reason={} retryAfter={}s",
+                    userId, pageEstimate, bytes, d.reason(), d.retryAfterSeconds());
+        }
+        return d;
+    }
+
+    /**
+     * 本文（PDF）を受信する前の簡易判定。1ページの文書でも受け入れられない状態なら断る。
+     * ページ数による判定は行わないため、受信後に改めて {@link #admit} を呼ぶこと。
+     *
+     * @param userId        null ならユーザー単位の判定は省く
+     * @param contentLength リクエスト本文のサイズ（不明なら負数）
+     */
+    public Decision precheck(Long userId, long contentLength) {
+        long bytes = Math.max(0, contentLength);
+        Decision d = enabled ? decide(userId, 1, bytes) : Decision.admit();
+
+        count(d);
+        if (!d.admitted()) {
+            log.info("[admission] rejected before upload userId={} bytes={} reason={} retryAfter={}s",
+                    userId, bytes, d.reason(), d.retryAfterSeconds());
+        }
+        return d;
+    }
+
+    private void count(Decision d) {
+        meterRegistry.counter("upload.admission.decisions",
+                "result", d.admitted() ? "admitted" : "rejected",
+                "reason", d.reason() == null ? "none" : d.reason().name().toLowerCase()).increment();
+    }
+
+    private Decision decide(Long userId, int pageEstimate, long bytes) {
+        if (pageEstimate > maxPagesPerDocument)
+            return Decision.reject(Reason.TOO_LARGE, 0);
+
+        // ノードの余力（キューに積むだけでも spool とページ数計測でメモリ・ディスクを使う）
+        Runtime rt = Runtime.getRuntime();
+        long freeHeap = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+        if (freeHeap < minFreeHeapMb * 1024L * 1024L)
+            return Decision.reject(Reason.HEAP, retryAfterSeconds);
+        if (pdfSpoolService.usableSpace() - bytes < minFreeDiskMb * 1024L * 1024L)
+            return Decision.reject(Reason.DISK, retryAfterSeconds);
+
+        // キューの深さ（超過分が捌けるまでの見込み時間を Retry-After にする）
+        if (userId != null && ingestJobService.activeJobsOf(userId) >= maxJobsPerUser)
+            return Decision.reject(Reason.USER_JOBS, retryAfter(pageEstimate));
+        if (ingestJobService.countByStatus(IngestJobService.Status.QUEUED) >= maxQueuedJobs)
+            return Decision.reject(Reason.QUEUE_JOBS, retryAfter(pageEstimate));
+        long queuedPages = ingestJobService.queuedPages();
+        if (queuedPages + pageEstimate > maxQueuedPages)
+            return Decision.reject(Reason.QUEUE_PAGES, retryAfter(queuedPages + pageEstimate - maxQueuedPages));
+
+        return Decision.admit();
+    }
+
+    private int retryAfter(long excessPages) {
+        long seconds = ingestJobService.estimateSeconds(excessPages);
+        return (int) Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(retryAfterSeconds, seconds));
+    }
+}
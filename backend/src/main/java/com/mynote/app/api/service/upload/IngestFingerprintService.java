@@ -0,0 +1,259 @@
+package com.mynote.app.api.service.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mynote.app.api.dto.admin.IngestCacheStatsDto;
+import com.mynote.app.api.dto.ai.AiIngestRequestDto;
+import com.mynote.app.api.service.upload.ProcessStatusEvent.Mode;
+import com.mynote.app.api.service.upload.UploadFacadeService.PageData;
+import com.mynote.app.domain.entity.IngestFingerprint;
+import com.mynote.app.domain.mapper.IngestFingerprintMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 同一 PDF の再取り込みを省略するための指紋キャッシュ。
+ *
+ * <p>指紋は「PDF の内容ハッシュ・DPI ポリシー・モード・プロンプト・モデル」から作る。
+ * ヒットした場合は元ノートのページ画像をストレージ上でコピーし、保存済みの OCR テキストと
+ * AI 結果（{@link AiIngestRequestDto}）を再利用することで、描画・アップロード・OCR・Gemini 呼び出しを省く。
+ * キャッシュはユーザー単位（他ユーザーのアップロード有無が推測できないようにする）で、
+ * 元ノートが削除されると外部キーで自動的に消える。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestFingerprintService {
+
+    /** 描画・プロンプト組み立てなどの処理内容を変えたら上げる（古い指紋を無効化する） */
+    private static final String PIPELINE_VERSION = "3";
+
+    private final IngestFingerprintMapper ingestFingerprintMapper;
+    private final RenderDpiPolicy renderDpiPolicy;
+    private final VertexGeminiService vertexGeminiService;
+    private final FirebaseStorageService firebaseStorageService;
+    private final PageUploadExecutor pageUploadExecutor;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${upload.fingerprint.enabled:true}")
+    private boolean enabled;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("ingest.fingerprint.lookups").tag("result", "hit")
+                .description("取り込みキャッシュの検索結果").register(meterRegistry);
+        misses = Counter.builder("ingest.fingerprint.lookups").tag("result", "miss")
+                .description("取り込みキャッシュの検索結果").register(meterRegistry);
+    }
+
+    /** 指紋の構成要素 */
+    public record Key(String pdfSha256, String fingerprint, Mode mode, String model, String dpiPolicy) {}
+
+    /** キャッシュ上のページ（元ノートの画像の場所と、描画時の情報） */
+    record CachedPage(int pageNumber, String gsUri, int renderDpi, String embeddedText) {}
+
+    /** 再利用できた成果物（ページは新しいノートのパスへコピー済み） */
+    public record Reuse(List<PageData> pages, String ocrText, AiIngestRequestDto aiResult) {}
+
+    /**
+     * spool 済み PDF の内容ハッシュ（ジョブ登録時に1回だけ計算し、ingest_jobs に保存する）。
+     * キャッシュが無効、または読めなかった場合は null（そのジョブはキャッシュを使わない）。
+     */
+    public String pdfSha256(File pdf) {
+        if (!enabled) return null;
+        try {
+            return sha256(pdf);
+        } catch (IOException e) {
+            log.warn("[fingerprint] pdf hash failed: {} : {}", pdf, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * PDF の内容ハッシュと取り込み条件から指紋を作る（ファイルは読まない）。
+     *
+     * @return pdfSha256 が null なら null
+     */
+    public Key keyOf(String pdfSha256, Mode mode, String tocPrompt, String pagePrompt) {
+        if (pdfSha256 == null) return null;
+        String model = vertexGeminiService.getDefaultModelId();
+        String dpiPolicy = renderDpiPolicy.signature();
+        String fingerprint = sha256(String.join("\u0000",
+                PIPELINE_VERSION, pdfSha256, dpiPolicy, String.valueOf(mode), String.valueOf(model),
+                sha256(nullToEmpty(tocPrompt)), sha256(nullToEmpty(pagePrompt))));
+        return new Key(pdfSha256, fingerprint, mode, model, dpiPolicy);
+    }
+
+    /**
+     * キャッシュを検索し、ヒットすれば元ノートのページ画像を新しいノートのパスへコピーして返す。
+     * ミス、または元画像が失われていてコピーできない場合は null（呼び出し側は通常処理を行う）。
+     */
+    public Reuse tryReuse(Long userId, Long categoryId, Long noteId, Key key) {
+        if (!enabled || key == null) return null;
+
+        IngestFingerprint hit = ingestFingerprintMapper.findByUserAndFingerprint(userId, key.fingerprint());
+        if (hit == null) {
+            misses.increment();
+            return null;
+        }
+
+        try {
+            List<CachedPage> cached = objectMapper.readValue(hit.getPagesJson(), new TypeReference<List<CachedPage>>() {});
+            AiIngestRequestDto ai = objectMapper.readValue(hit.getAiResultJson(), AiIngestRequestDto.class);
+            ai.setNoteId(noteId);
+
+            List<PageData> pages = copyPages(userId, categoryId, noteId, cached);
+            ingestFingerprintMapper.markHit(hit.getId());
+            hits.increment();
+            log.info("[fingerprint] hit userId={} noteId={} sourceNoteId={} pages={}",
+                    userId, noteId, hit.getSourceNoteId(), pages.size());
+            return new Reuse(pages, hit.getOcrText(), ai);
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("[fingerprint] reuse failed, falling back to full ingest: userId={} sourceNoteId={} err={}",
+                    userId, hit.getSourceNoteId(), e.toString());
+            ingestFingerprintMapper.delete(hit.getId());
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * 取り込み結果を記録する。キャッシュの失敗で取り込み自体を失敗させないよう、例外はログのみ。
+     *
+     * @param ocrText AI に渡したテキスト（OCR 結果または埋め込みテキスト）
+     */
+    public void record(Long userId, Key key, Long noteId, List<PageData> pages, String ocrText, AiIngestRequestDto ai) {
+        if (!enabled || key == null || ai == null) return;
+        try {
+            List<CachedPage> cached = pages.stream()
+                    .map(p -> new CachedPage(p.getPageNumber(), p.getGsUri(), p.getRenderDpi(), p.getEmbeddedText()))
+                    .toList();
+            // noteId は再利用時に詰め直し、rawJson は本体と重複するため保存しない
+            ObjectNode aiJson = objectMapper.valueToTree(ai);
+            aiJson.remove("noteId");
+            aiJson.remove("rawJson");
+
+            IngestFingerprint f = new IngestFingerprint();
+            f.setUserId(userId);
+            f.setFingerprint(key.fingerprint());
+            f.setPdfSha256(key.pdfSha256());
+            f.setMode(String.valueOf(key.mode()));
+            f.setModel(key.model());
+            f.setDpiPolicy(key.dpiPolicy());
+            f.setSourceNoteId(noteId);
+            f.setPageCount(cached.size());
+            f.setPagesJson(objectMapper.writeValueAsString(cached));
+            f.setOcrText(ocrText);
+            f.setAiResultJson(objectMapper.writeValueAsString(aiJson));
+            ingestFingerprintMapper.upsert(f);
+        } catch (Exception e) {
+            log.warn("[fingerprint] record failed: userId={} noteId={} err={}", userId, noteId, e.toString());
+        }
+    }
+
+    /** 管理画面用の統計 */
+    public IngestCacheStatsDto stats() {
+        IngestCacheStatsDto dto = new IngestCacheStatsDto();
+        long h = (long) hits.count();
+        long m = (long) misses.count();
+        dto.setEnabled(enabled);
+        dto.setHits(h);
+        dto.setMisses(m);
+        dto.setHitRate(h + m == 0 ? 0.0 : (double) h / (h + m));
+        dto.setEntries(ingestFingerprintMapper.countAll());
+        dto.setTotalHits(ingestFingerprintMapper.sumHitCount());
+        return dto;
+    }
+
+    // ===== helpers =====
+
+    /** 元ノートの画像を新しいノートのパスへサーバー側コピーする（アップロードと同じ共通 Executor で並列実行） */
+    private List<PageData> copyPages(Long userId, Long categoryId, Long noteId, List<CachedPage> cached) throws IOException {
+        List<CompletableFuture<PageData>> copies = new ArrayList<>(cached.size());
+        try (PageUploadExecutor.Job job = pageUploadExecutor.openJob("copy-note-" + noteId)) {
+            for (CachedPage p : cached) {
+                copies.add(job.submit(() -> {
+                    String path = firebaseStorageService.pageObjectPath(
+                            userId, categoryId, noteId, p.pageNumber(), extOf(p.gsUri()));
+                    FirebaseStorageService.UploadedImage up = firebaseStorageService.copyObject(p.gsUri(), path);
+                    return new PageData(p.pageNumber(), up.publicUrl(), up.gsUri(), p.embeddedText(), p.renderDpi());
+                }));
+            }
+            CompletableFuture.allOf(copies.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            // コピー済みの分は片付けてから通常処理へ戻す
+            for (CompletableFuture<PageData> c : copies) {
+                PageData done = c.getNow(null);
+                if (done != null) firebaseStorageService.deleteByPrefix(objectPathOf(done.getGsUri()));
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Page copy failed: " + cause.getMessage(), cause);
+        }
+        return copies.stream()
+                .map(CompletableFuture::join)
+                .sorted(Comparator.comparingInt(PageData::getPageNumber))
+                .toList();
+    }
+
+    private static String extOf(String gsUri) {
+        int dot = gsUri.lastIndexOf('.');
+        return (dot < 0 || dot < gsUri.lastIndexOf('/')) ? "png" : gsUri.substring(dot + 1);
+    }
+
+    private static String objectPathOf(String gsUri) {
+        String rest = gsUri.substring("gs://".length());
+        return rest.substring(rest.indexOf('/') + 1);
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest md = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), md)) {
+            in.transferTo(java.io.OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static String sha256(String s) {
+        return HexFormat.of().formatHex(newDigest().digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
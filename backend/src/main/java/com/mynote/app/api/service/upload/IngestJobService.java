@@ -0,0 +1,352 @@
+package com.mynote.app.api.service.upload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mynote.app.api.dto.ai.AiIngestRequestDto;
+import com.mynote.app.api.service.upload.PdfSpoolService.SpooledPdf;
+import com.mynote.app.api.service.upload.ProcessStatusEvent.Mode;
+import com.mynote.app.api.service.upload.UploadFacadeService.PageData;
+import com.mynote.app.domain.entity.IngestJob;
+import com.mynote.app.domain.mapper.IngestJobMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PDF 取り込みジョブの永続キュー（ingest_jobs）。
+ *
+ * <p>アップロードを受け付けた時点でジョブを登録し、ワーカー（{@link IngestJobWorker}）が
+ * {@code FOR UPDATE SKIP LOCKED} で1件ずつ確保して処理する。処理中はハートビートを更新し、
+ * 途絶えたジョブ（ノードの停止・再デプロイ）は別のワーカーが回収して最後に完了した段階の次から再開する。
+ * 処理中の例外（外部 API の一時的なエラーなど）も、待ち時間を倍々に延ばしながら待ち行列へ戻して同じく続きから再試行する。
+ * どちらも {@code upload.jobs.max-attempts} 回の試行を使い切ったら FAILED にする。
+ * 再計算が高くつく途中成果物（ページ一覧・OCR テキスト・AI 結果）はチェックポイントとして保存する。
+ *
+ * <p>取り出し順はユーザー間で公平にする（先着順だと大量アップロードした1人が他の全員を待たせるため）。
+ * <ul>
+ *   <li>ユーザーごとの同時実行数を {@code upload.scheduler.per-user-limit} までに制限する
+ *       （ワーカー同士が同時に確保すると一時的に超えうる、最善努力の上限）</li>
+ *   <li>推定ページ数をコストとした重み付き公平キューイング（開始タグ順）。ユーザーごとに仮想時刻を進めるため、
+ *       1人が大きな文書を何件並べても、他のユーザーのジョブはその間に割り込める</li>
+ *   <li>{@code upload.scheduler.small-doc-pages} 以下の文書は優先枠。{@code aging-seconds} 以上待った文書も優先枠に入れ、
+ *       大きな文書が飢餓にならないようにする</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestJobService {
+
+    /** ジョブの状態 */
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    /**
+     * 完了した段階（この順に進む）。
+     * RENDERED: ページ画像の描画・ストレージ保存まで / UPLOADED: note_pages 登録まで /
+     * OCR_DONE: AI への入力テキスト確定 / AI_DONE: AI 結果の取得 / APPLIED: AI 結果の DB 反映
+     */
+    public enum Stage { RENDERED, UPLOADED, OCR_DONE, AI_DONE, APPLIED }
+
+    /**
+     * 登録時点の待ち順と開始予定（概算）。
+     *
+     * @param position        待ち順（1 = 次に開始）
+     * @param expectedStartAt 開始予定時刻（直近の処理速度とワーカー数から概算）
+     */
+    public record QueueTicket(Long jobId, long position, int pageEstimate, Instant expectedStartAt) {}
+
+    /**
+     * ジョブの担当を失った（ハートビートが途絶えている間に別ノードが回収した）。
+     * 以降の処理は回収したノードが行うため、このノードは結果を書かずに処理を打ち切る。
+     */
+    public static class LeaseLostException extends IllegalStateException {
+        public LeaseLostException(Long jobId) {
+            super("ingest job " + jobId + " was taken over by another node");
+        }
+    }
+
+    /** チェックポイントに保存するページ情報 */
+    record JobPage(int pageNumber, String publicUrl, String gsUri, String embeddedText, int renderDpi) {}
+
+    private final IngestJobMapper ingestJobMapper;
+    private final ObjectMapper objectMapper;
+
+    /** このノードの識別子（locked_by） */
+    private final String owner = System.getenv().getOrDefault("HOSTNAME", "node")
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    /** ハートビートがこの秒数途絶えた RUNNING ジョブを回収する */
+    @Value("${upload.jobs.stale-seconds:90}")
+    private int staleSeconds;
+
+    /** 1ジョブあたりの最大試行回数（確保するたびに1回消費。処理中の失敗・ノードの停止どちらでも再試行する） */
+    @Value("${upload.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    /** 失敗したジョブを再試行するまでの待ち秒数（試行ごとに倍にする） */
+    @Value("${upload.jobs.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    /** 再試行までの待ち秒数の上限 */
+    @Value("${upload.jobs.retry-backoff-max-seconds:600}")
+    private long retryBackoffMaxSeconds;
+
+    /** ユーザーごとの同時実行数の上限（全ノード合計） */
+    @Value("${upload.scheduler.per-user-limit:2}")
+    private int perUserLimit;
+
+    /** このページ数以下の文書は優先枠で取り出す */
+    @Value("${upload.scheduler.small-doc-pages:20}")
+    private int smallDocPages;
+
+    /** この秒数以上待ったジョブは大きさに関係なく優先枠に入れる */
+    @Value("${upload.scheduler.aging-seconds:600}")
+    private int agingSeconds;
+
+    /** 完了履歴が無いときの、1ページあたりの処理秒数の見込み */
+    @Value("${upload.scheduler.default-seconds-per-page:3}")
+    private double defaultSecondsPerPage;
+
+    @Value("${upload.jobs.workers:4}")
+    private int workers;
+
+    /**
+     * ジョブを登録する。spool 済み PDF はジョブ終了（DONE / FAILED）まで残す。
+     *
+     * <p>開始タグ = max(システムの仮想時刻, そのユーザーの直前ジョブの終了タグ)、終了タグ = 開始タグ + 推定ページ数。
+     *
+     * @param pdfSha256    PDF の内容ハッシュ（取り込みキャッシュ用、null 可）
+     * @param pageEstimate 推定ページ数（コスト）
+     * @return 待ち順と開始予定
+     */
+    @Transactional
+    public QueueTicket enqueue(Long userId, Long categoryId, String title, SpooledPdf pdf, String pdfSha256,
+            String tocPrompt, String pagePrompt, Mode mode, int pageEstimate) {
+        int cost = Math.max(1, pageEstimate);
+        double start = Math.max(ingestJobMapper.currentVirtualTime(), ingestJobMapper.lastVirtualFinish(userId));
+
+        IngestJob job = new IngestJob();
+        job.setUserId(userId);
+        job.setCategoryId(categoryId);
+        job.setTitle(title);
+        job.setOriginalFilename(pdf.originalFilename());
+        job.setSpoolPath(pdf.file().getAbsolutePath());
+        job.setPdfSha256(pdfSha256);
+        job.setMode(mode.name());
+        job.setTocPrompt(tocPrompt);
+        job.setPagePrompt(pagePrompt);
+        job.setPageEstimate(cost);
+        job.setPriority(cost <= smallDocPages ? 0 : 1);
+        job.setVirtualStart(start);
+        job.setVirtualFinish(start + cost);
+        ingestJobMapper.insert(job);
+
+        QueueTicket ticket = ticketOf(job.getId(), cost, 0);
+        log.info("[job] enqueued jobId={} userId={} pages={} priority={} vstart={} position={}",
+                job.getId(), userId, cost, job.getPriority(), start, ticket.position());
+        return ticket;
+    }
+
+    /**
+     * 待ち順と開始予定を概算する（(実行中 + 先に取り出されるジョブのページ数) × 直近の1ページあたり秒数 ÷ ワーカー数）。
+     * 実行中のジョブはワーカーを塞いでいるため、その分も待ち時間に含める。
+     *
+     * @param notBeforeSeconds 少なくともこの秒数は取り出されない（再試行の待ち時間）
+     */
+    private QueueTicket ticketOf(Long jobId, int pageEstimate, long notBeforeSeconds) {
+        long ahead = ingestJobMapper.countAhead(jobId);
+        long pagesAhead = ingestJobMapper.sumRunningPages() + ingestJobMapper.sumPagesAhead(jobId);
+        long waitSeconds = Math.max(notBeforeSeconds, estimateSeconds(pagesAhead));
+        return new QueueTicket(jobId, ahead + 1, pageEstimate, Instant.now().plusSeconds(waitSeconds));
+    }
+
+    /** 指定ページ数を処理し終えるまでの秒数の概算（直近の1ページあたり秒数 ÷ ワーカー数） */
+    public long estimateSeconds(long pages) {
+        Double recent = ingestJobMapper.recentSecondsPerPage(50);
+        double secondsPerPage = (recent == null || recent <= 0) ? defaultSecondsPerPage : recent;
+        return Math.round(pages * secondsPerPage / Math.max(1, workers));
+    }
+
+    /**
+     * 次のジョブを確保して RUNNING にする。
+     *
+     * @return 処理対象が無ければ null
+     */
+    @Transactional
+    public IngestJob claim() {
+        Long id = ingestJobMapper.lockNext(staleSeconds, maxAttempts, perUserLimit, agingSeconds);
+        if (id == null) return null;
+        ingestJobMapper.markRunning(id, owner);
+        IngestJob job = ingestJobMapper.findById(id);
+        if (job.getStage() != null || job.getAttempts() > 1) {
+            log.info("[job] resuming jobId={} noteId={} after stage={} attempt={}",
+                    id, job.getNoteId(), job.getStage(), job.getAttempts());
+        }
+        return job;
+    }
+
+    /** このノードが処理中のジョブのハートビートを更新する */
+    public void heartbeat() {
+        ingestJobMapper.heartbeat(owner);
+    }
+
+    /**
+     * 試行回数を使い切ったジョブ（処理中のクラッシュを繰り返した）を FAILED にする。
+     *
+     * @return FAILED にしたジョブ
+     */
+    public List<IngestJob> failExhausted() {
+        List<IngestJob> failed = new ArrayList<>();
+        for (IngestJob job : ingestJobMapper.findExhausted(staleSeconds, maxAttempts)) {
+            try {
+                // 最後に担当していた（停止した）ノードの代わりに終了させる
+                finish(job, job.getLockedBy(), Status.FAILED, "retry limit exceeded");
+            } catch (LeaseLostException e) {
+                continue; // 他のノードが先に片付けた
+            }
+            log.warn("[job] gave up jobId={} noteId={} attempts={}", job.getId(), job.getNoteId(), job.getAttempts());
+            failed.add(job);
+        }
+        return failed;
+    }
+
+    // =========================
+    // チェックポイント
+    //   いずれもこのノードが担当している場合だけ書き込む。担当を失っていれば LeaseLostException
+    // =========================
+
+    /** 現在完了している段階（未着手は null） */
+    public Stage stageOf(IngestJob job) {
+        return job.getStage() == null ? null : Stage.valueOf(job.getStage());
+    }
+
+    public void attachNote(Long jobId, Long noteId) {
+        fenced(jobId, ingestJobMapper.attachNote(jobId, owner, noteId));
+    }
+
+    public void checkpoint(Long jobId, Stage stage) {
+        fenced(jobId, ingestJobMapper.checkpoint(jobId, owner, stage.name(), null, null, null));
+    }
+
+    /** 描画・アップロード済みのページ一覧を保存する */
+    public void checkpointRendered(Long jobId, List<PageData> pages) throws JsonProcessingException {
+        List<JobPage> saved = pages.stream()
+                .map(p -> new JobPage(p.getPageNumber(), p.getPublicUrl(), p.getGsUri(), p.getEmbeddedText(), p.getRenderDpi()))
+                .toList();
+        fenced(jobId, ingestJobMapper.checkpoint(jobId, owner, Stage.RENDERED.name(), objectMapper.writeValueAsString(saved), null, null));
+    }
+
+    /**
+     * AI に渡すテキスト（OCR 結果または埋め込みテキスト）を保存する。
+     *
+     * @param ocrPages OCR したページ数（0 = OCR を省略した。再開時に同じ進捗イベントを送るため）
+     */
+    public void checkpointOcr(Long jobId, String aiInput, int ocrPages) {
+        fenced(jobId, ingestJobMapper.checkpointOcr(jobId, owner, aiInput == null ? "" : aiInput, ocrPages));
+    }
+
+    /** AI 結果を保存する（rawJson は本体と重複するため除く） */
+    public void checkpointAi(Long jobId, AiIngestRequestDto ai) throws JsonProcessingException {
+        ObjectNode json = objectMapper.valueToTree(ai);
+        json.remove("rawJson");
+        fenced(jobId, ingestJobMapper.checkpoint(jobId, owner, Stage.AI_DONE.name(), null, null, objectMapper.writeValueAsString(json)));
+    }
+
+    public List<PageData> pagesOf(IngestJob job) throws IOException {
+        List<JobPage> saved = objectMapper.readValue(job.getPagesJson(), new TypeReference<List<JobPage>>() {});
+        return saved.stream()
+                .map(p -> new PageData(p.pageNumber(), p.publicUrl(), p.gsUri(), p.embeddedText(), p.renderDpi()))
+                .toList();
+    }
+
+    public AiIngestRequestDto aiResultOf(IngestJob job) throws IOException {
+        AiIngestRequestDto ai = objectMapper.readValue(job.getAiResultJson(), AiIngestRequestDto.class);
+        ai.setNoteId(job.getNoteId());
+        return ai;
+    }
+
+    // =========================
+    // 終了
+    // =========================
+
+    public void complete(IngestJob job) {
+        finish(job, owner, Status.DONE, null);
+    }
+
+    public void fail(IngestJob job, String error) {
+        finish(job, owner, Status.FAILED, error);
+    }
+
+    /**
+     * 処理中に失敗したジョブを、試行回数が残っていれば待ち行列へ戻す（spool と途中成果物は残す）。
+     * 待ち時間は {@code retry-backoff-seconds} × 2^(試行回数 - 1)（上限 {@code retry-backoff-max-seconds}）。
+     * 使い切っていれば FAILED にする。
+     *
+     * @return 戻したときは再試行の待ち順と開始予定、FAILED にしたときは null
+     */
+    public QueueTicket retryOrFail(IngestJob job, String error) {
+        int attempts = (job.getAttempts() == null) ? maxAttempts : job.getAttempts();
+        if (attempts >= maxAttempts) {
+            fail(job, error);
+            return null;
+        }
+        long delay = Math.min(Math.max(0, retryBackoffMaxSeconds),
+                Math.max(0, retryBackoffSeconds) << Math.min(20, Math.max(0, attempts - 1)));
+        String msg = (error == null) ? null : error.substring(0, Math.min(error.length(), 1000));
+        fenced(job.getId(), ingestJobMapper.requeue(job.getId(), owner, delay, msg));
+        log.warn("[job] retry later jobId={} stage={} attempt={}/{} in {}s",
+                job.getId(), job.getStage(), attempts, maxAttempts, delay);
+        return ticketOf(job.getId(), job.getPageEstimate() == null ? 1 : job.getPageEstimate(), delay);
+    }
+
+    /** lockOwner が担当のままなら終了させて spool を消す（担当を失っていれば spool は回収したノードのために残す） */
+    private void finish(IngestJob job, String lockOwner, Status status, String error) {
+        String msg = (error == null) ? null : error.substring(0, Math.min(error.length(), 1000));
+        fenced(job.getId(), ingestJobMapper.finish(job.getId(), lockOwner, status.name(), msg));
+        deleteSpool(job);
+    }
+
+    public IngestJob find(Long jobId) {
+        return ingestJobMapper.findById(jobId);
+    }
+
+    public long countByStatus(Status status) {
+        return ingestJobMapper.countByStatus(status.name());
+    }
+
+    /** 待ちジョブの推定ページ数の合計 */
+    public long queuedPages() {
+        return ingestJobMapper.sumQueuedPages();
+    }
+
+    /** ユーザーの待ち・実行中ジョブ数 */
+    public long activeJobsOf(Long userId) {
+        return ingestJobMapper.countActiveByUser(userId);
+    }
+
+    private static void fenced(Long jobId, int updated) {
+        if (updated == 0) throw new LeaseLostException(jobId);
+    }
+
+    private void deleteSpool(IngestJob job) {
+        try {
+            Files.deleteIfExists(Path.of(job.getSpoolPath()));
+        } catch (IOException e) {
+            log.warn("[job] spool delete failed jobId={} path={} : {}", job.getId(), job.getSpoolPath(), e.toString());
+        }
+    }
+}
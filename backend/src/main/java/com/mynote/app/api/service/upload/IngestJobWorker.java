@@ -0,0 +1,153 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mynote.app.api.service.upload.PdfSpoolService.SpooledPdf;
+import com.mynote.app.api.service.upload.ProcessStatusEvent.Mode;
+import com.mynote.app.domain.entity.IngestJob;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 取り込みジョブのワーカー。
+ *
+ * <p>{@code upload.jobs.poll-interval-ms} ごと（および登録直後）にキューを確認し、
+ * 空きスロット（{@code upload.jobs.workers}）の分だけジョブを確保して仮想スレッドで処理する。
+ * どのジョブを取り出すか（ユーザー間の公平性）は {@link IngestJobService#claim()} が決める。
+ * 停止時（再デプロイなど）に処理中だったジョブは FAILED にせず RUNNING のまま残し、
+ * ハートビートが途絶えた後にいずれかのノードが続きから再開する。
+ * 処理中の例外は、試行回数が残っていれば待ち時間を置いて待ち行列へ戻し（{@link IngestJobService#retryOrFail}）、
+ * 使い切ったときだけ FAILED にしてノートを「失敗」と分かる状態にする。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IngestJobWorker {
+
+    private final IngestJobService ingestJobService;
+    private final UploadFacadeService uploadFacadeService;
+    private final IngestFingerprintService ingestFingerprintService;
+    private final MeterRegistry meterRegistry;
+
+    /** このノードで同時に処理するジョブ数 */
+    @Value("${upload.jobs.workers:4}")
+    private int workers;
+
+    private ExecutorService executor;
+    private Semaphore slots;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ingest-job-", 0).factory());
+        slots = new Semaphore(Math.max(1, workers));
+
+        Gauge.builder("upload.jobs.running", slots, s -> Math.max(1, workers) - s.availablePermits())
+                .description("このノードで処理中の取り込みジョブ数").register(meterRegistry);
+        Gauge.builder("upload.jobs.queued", ingestJobService, s -> s.countByStatus(IngestJobService.Status.QUEUED))
+                .description("処理待ちの取り込みジョブ数（全ノード）").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopping = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * ジョブを登録し、待ち順と開始予定を QUEUED イベントで通知してから、すぐに処理を試みる。
+     * PDF の内容ハッシュはここで1回だけ計算してジョブに保存する（再開のたびに読み直さない）。
+     *
+     * @param pageEstimate 推定ページ数（取り出し順のコスト）
+     * @return ジョブID
+     */
+    public Long enqueue(Long userId, Long categoryId, String title, SpooledPdf pdf,
+            String tocPrompt, String pagePrompt, Mode mode, int pageEstimate) {
+        IngestJobService.QueueTicket ticket =
+                ingestJobService.enqueue(userId, categoryId, title, pdf, ingestFingerprintService.pdfSha256(pdf.file()),
+                        tocPrompt, pagePrompt, mode, pageEstimate);
+        uploadFacadeService.notifyQueued(userId, mode, ticket);
+        executor.execute(this::poll);
+        return ticket.jobId();
+    }
+
+    /** 空きスロットの分だけジョブを確保して処理を開始する */
+    @Scheduled(fixedDelayString = "${upload.jobs.poll-interval-ms:2000}")
+    public void poll() {
+        if (stopping) return;
+        try {
+            ingestJobService.failExhausted()
+                    .forEach(uploadFacadeService::markAbandoned);
+
+            while (!stopping && slots.tryAcquire()) {
+                IngestJob job;
+                try {
+                    job = ingestJobService.claim();
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+                if (job == null) {
+                    slots.release();
+                    return;
+                }
+                executor.execute(() -> run(job));
+            }
+        } catch (RuntimeException e) {
+            log.warn("[job] poll failed: {}", e.toString());
+        }
+    }
+
+    /** 処理中ジョブのハートビート */
+    @Scheduled(fixedDelayString = "${upload.jobs.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (stopping) return;
+        try {
+            ingestJobService.heartbeat();
+        } catch (RuntimeException e) {
+            log.warn("[job] heartbeat failed: {}", e.toString());
+        }
+    }
+
+    private void run(IngestJob job) {
+        try {
+            uploadFacadeService.processJob(job);
+            ingestJobService.complete(job);
+        } catch (IngestJobService.LeaseLostException e) {
+            // 停止中とみなされて別ノードが回収した。結果はそちらが書くため、ここでは何も残さない
+            log.warn("[job] lease lost jobId={} : {}", job.getId(), e.getMessage());
+        } catch (Exception e) {
+            if (stopping) {
+                // 停止による中断。RUNNING のまま残し、再起動後に続きから再開する
+                log.info("[job] interrupted by shutdown jobId={} stage={}", job.getId(), job.getStage());
+                return;
+            }
+            log.error("Ingest job failed jobId={} userId={} attempt={} : {}",
+                    job.getId(), job.getUserId(), job.getAttempts(), e.getMessage(), e);
+            try {
+                IngestJobService.QueueTicket retry = ingestJobService.retryOrFail(job, e.getMessage());
+                if (retry != null) {
+                    uploadFacadeService.notifyQueued(job.getUserId(), Mode.valueOf(job.getMode()), retry);
+                } else {
+                    uploadFacadeService.markAbandoned(job);
+                    uploadFacadeService.notifyFailed(job, e);
+                }
+            } catch (IngestJobService.LeaseLostException lost) {
+                log.warn("[job] lease lost jobId={} : {}", job.getId(), lost.getMessage());
+            }
+        } finally {
+            slots.release();
+        }
+    }
+}
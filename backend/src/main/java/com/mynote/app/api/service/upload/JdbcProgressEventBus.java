@@ -0,0 +1,151 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mynote.app.domain.entity.IngestJobEvent;
+import com.mynote.app.domain.mapper.IngestJobEventMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MySQL のテーブル（ingest_job_events）経由で配る {@link ProgressEventBus}。
+ *
+ * <p>発行はテーブルへの INSERT のみ。各ノードは {@code upload.events.poll-interval-ms} ごとに
+ * 前回読んだ位置より後の行を読み、購読者へ渡す（発行したノード自身もポーリングで受け取る）。
+ * イベントID は自動採番の id をそのまま使う。
+ *
+ * <p>自動採番の id はコミット順に並ぶとは限らない（小さい id の行が後からコミットされうる）ため、
+ * 読み取り位置は登録から {@code upload.events.settle-ms} 経った行までしか進めず、
+ * それより新しい行は読み直したうえで配送済みの id を除いて渡す。
+ * 古い行は {@code upload.events.retention-seconds} を過ぎたら削除する。
+ */
+@Component
+@ConditionalOnProperty(name = "upload.events.bus", havingValue = "jdbc")
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcProgressEventBus implements ProgressEventBus {
+
+    private final IngestJobEventMapper ingestJobEventMapper;
+    private final ObjectMapper objectMapper;
+
+    /** 登録からこのミリ秒を過ぎた行は、手前に新しい行が割り込まないとみなす */
+    @Value("${upload.events.settle-ms:2000}")
+    private long settleMs;
+
+    /** 1回のポーリングで読む最大件数 */
+    @Value("${upload.events.batch-size:500}")
+    private int batchSize;
+
+    /** イベントを残しておく秒数（再接続時の再送に使える範囲） */
+    @Value("${upload.events.retention-seconds:600}")
+    private long retentionSeconds;
+
+    private final List<Consumer<Envelope>> listeners = new CopyOnWriteArrayList<>();
+
+    /** ここまでの id は確定済み（読み直さない） */
+    private volatile long cursor;
+    /** cursor より後で配送済みの id */
+    private final NavigableSet<Long> delivered = new ConcurrentSkipListSet<>();
+
+    @PostConstruct
+    void init() {
+        // 起動前のイベントは配らない（再接続時は history で補う）
+        cursor = ingestJobEventMapper.maxId();
+    }
+
+    @Override
+    public void publish(Long jobId, Long userId, ProcessStatusEvent event) {
+        IngestJobEvent row = new IngestJobEvent();
+        row.setJobId(jobId);
+        row.setUserId(userId);
+        try {
+            row.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("progress event serialize failed", e);
+        }
+        ingestJobEventMapper.insert(row);
+    }
+
+    @Override
+    public void subscribe(Consumer<Envelope> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public List<Envelope> history(Long jobId, long afterId) {
+        List<Envelope> out = new ArrayList<>();
+        for (IngestJobEvent row : ingestJobEventMapper.findByJobAfter(jobId, afterId)) {
+            Envelope e = toEnvelope(row);
+            if (e != null) out.add(e);
+        }
+        return out;
+    }
+
+    /** 新しい行を読み、未配送のものを購読者へ渡す */
+    @Scheduled(fixedDelayString = "${upload.events.poll-interval-ms:250}")
+    public synchronized void poll() {
+        try {
+            List<IngestJobEvent> rows = ingestJobEventMapper.findAfter(cursor, settleMs, Math.max(1, batchSize));
+            boolean settledPrefix = true;
+            long nextCursor = cursor;
+            for (IngestJobEvent row : rows) {
+                if (delivered.add(row.getId())) {
+                    Envelope e = toEnvelope(row);
+                    if (e != null) deliver(e);
+                }
+                // 先頭から途切れずに確定した行の分だけ読み取り位置を進める
+                settledPrefix &= row.isSettled();
+                if (settledPrefix) nextCursor = row.getId();
+            }
+            cursor = nextCursor;
+            delivered.headSet(nextCursor, true).clear();
+        } catch (RuntimeException e) {
+            log.warn("[events] poll failed: {}", e.toString());
+        }
+    }
+
+    /** 保持期間を過ぎたイベントを削除する */
+    @Scheduled(fixedDelayString = "${upload.events.purge-interval-ms:60000}")
+    public void purge() {
+        try {
+            int n = ingestJobEventMapper.deleteOlderThan(retentionSeconds);
+            if (n > 0) log.debug("[events] purged {} rows", n);
+        } catch (RuntimeException e) {
+            log.warn("[events] purge failed: {}", e.toString());
+        }
+    }
+
+    private void deliver(Envelope e) {
+        for (Consumer<Envelope> l : listeners) {
+            try {
+                l.accept(e);
+            } catch (RuntimeException ex) {
+                log.warn("[events] listener failed jobId={} id={} : {}", e.jobId(), e.id(), ex.toString());
+            }
+        }
+    }
+
+    private Envelope toEnvelope(IngestJobEvent row) {
+        try {
+            ProcessStatusEvent event = objectMapper.readValue(row.getPayload(), ProcessStatusEvent.class);
+            return new Envelope(row.getId(), row.getJobId(), row.getUserId(), event);
+        } catch (JsonProcessingException e) {
+            log.warn("[events] broken payload id={} : {}", row.getId(), e.getOriginalMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.mynote.app.api.service.upload.ProcessStatusEvent.Code;
+import com.mynote.app.api.service.upload.ProcessStatusEvent.Mode;
+import com.mynote.app.api.service.upload.ProgressEventBus.Envelope;
+import com.mynote.app.api.service.upload.SseHub.Connection;
+import com.mynote.app.domain.entity.IngestJob;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 取り込みジョブごとの進捗ストリーム（SSE）。
+ *
+ * <p>ストリームはジョブID単位で持つため、同じユーザーが複数の PDF を同時にアップロードしても互いに上書きしない。
+ * イベントは {@link ProgressEventBus} から受け取る（処理しているノードがどこでも、このノードの接続へ届く）。
+ * バスが振ったジョブ内で単調増加する ID を使い、直近 {@code upload.sse.replay-buffer} 件をリングバッファに残す。
+ * 再接続時に {@code Last-Event-ID} を受け取れば、それより後のイベントを再送してから購読を続ける
+ * （ジョブ登録から接続までの間に出たイベントも同じ仕組みで取りこぼさない）。
+ * 受け取った ID がこのノードのどのイベントより新しい場合（バスの履歴が消えた後など）は、古い ID とみなして先頭から再送する。
+ * 終了したジョブのバッファは {@code upload.sse.retention-seconds} の間だけ残す。
+ * 接続への書き込みは {@link SseHub} の送信キュー経由で行うため、発行側（ワーカー）は遅いクライアントを待たない。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobEventStreams {
+
+    private final IngestJobService ingestJobService;
+    private final SseHub sseHub;
+    private final ProgressEventBus progressEventBus;
+
+    /** ジョブごとに保持する直近イベント数 */
+    @Value("${upload.sse.replay-buffer:64}")
+    private int replayBuffer;
+
+    /** 1接続あたりのタイムアウト（ミリ秒）。切れてもクライアントは Last-Event-ID で再接続できる */
+    @Value("${upload.sse.timeout-ms:600000}")
+    private long timeoutMs;
+
+    /** 終了したジョブのイベントを残しておく秒数 */
+    @Value("${upload.sse.retention-seconds:300}")
+    private long retentionSeconds;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    /** 送信済みイベント（ID 付き） */
+    private record Sent(long id, ProcessStatusEvent event) {}
+
+    /** 1ジョブ分のストリーム。バッファと購読者の操作は Channel 単位で同期する */
+    private static final class Channel {
+        final Long userId;
+        final ArrayDeque<Sent> buffer = new ArrayDeque<>();
+        final List<Connection> connections = new CopyOnWriteArrayList<>();
+        long lastId;
+        boolean finished;
+        long touchedAt = System.currentTimeMillis();
+
+        Channel(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        progressEventBus.subscribe(this::deliver);
+    }
+
+    /**
+     * バスから届いたイベントを、このノードで接続中の全クライアントへ送り、再送用にバッファへ残す。
+     * 終端イベント（finished / ERROR）で接続を閉じる。配送済みの ID は無視する。
+     */
+    void deliver(Envelope envelope) {
+        Channel ch = channels.computeIfAbsent(envelope.jobId(), id -> new Channel(envelope.userId()));
+        synchronized (ch) {
+            if (ch.buffer.stream().anyMatch(s -> s.id() == envelope.id())) return;
+            ProcessStatusEvent event = envelope.event();
+            Sent sent = new Sent(envelope.id(), event);
+            ch.lastId = Math.max(ch.lastId, envelope.id());
+            ch.buffer.addLast(sent);
+            while (ch.buffer.size() > Math.max(1, replayBuffer)) {
+                ch.buffer.removeFirst();
+            }
+            ch.touchedAt = System.currentTimeMillis();
+            boolean terminal = isTerminal(event);
+            if (terminal) ch.finished = true;
+
+            for (Connection c : ch.connections) {
+                send(c, sent);
+                if (terminal) c.complete();
+            }
+            if (terminal) ch.connections.clear();
+        }
+    }
+
+    /**
+     * ジョブのストリームを購読する。
+     *
+     * @param lastEventId 受信済みの最後のイベントID（初回接続は null = バッファの先頭から。
+     *                    このストリームの最新より大きければ、以前の採番の ID とみなして先頭から）
+     * @return 購読した SSE。ジョブが存在しない・他ユーザーのジョブの場合は null
+     */
+    public SseEmitter subscribe(Long jobId, Long userId, Long lastEventId) {
+        Channel ch = channels.get(jobId);
+        if (ch == null) {
+            // 別ノードで始まったジョブ・再起動後・バッファ破棄後の再接続。
+            // バスの履歴から再送し、履歴も無く終了済みなら結果だけ返せるよう DB から復元する
+            IngestJob job = ingestJobService.find(jobId);
+            if (job == null || !job.getUserId().equals(userId)) return null;
+            Channel created = new Channel(job.getUserId());
+            Channel existing = channels.putIfAbsent(jobId, created);
+            ch = (existing != null) ? existing : created;
+            if (existing == null) {
+                progressEventBus.history(jobId, 0).forEach(this::deliver);
+                replayFinished(ch, job, lastEventId);
+            }
+        }
+        if (!ch.userId.equals(userId)) return null;
+
+        Connection c = sseHub.open(timeoutMs);
+        synchronized (ch) {
+            ch.touchedAt = System.currentTimeMillis();
+            c.send(null, "connect", Map.of("message", "Connection established", "jobId", jobId));
+            long after = (lastEventId == null || lastEventId > ch.lastId) ? 0 : lastEventId;
+            for (Sent sent : ch.buffer) {
+                if (sent.id() > after) send(c, sent);
+            }
+            if (ch.finished) {
+                c.complete();
+                return c.emitter();
+            }
+            ch.connections.add(c);
+        }
+
+        Channel channel = ch;
+        c.onClose(() -> channel.connections.remove(c));
+        return c.emitter();
+    }
+
+    /** 終了したジョブ・放置されたストリームのバッファを破棄する */
+    @Scheduled(fixedDelayString = "${upload.sse.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        channels.entrySet().removeIf(e -> {
+            Channel ch = e.getValue();
+            synchronized (ch) {
+                long idle = now - ch.touchedAt;
+                return ch.finished
+                        ? idle > retentionSeconds * 1000L
+                        : ch.connections.isEmpty() && idle > timeoutMs + retentionSeconds * 1000L;
+            }
+        });
+    }
+
+    /**
+     * DB 上で終了済みなのに終端イベントが無ければ、結果のイベントをこのノードのバッファにだけ入れる。
+     * ID はクライアントが持っている ID（lastEventId）より大きくし、再接続したクライアントに必ず届くようにする。
+     */
+    private void replayFinished(Channel ch, IngestJob job, Long lastEventId) {
+        Mode mode = Mode.valueOf(job.getMode());
+        ProcessStatusEvent event;
+        if (IngestJobService.Status.DONE.name().equals(job.getStatus())) {
+            event = ProcessStatusEvent.complete(job.getNoteId(), mode);
+        } else if (IngestJobService.Status.FAILED.name().equals(job.getStatus())) {
+            String msg = (job.getLastError() == null) ? "処理中にエラーが発生しました"
+                    : "処理中にエラーが発生しました: " + job.getLastError();
+            event = ProcessStatusEvent.error(job.getNoteId(), msg, mode);
+        } else {
+            return;
+        }
+        synchronized (ch) {
+            if (ch.finished) return;
+            long held = (lastEventId == null) ? 0 : lastEventId;
+            deliver(new Envelope(Math.max(ch.lastId, held) + 1, job.getId(), job.getUserId(), event));
+        }
+    }
+
+    private static boolean isTerminal(ProcessStatusEvent event) {
+        return event.finished() || event.code() == Code.ERROR;
+    }
+
+    private static void send(Connection c, Sent sent) {
+        c.send(String.valueOf(sent.id()), sent.event().code().name(), sent.event());
+    }
+}
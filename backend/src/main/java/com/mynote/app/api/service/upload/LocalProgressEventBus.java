@@ -0,0 +1,34 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 同一 JVM 内だけで配る {@link ProgressEventBus}（単一ノード構成向け）。
+ * イベントID は JVM 内の通し番号（ジョブ内でも単調増加）。
+ * 再起動の前にクライアントが受け取った ID より小さい値を振り直さないよう、起動時刻（ミリ秒）× 1000 から始める
+ * （1ミリ秒あたり 1000 件を超えて発行し続けない限り、再起動後の ID は再起動前の ID より大きい）。
+ */
+@Component
+@ConditionalOnProperty(name = "upload.events.bus", havingValue = "local", matchIfMissing = true)
+public class LocalProgressEventBus implements ProgressEventBus {
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final List<Consumer<Envelope>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Long jobId, Long userId, ProcessStatusEvent event) {
+        Envelope envelope = new Envelope(sequence.incrementAndGet(), jobId, userId, event);
+        listeners.forEach(l -> l.accept(envelope));
+    }
+
+    @Override
+    public void subscribe(Consumer<Envelope> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.mynote.app.api.service.upload.PageImageEncoder.Encoding;
+import com.mynote.app.api.service.upload.PageImageEncoder.PageImageClass;
+
+/**
+ * 1ノート分のページ画像エンコード結果の集計（形式別ページ数・サイズ）。
+ * 並列レンダリングのワーカーから同時に記録されるため、記録は synchronized で行う。
+ */
+final class PageEncodingReport {
+
+    private final Map<PageImageClass, Integer> pagesByClass = new EnumMap<>(PageImageClass.class);
+    private final Map<String, Integer> pagesByFormat = new java.util.TreeMap<>();
+    private int pages;
+    private long rawBytes;
+    private long encodedBytes;
+    private long baselineBytes;
+    private int baselinePages;
+
+    /**
+     * @param raw       非圧縮 RGB 換算のサイズ（幅×高さ×3）
+     * @param encoded   実際にアップロードするサイズ
+     * @param baseline  フルカラー PNG で書き出した場合のサイズ（未計測なら負数）
+     */
+    synchronized void record(Encoding enc, long raw, long encoded, long baseline) {
+        pages++;
+        pagesByClass.merge(enc.imageClass(), 1, Integer::sum);
+        String format = enc.ext() + (enc.quality() == null ? "" : "@q" + Math.round(enc.quality() * 100));
+        pagesByFormat.merge(format, 1, Integer::sum);
+        rawBytes += raw;
+        encodedBytes += encoded;
+        if (baseline >= 0) {
+            baselineBytes += baseline;
+            baselinePages++;
+        }
+    }
+
+    synchronized String summary() {
+        StringBuilder sb = new StringBuilder()
+                .append("pages=").append(pages)
+                .append(" classes=").append(pagesByClass)
+                .append(" formats=").append(pagesByFormat)
+                .append(" raw=").append(mb(rawBytes)).append("MB")
+                .append(" encoded=").append(mb(encodedBytes)).append("MB")
+                .append(" (").append(percent(encodedBytes, rawBytes)).append("% of raw)");
+        if (baselinePages > 0) {
+            sb.append(" baselinePng=").append(mb(baselineBytes)).append("MB")
+              .append(" saved=").append(100 - percent(encodedBytes, baselineBytes)).append('%');
+        }
+        return sb.toString();
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.2f", bytes / 1024.0 / 1024.0);
+    }
+
+    private static long percent(long part, long whole) {
+        return whole <= 0 ? 0 : Math.round(part * 100.0 / whole);
+    }
+}
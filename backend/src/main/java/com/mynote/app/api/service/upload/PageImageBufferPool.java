@@ -0,0 +1,120 @@
+package com.mynote.app.api.service.upload;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ページ画像エンコード用の再利用可能なバイトバッファのプール。
+ *
+ * <p>貸し出し中バッファの合計容量が {@code upload.ingest.memory-ceiling-mb} 以上のときは
+ * {@link #acquire()} が null を返し、呼び出し側は temp ファイルへ退避（spill）する。
+ * 返却されたバッファは {@code upload.ingest.buffer-pool.max-idle} 個まで保持して再利用する。
+ */
+@Component
+public class PageImageBufferPool {
+
+    /** 新規バッファの初期容量（300dpi の文字主体ページが概ね収まるサイズ） */
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+
+    private final ConcurrentLinkedDeque<PooledBuffer> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicLong inUseBytes = new AtomicLong();
+
+    @Value("${upload.ingest.memory-ceiling-mb:256}")
+    private long memoryCeilingMb;
+
+    @Value("${upload.ingest.buffer-pool.max-idle:16}")
+    private int maxIdle;
+
+    /** これより大きく育ったバッファはプールへ戻さず破棄する（MB） */
+    @Value("${upload.ingest.buffer-pool.max-retained-mb:16}")
+    private long maxRetainedMb;
+
+    /**
+     * バッファを借りる。
+     *
+     * @return 空のバッファ。メモリ上限に達している場合は null（呼び出し側で spill する）
+     */
+    public PooledBuffer acquire() {
+        if (inUseBytes.get() >= memoryCeilingMb * 1024L * 1024L) {
+            return null;
+        }
+        PooledBuffer buf = idle.pollFirst();
+        if (buf != null) {
+            idleCount.decrementAndGet();
+        } else {
+            buf = new PooledBuffer(this);
+        }
+        buf.accounted = buf.capacity();
+        buf.inUse = true;
+        inUseBytes.addAndGet(buf.accounted);
+        return buf;
+    }
+
+    /** エンコード後に伸長したバッファ容量を使用量へ反映する */
+    void settle(PooledBuffer buf) {
+        long delta = buf.capacity() - buf.accounted;
+        if (delta != 0) {
+            buf.accounted += delta;
+            inUseBytes.addAndGet(delta);
+        }
+    }
+
+    void release(PooledBuffer buf) {
+        inUseBytes.addAndGet(-buf.accounted);
+        buf.accounted = 0;
+        buf.reset();
+        if (buf.capacity() > maxRetainedMb * 1024L * 1024L) {
+            return; // 大きく育ったバッファは GC に任せる
+        }
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offerFirst(buf);
+    }
+
+    /** 現在貸し出し中のバッファ容量の合計（byte） */
+    public long inUseBytes() {
+        return inUseBytes.get();
+    }
+
+    /**
+     * 内部配列をコピーせずに {@link ByteBuffer} として参照できる ByteArrayOutputStream。
+     * 使い終わったら {@link #close()} でプールへ返却する。
+     */
+    public static final class PooledBuffer extends ByteArrayOutputStream {
+
+        private final PageImageBufferPool pool;
+        private long accounted;
+        private boolean inUse;
+
+        private PooledBuffer(PageImageBufferPool pool) {
+            super(INITIAL_CAPACITY);
+            this.pool = pool;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        /** 書き込まれた範囲を ByteBuffer として返す（コピーなし。返却後は参照しないこと） */
+        public synchronized ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        /** プールへ返却する（二重返却は無視） */
+        @Override
+        public synchronized void close() {
+            if (!inUse) return;
+            inUse = false;
+            pool.release(this);
+        }
+    }
+}
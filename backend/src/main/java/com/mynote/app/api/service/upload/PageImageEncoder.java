@@ -0,0 +1,248 @@
+package com.mynote.app.api.service.upload;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * レンダリング済みページ画像の内容を判定し、最小で済む形式・品質でエンコードする。
+ *
+ * <ul>
+ *   <li>BILEVEL      : ほぼ白黒のみ（文字だけのスライドなど） → 1bit PNG</li>
+ *   <li>GRAYSCALE    : 無彩色のみ（アンチエイリアス含む）      → 8bit グレースケール PNG</li>
+ *   <li>FEW_COLORS   : 256色以下                                → パレット PNG（可逆）</li>
+ *   <li>PHOTOGRAPHIC : 上記以外（写真・グラデーション）        → JPEG（WebP ライタがあり有効なら WebP）</li>
+ * </ul>
+ */
+@Component
+public class PageImageEncoder {
+
+    /** 無彩色とみなす RGB 各チャネル差の許容値 */
+    private static final int GRAY_TOLERANCE = 6;
+    /** 白黒の「ほぼ黒」「ほぼ白」とみなす輝度しきい値 */
+    private static final int DARK_LEVEL = 48;
+    private static final int LIGHT_LEVEL = 208;
+    /** 中間調ピクセルがこの割合以下なら BILEVEL とみなす */
+    private static final double BILEVEL_MAX_MIDTONE_RATIO = 0.01;
+    private static final int PALETTE_MAX_COLORS = 256;
+
+    public enum PageImageClass { BILEVEL, GRAYSCALE, FEW_COLORS, PHOTOGRAPHIC }
+
+    /**
+     * エンコード結果のメタ情報。
+     *
+     * @param quality 非可逆形式のときの品質（0.0〜1.0）。可逆形式では null
+     */
+    public record Encoding(PageImageClass imageClass, String ext, String contentType, Float quality) {}
+
+    @Value("${upload.ingest.image.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${upload.ingest.image.webp-enabled:false}")
+    private boolean webpEnabled;
+
+    @Value("${upload.ingest.image.webp-quality:0.8}")
+    private float webpQuality;
+
+    /** 内容を判定して最適な形式で out に書き出す */
+    public Encoding encode(BufferedImage image, OutputStream out) throws IOException {
+        Analysis a = analyze(image);
+        switch (a.imageClass) {
+            case BILEVEL -> {
+                write(convert(image, BufferedImage.TYPE_BYTE_BINARY), "png", null, out);
+                return new Encoding(PageImageClass.BILEVEL, "png", "image/png", null);
+            }
+            case GRAYSCALE -> {
+                write(convert(image, BufferedImage.TYPE_BYTE_GRAY), "png", null, out);
+                return new Encoding(PageImageClass.GRAYSCALE, "png", "image/png", null);
+            }
+            case FEW_COLORS -> {
+                write(toPalette(image, a.palette, a.paletteSize), "png", null, out);
+                return new Encoding(PageImageClass.FEW_COLORS, "png", "image/png", null);
+            }
+            default -> {
+                if (webpEnabled && ImageIO.getImageWritersByFormatName("webp").hasNext()) {
+                    write(image, "webp", webpQuality, out);
+                    return new Encoding(PageImageClass.PHOTOGRAPHIC, "webp", "image/webp", webpQuality);
+                }
+                write(convert(image, BufferedImage.TYPE_INT_RGB), "jpeg", jpegQuality, out);
+                return new Encoding(PageImageClass.PHOTOGRAPHIC, "jpg", "image/jpeg", jpegQuality);
+            }
+        }
+    }
+
+    /** 従来どおりのフルカラー PNG で書き出す（比較用ベースライン） */
+    public void encodeBaselinePng(BufferedImage image, OutputStream out) throws IOException {
+        write(image, "png", null, out);
+    }
+
+    // ===== 判定 =====
+
+    private static final class Analysis {
+        PageImageClass imageClass;
+        int[] palette;
+        int paletteSize;
+    }
+
+    /** 全ピクセルを1行ずつ走査し、無彩色・白黒・色数を判定する */
+    private static Analysis analyze(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int[] row = new int[w];
+
+        boolean gray = true;
+        long midtones = 0;
+        int[] palette = new int[PALETTE_MAX_COLORS];
+        int paletteSize = 0;
+        // 出現色の簡易ハッシュ集合（rgb+1 を格納し、0 を空きとする）
+        int[] seen = new int[PALETTE_MAX_COLORS * 4];
+        boolean fewColors = true;
+        // 直前の色のキャッシュ（同色が連続することが多いので探索を省く）
+        int lastRgb = 0;
+        boolean hasLast = false;
+
+        for (int y = 0; y < h; y++) {
+            image.getRGB(0, y, w, 1, row, 0, w);
+            for (int x = 0; x < w; x++) {
+                int rgb = row[x] & 0xFFFFFF;
+                int r = (rgb >> 16) & 0xFF, g = (rgb >> 8) & 0xFF, b = rgb & 0xFF;
+
+                if (gray) {
+                    if (Math.abs(r - g) > GRAY_TOLERANCE || Math.abs(g - b) > GRAY_TOLERANCE
+                            || Math.abs(r - b) > GRAY_TOLERANCE) {
+                        gray = false;
+                    } else {
+                        int lum = (r * 299 + g * 587 + b * 114) / 1000;
+                        if (lum > DARK_LEVEL && lum < LIGHT_LEVEL) midtones++;
+                    }
+                }
+
+                if (fewColors && !(hasLast && rgb == lastRgb)) {
+                    if (addIfAbsent(seen, rgb)) {
+                        if (paletteSize == PALETTE_MAX_COLORS) {
+                            fewColors = false;
+                        } else {
+                            palette[paletteSize++] = rgb;
+                        }
+                    }
+                    lastRgb = rgb;
+                    hasLast = true;
+                }
+
+                if (!gray && !fewColors) break;
+            }
+            if (!gray && !fewColors) break;
+        }
+
+        Analysis a = new Analysis();
+        if (gray && midtones <= (long) w * h * BILEVEL_MAX_MIDTONE_RATIO) {
+            a.imageClass = PageImageClass.BILEVEL;
+        } else if (gray) {
+            a.imageClass = PageImageClass.GRAYSCALE;
+        } else if (fewColors) {
+            a.imageClass = PageImageClass.FEW_COLORS;
+            a.palette = palette;
+            a.paletteSize = paletteSize;
+        } else {
+            a.imageClass = PageImageClass.PHOTOGRAPHIC;
+        }
+        return a;
+    }
+
+    /** 線形探査のハッシュ集合に rgb を追加する。新規なら true */
+    private static boolean addIfAbsent(int[] table, int rgb) {
+        int key = rgb + 1;
+        int mask = table.length - 1;
+        int i = (key * 0x9E3779B1) >>> 22 & mask;
+        while (table[i] != 0) {
+            if (table[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        return true;
+    }
+
+    // ===== 変換 =====
+
+    private static BufferedImage convert(BufferedImage src, int type) {
+        if (src.getType() == type) return src;
+        BufferedImage dst = new BufferedImage(src.getWidth(), src.getHeight(), type);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.drawImage(src, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    /** 判定済みの色一覧（256色以下）で可逆なインデックスカラー画像を作る */
+    private static BufferedImage toPalette(BufferedImage src, int[] palette, int size) {
+        int[] sorted = Arrays.copyOf(palette, size);
+        Arrays.sort(sorted);
+        byte[] r = new byte[size], g = new byte[size], b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            r[i] = (byte) (sorted[i] >> 16);
+            g[i] = (byte) (sorted[i] >> 8);
+            b[i] = (byte) sorted[i];
+        }
+        int bits = size <= 2 ? 1 : size <= 4 ? 2 : size <= 16 ? 4 : 8;
+        IndexColorModel icm = new IndexColorModel(bits, size, r, g, b);
+        int w = src.getWidth(), h = src.getHeight();
+        BufferedImage dst = new BufferedImage(w, h,
+                bits == 8 ? BufferedImage.TYPE_BYTE_INDEXED : BufferedImage.TYPE_BYTE_BINARY, icm);
+        WritableRaster raster = dst.getRaster();
+        int[] row = new int[w];
+        int[] idx = new int[w];
+        for (int y = 0; y < h; y++) {
+            src.getRGB(0, y, w, 1, row, 0, w);
+            for (int x = 0; x < w; x++) {
+                idx[x] = Arrays.binarySearch(sorted, row[x] & 0xFFFFFF);
+            }
+            raster.setSamples(0, y, w, 1, 0, idx);
+        }
+        return dst;
+    }
+
+    // ===== 書き出し =====
+
+    /**
+     * ImageIO.write(…, OutputStream) はディスクキャッシュ（FileCacheImageOutputStream）を使うことがあるため、
+     * メモリキャッシュのストリームを明示して書き出す。quality が null なら既定の（可逆）設定。
+     */
+    private static void write(BufferedImage image, String format, Float quality, OutputStream out) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) throw new IOException("No ImageIO writer for format: " + format);
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (quality != null && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0) {
+                    param.setCompressionType(Arrays.asList(types).contains("Lossy") ? "Lossy" : types[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ページ画像アップロード用のアプリケーション共通 Executor（仮想スレッド）。
+ *
+ * <p>取り込み処理ごとにスレッドプールを作る代わりに、全ジョブでこの Executor を共有する。
+ * ストレージへの同時リクエスト数は全体のセマフォ（{@code upload.storage.max-concurrent-requests}）で抑え、
+ * 各ジョブは「全体の枠 ÷ 実行中ジョブ数」を上限（フェアシェア）として使う。
+ * これにより、ページ数の多い1件が枠を使い切って他のジョブを待たせることを防ぐ。
+ *
+ * <p>メトリクス:
+ * <ul>
+ *   <li>{@code upload.executor.in-flight}  : 実行中のストレージリクエスト数</li>
+ *   <li>{@code upload.executor.saturation} : 全体枠の使用率（0.0〜1.0）</li>
+ *   <li>{@code upload.executor.waiting}    : 枠待ちのタスク数</li>
+ *   <li>{@code upload.executor.jobs}       : 実行中のジョブ数</li>
+ *   <li>{@code upload.executor.queue.wait} : 投入から実行開始までの待ち時間</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PageUploadExecutor {
+
+    /** 枠の空き待ちで、ジョブ数の変化（フェアシェアの再計算）を拾うための再確認間隔 */
+    private static final long SHARE_RECHECK_MILLIS = 50;
+
+    private final MeterRegistry meterRegistry;
+
+    /** ストレージへの同時リクエスト数の上限（全ジョブ合計） */
+    @Value("${upload.storage.max-concurrent-requests:32}")
+    private int maxConcurrentRequests;
+
+    private ExecutorService executor;
+    private Semaphore global;
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private Timer queueWait;
+
+    @PostConstruct
+    void init() {
+        int permits = Math.max(1, maxConcurrentRequests);
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("page-upload-", 0).factory());
+        global = new Semaphore(permits, true);
+
+        Gauge.builder("upload.executor.in-flight", global, s -> permits - s.availablePermits())
+                .description("実行中のストレージリクエスト数").register(meterRegistry);
+        Gauge.builder("upload.executor.saturation", global, s -> (permits - s.availablePermits()) / (double) permits)
+                .description("ストレージリクエスト枠の使用率").register(meterRegistry);
+        Gauge.builder("upload.executor.waiting", waiting, AtomicInteger::get)
+                .description("枠待ちのアップロード数").register(meterRegistry);
+        Gauge.builder("upload.executor.jobs", activeJobs, AtomicInteger::get)
+                .description("実行中の取り込みジョブ数").register(meterRegistry);
+        queueWait = Timer.builder("upload.executor.queue.wait")
+                .description("アップロード投入から実行開始までの待ち時間")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        log.info("[upload-executor] virtual threads, maxConcurrentRequests={}", permits);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /** 取り込み1件分のジョブを開始する。終了時に必ず close すること */
+    public Job openJob(String name) {
+        activeJobs.incrementAndGet();
+        return new Job(name);
+    }
+
+    /** 現在の1ジョブあたりの同時実行上限 */
+    int fairShare() {
+        int jobs = Math.max(1, activeJobs.get());
+        int permits = Math.max(1, maxConcurrentRequests);
+        return Math.max(1, (permits + jobs - 1) / jobs);
+    }
+
+    /** 1取り込みジョブ。ジョブ内の同時実行数をフェアシェアで制限する */
+    public final class Job implements AutoCloseable {
+
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private int inFlight;
+        private boolean closed;
+
+        private Job(String name) {
+            this.name = name;
+        }
+
+        /** タスクを投入する。枠（ジョブのフェアシェア → 全体）が空くまで仮想スレッド上で待つ */
+        public <T> CompletableFuture<T> submit(Callable<T> task) {
+            long enqueued = System.nanoTime();
+            return CompletableFuture.supplyAsync(() -> {
+                waiting.incrementAndGet();
+                try {
+                    acquireShare();
+                    try {
+                        global.acquire();
+                    } catch (InterruptedException e) {
+                        releaseShare();
+                        throw e;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                } finally {
+                    waiting.decrementAndGet();
+                }
+
+                queueWait.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    global.release();
+                    releaseShare();
+                }
+            }, executor);
+        }
+
+        private void acquireShare() throws InterruptedException {
+            lock.lock();
+            try {
+                // ジョブ数が減ればフェアシェアが増えるため、一定間隔で再計算する
+                while (inFlight >= fairShare()) {
+                    released.await(SHARE_RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void releaseShare() {
+            lock.lock();
+            try {
+                inFlight--;
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (closed) return;
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            activeJobs.decrementAndGet();
+            log.debug("[upload-executor] job {} closed", name);
+        }
+    }
+}
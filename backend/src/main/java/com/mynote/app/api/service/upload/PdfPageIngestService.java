@@ -1,23 +1,32 @@
 package com.mynote.app.api.service.upload;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import com.mynote.app.api.service.upload.PageImageBufferPool.PooledBuffer;
 import com.mynote.app.api.service.upload.UploadFacadeService.PageData;
 
 import lombok.RequiredArgsConstructor;
@@ -29,86 +38,297 @@ import lombok.extern.slf4j.Slf4j;
 public class PdfPageIngestService {
 
     private final FirebaseStorageService firebaseStorageService;
+    private final PageImageBufferPool bufferPool;
+    private final PageImageEncoder pageImageEncoder;
+    private final RenderDpiPolicy renderDpiPolicy;
+    private final EmbeddedTextPolicy embeddedTextPolicy;
+    private final PdfSpoolService pdfSpoolService;
+    private final PageUploadExecutor pageUploadExecutor;
+
+    /** レンダリング済みでアップロード待ちのページ数の上限（メモリ/ディスク滞留量の上限） */
+    @Value("${upload.ingest.max-in-flight-pages:8}")
+    private int maxInFlightPages;
+
+    /** レンダリングの並列数（1 = 従来どおり逐次、0以下なら CPU数） */
+    @Value("${upload.ingest.render-parallelism:1}")
+    private int renderParallelism;
+
+    /** true のときフルカラー PNG のサイズも計測し、レポートに削減率を出す（CPU コスト増） */
+    @Value("${upload.ingest.image.report-baseline:false}")
+    private boolean reportBaseline;
+
+    /** 並列レンダリングで同時に確保してよいラスタメモリの上限（MB） */
+    @Value("${upload.ingest.render-memory-budget-mb:512}")
+    private long renderMemoryBudgetMb;
 
     /**
-     * PDF を各ページごとにレンダリング → Firebase アップロードする。
+     * spool 済みの PDF を各ページごとにレンダリング → Firebase アップロードする。
      *
-     * <p>レンダリング（PDFRenderer）はスレッドセーフでないため同期実行し、
-     * Firebase へのアップロード（I/O待ちが主コスト）は CompletableFuture で並列実行する。
+     * <p>PDF は {@link PdfSpoolService#load(File)} でメインメモリ使用量に上限を設けて開く
+     * （大きな PDF でもオブジェクトグラフ全体をヒープに載せない）。
+     * レンダリング（PDFRenderer）はスレッドセーフでないため、並列レンダリング時は
+     * ワーカーごとに同じ spool ファイルから別々の {@link PDDocument} を開き、
+     * 互いに重ならないページ集合（ページ番号をワーカー数で割った剰余ごと）を担当させる。
+     * 並列数は {@code upload.ingest.render-parallelism} を上限に、CPU数・ページ数・
+     * {@code upload.ingest.render-memory-budget-mb} から求めた値で頭打ちにする。
      *
-     * <p>スレッド数は「ページ数」と「CPU数×2」の小さい方を上限とする。
+     * <p>各ワーカーは1ページ描画し終えるごとに即座にアップロードを投入する（render → encode → upload のストリーム処理）。
+     * 各ページは内容（白黒／グレー／少色／写真）に応じて PNG・パレット PNG・JPEG などから最小の形式を選び、
+     * エンコード結果はプールから借りたメモリ上のバッファに書き込んでそのまま送信し、
+     * {@code upload.ingest.memory-ceiling-mb} を超える場合のみ temp ファイルへ退避する。
+     * アップロード待ちのページ数は {@code upload.ingest.max-in-flight-pages} で上限を設け、
+     * 上限に達した場合はアップロードが追いつくまでレンダリング側を待たせる。
+     * アップロードは全ジョブ共通の {@link PageUploadExecutor}（仮想スレッド）で実行し、
+     * 同時リクエスト数は全体上限とジョブごとのフェアシェアで制限される。
+     * 描画DPIはページごとに {@link RenderDpiPolicy} で決める（ページサイズと画素予算、
+     * OCR に回すページか表示のみのページか）。採用したDPIは {@link PageData#getRenderDpi()} に記録する。
+     * 結果はページ番号順に並べ替えて返す。
      */
-    public List<PageData> ingest(MultipartFile pdf, int dpi, Long userId,
+    public List<PageData> ingest(File pdfFile, Long userId,
                                  Long categoryId, Long noteId, boolean includeEmbeddedText)
             throws IOException {
 
-        if (pdf == null || pdf.isEmpty())
+        if (pdfFile == null || !pdfFile.isFile())
             throw new IllegalArgumentException("PDF file is required");
 
-        // --- レンダリング フェーズ（シングルスレッド：PDFRenderer は非スレッドセーフ）---
-        record RenderedPage(int pageNo, File tempImage, String embeddedText) {}
+        int pageCount;
+        long bytesPerPage;
+        try (PDDocument doc = pdfSpoolService.load(pdfFile)) {
+            pageCount = doc.getNumberOfPages();
+            bytesPerPage = estimateRasterBytes(doc);
+        }
+        if (pageCount == 0) return List.of();
+
+        int renderWorkers = resolveRenderParallelism(pageCount, bytesPerPage);
+        log.info("[ingest] noteId={} pages={} renderWorkers={}", noteId, pageCount, renderWorkers);
+
+        Queue<CompletableFuture<PageData>> uploads = new ConcurrentLinkedQueue<>();
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        // アップロード待ちページの受け渡し枠（bounded hand-off）
+        Semaphore window = new Semaphore(Math.max(1, maxInFlightPages));
+
+        PageUploadExecutor.Job uploadJob = pageUploadExecutor.openJob("note-" + noteId);
+        ExecutorService renderPool = (renderWorkers > 1) ? Executors.newFixedThreadPool(renderWorkers) : null;
+
+        PageEncodingReport report = new PageEncodingReport();
+
+        try {
+            RenderContext ctx = new RenderContext(pdfFile, userId, categoryId, noteId,
+                    includeEmbeddedText, renderWorkers, window, aborted, uploads, uploadJob, report);
+
+            if (renderPool == null) {
+                renderStripe(ctx, 0);
+            } else {
+                List<CompletableFuture<Void>> renders = new ArrayList<>();
+                for (int w = 0; w < renderWorkers; w++) {
+                    final int worker = w;
+                    renders.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            renderStripe(ctx, worker);
+                        } catch (IOException e) {
+                            throw new RuntimeException("Render failed (worker " + worker + ")", e);
+                        }
+                    }, renderPool));
+                }
+                joinAll(renders);
+            }
+
+            // 全ページの完了を待ち、ページ番号順にソートして返す
+            List<PageData> pages = joinAll(new ArrayList<>(uploads)).stream()
+                    .sorted(Comparator.comparingInt(PageData::getPageNumber))
+                    .toList();
+            log.info("[ingest] noteId={} encoding report: {}", noteId, report.summary());
+            return pages;
 
-        List<RenderedPage> rendered = new ArrayList<>();
+        } catch (RuntimeException | IOException e) {
+            aborted.set(true);
+            throw e;
+        } finally {
+            if (renderPool != null) renderPool.shutdown();
+            uploadJob.close();
+        }
+    }
 
-        try (PDDocument doc = PDDocument.load(pdf.getInputStream())) {
+    /** 1レンダリングワーカー分の共有状態 */
+    private record RenderContext(
+            File pdfFile, Long userId, Long categoryId, Long noteId,
+            boolean includeEmbeddedText, int workers, Semaphore window, AtomicBoolean aborted,
+            Queue<CompletableFuture<PageData>> uploads, PageUploadExecutor.Job uploadJob,
+            PageEncodingReport report) {}
+
+    /**
+     * worker 番目のワーカーとして、pageIndex % workers == worker のページを描画してアップロードを投入する。
+     * PDDocument / PDFRenderer / PDFTextStripper はこのワーカー専用。
+     */
+    private void renderStripe(RenderContext ctx, int worker) throws IOException {
+        try (PDDocument doc = pdfSpoolService.load(ctx.pdfFile())) {
             PDFRenderer renderer = new PDFRenderer(doc);
             renderer.setSubsamplingAllowed(true);
-
-            PDFTextStripper stripper = includeEmbeddedText ? new PDFTextStripper() : null;
+            PDFTextStripper stripper = ctx.includeEmbeddedText() ? new PDFTextStripper() : null;
             int pageCount = doc.getNumberOfPages();
 
-            for (int i = 0; i < pageCount; i++) {
+            for (int i = worker; i < pageCount; i += ctx.workers()) {
                 int pageNo = i + 1;
 
-                // レンダリング（PDDocument が生きている間に完了させる必要あり）
-                BufferedImage image = renderer.renderImageWithDPI(i, dpi);
-                File tempImage = File.createTempFile("page-" + pageNo + "-", ".png");
-                ImageIO.write(image, "png", tempImage);
+                // 枠が空くまで待つ（アップロードが詰まっていればレンダリングを止める）
+                acquire(ctx.window());
 
+                // 他ワーカーの失敗や先行ページのアップロード失敗を検知したら打ち切る
+                if (ctx.aborted().get()
+                        || ctx.uploads().stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    ctx.window().release();
+                    ctx.aborted().set(true);
+                    return;
+                }
+
+                EncodedPage encoded = null;
                 String text = null;
-                if (stripper != null) {
-                    stripper.setStartPage(pageNo);
-                    stripper.setEndPage(pageNo);
-                    text = trimToNull(stripper.getText(doc));
+                int dpi;
+                try {
+                    if (stripper != null) {
+                        stripper.setStartPage(pageNo);
+                        stripper.setEndPage(pageNo);
+                        text = trimToNull(stripper.getText(doc));
+                    }
+
+                    // FULL モード、または埋め込みテキストが無い／使えないページは OCR に回るため OCR 用のDPIで描画する
+                    RenderDpiPolicy.Purpose purpose = (stripper == null || !embeddedTextPolicy.isPlausible(text))
+                            ? RenderDpiPolicy.Purpose.OCR
+                            : RenderDpiPolicy.Purpose.DISPLAY;
+                    dpi = renderDpiPolicy.choose(doc.getPage(i).getCropBox(), purpose);
+
+                    BufferedImage image = renderer.renderImageWithDPI(i, dpi);
+                    encoded = encode(image, pageNo, ctx.report());
+                } catch (IOException | RuntimeException e) {
+                    if (encoded != null) encoded.close();
+                    ctx.window().release();
+                    ctx.aborted().set(true);
+                    throw e;
                 }
 
-                rendered.add(new RenderedPage(pageNo, tempImage, text));
+                ctx.uploads().add(submitUpload(ctx, pageNo, dpi, encoded, text));
             }
         }
-        // PDDocument を閉じた後でアップロードを並列実行（temp ファイルは残っている）
+    }
 
-        // --- アップロード フェーズ（並列：Firebase I/O は独立） ---
-        int parallelism = Math.min(rendered.size(),
-                Runtime.getRuntime().availableProcessors() * 2);
-        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    /**
+     * ページ画像を内容に応じた形式（{@link PageImageEncoder}）でエンコードする。
+     * プールからバッファを借りられればメモリ上に、メモリ上限に達していれば temp ファイルに書き出す。
+     */
+    private EncodedPage encode(BufferedImage image, int pageNo, PageEncodingReport report) throws IOException {
+        long raw = (long) image.getWidth() * image.getHeight() * 3;
+        long baseline = reportBaseline ? measureBaseline(image) : -1;
 
+        PooledBuffer buf = bufferPool.acquire();
+        if (buf != null) {
+            try {
+                PageImageEncoder.Encoding enc = pageImageEncoder.encode(image, buf);
+                bufferPool.settle(buf);
+                report.record(enc, raw, buf.size(), baseline);
+                return EncodedPage.inMemory(buf, enc.ext(), enc.contentType());
+            } catch (IOException | RuntimeException e) {
+                buf.close();
+                throw e;
+            }
+        }
+
+        log.debug("[ingest] page={} spilled to disk (buffer in use={}B)", pageNo, bufferPool.inUseBytes());
+        File tempImage = File.createTempFile("page-" + pageNo + "-", ".img");
         try {
-            List<CompletableFuture<PageData>> futures = rendered.stream()
-                    .map(rp -> CompletableFuture.supplyAsync(() -> {
-                        try {
-                            FirebaseStorageService.UploadedImage up =
-                                    firebaseStorageService.uploadNotePageImage(
-                                            userId, categoryId, noteId, rp.pageNo(), rp.tempImage());
-                            log.debug("[ingest] page={} uploaded -> {}", rp.pageNo(), up.publicUrl());
-                            return new PageData(rp.pageNo(), up.publicUrl(), up.gsUri(), rp.embeddedText());
-                        } catch (IOException e) {
-                            throw new RuntimeException("Upload failed for page " + rp.pageNo(), e);
-                        } finally {
-                            safeDelete(rp.tempImage());
-                        }
-                    }, pool))
-                    .toList();
+            PageImageEncoder.Encoding enc;
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempImage))) {
+                enc = pageImageEncoder.encode(image, out);
+            }
+            report.record(enc, raw, tempImage.length(), baseline);
+            return EncodedPage.spilled(tempImage, enc.ext(), enc.contentType());
+        } catch (IOException | RuntimeException e) {
+            safeDelete(tempImage);
+            throw e;
+        }
+    }
 
-            // 全ページの完了を待ち、ページ番号順にソートして返す
-            return futures.stream()
-                    .map(CompletableFuture::join) // 例外は RuntimeException としてここで再スロー
-                    .sorted(Comparator.comparingInt(PageData::getPageNumber))
-                    .toList();
+    /** 従来形式（フルカラー PNG）で書き出した場合のサイズを計測する（レポート用） */
+    private long measureBaseline(BufferedImage image) throws IOException {
+        long[] count = {0};
+        pageImageEncoder.encodeBaselinePng(image, new OutputStream() {
+            @Override
+            public void write(int b) {
+                count[0]++;
+            }
 
-        } finally {
-            pool.shutdown();
-            // 残った temp ファイルをクリーンアップ（正常時はアップロード内部で削除済み）
-            rendered.forEach(rp -> safeDelete(rp.tempImage()));
+            @Override
+            public void write(byte[] b, int off, int len) {
+                count[0] += len;
+            }
+        });
+        return count[0];
+    }
+
+    /** アップロード（共通 Executor で並列実行）。完了時にバッファ／枠を返却する */
+    private CompletableFuture<PageData> submitUpload(RenderContext ctx, int pageNo, int dpi, EncodedPage page, String embeddedText) {
+        return ctx.uploadJob().submit(() -> {
+            try {
+                FirebaseStorageService.UploadedImage up = page.isInMemory()
+                        ? firebaseStorageService.uploadNotePageBytes(
+                                ctx.userId(), ctx.categoryId(), ctx.noteId(), pageNo,
+                                page.bytes(), page.ext(), page.contentType())
+                        : firebaseStorageService.uploadToPath(page.file(),
+                                firebaseStorageService.pageObjectPath(
+                                        ctx.userId(), ctx.categoryId(), ctx.noteId(), pageNo, page.ext()),
+                                page.contentType());
+                log.debug("[ingest] page={} dpi={} uploaded {}B -> {}", pageNo, dpi, page.size(), up.publicUrl());
+                return new PageData(pageNo, up.publicUrl(), up.gsUri(), embeddedText, dpi);
+            } catch (IOException e) {
+                throw new RuntimeException("Upload failed for page " + pageNo, e);
+            } finally {
+                page.close();
+                ctx.window().release();
+            }
+        });
+    }
+
+    /**
+     * 並列レンダリング数を決める。
+     * 設定値・CPU数・ページ数に加え、「1ページ分のラスタ × ワーカー数」がメモリ予算に収まるよう制限する。
+     */
+    private int resolveRenderParallelism(int pageCount, long bytesPerPage) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int configured = renderParallelism > 0 ? renderParallelism : cpus;
+        long budget = Math.max(1, renderMemoryBudgetMb) * 1024L * 1024L;
+        long byMemory = Math.max(1, budget / Math.max(1, bytesPerPage));
+        return (int) Math.max(1, Math.min(Math.min(configured, cpus), Math.min(pageCount, byMemory)));
+    }
+
+    /**
+     * 各ページを DPI ポリシーの上限DPIで描画した際の最大ラスタサイズ（ARGB 4byte/px）を見積もる。
+     * PDFRenderer 内部の作業領域も考慮して2倍で見込む。
+     */
+    private long estimateRasterBytes(PDDocument doc) {
+        double maxPixels = 0;
+        for (PDPage page : doc.getPages()) {
+            PDRectangle box = page.getCropBox();
+            int dpi = renderDpiPolicy.upperBound(box);
+            double pixels = (double) box.getWidth() * box.getHeight() / (72.0 * 72.0) * dpi * dpi;
+            maxPixels = Math.max(maxPixels, pixels);
+        }
+        return (long) (maxPixels * 4 * 2);
+    }
+
+    /** 全 future の完了を待つ。失敗時は元の RuntimeException を再スロー */
+    private static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof RuntimeException re) ? re : e;
+        }
+    }
+
+    private static void acquire(Semaphore window) throws IOException {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for upload slot", e);
         }
     }
 
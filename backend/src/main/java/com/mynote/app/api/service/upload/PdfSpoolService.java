@@ -0,0 +1,145 @@
+package com.mynote.app.api.service.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * アップロードされた PDF をディスクへ退避（spool）し、メモリ使用量を抑えて開くためのコンポーネント。
+ *
+ * <p>MultipartFile はリクエスト終了時に破棄されるため、取り込みジョブへ渡す前に
+ * 管理下のディレクトリへ一度だけ書き出す。ジョブは再起動後も再開するため、spool ファイルはジョブ終了まで残る。開く際は PDFBox の {@link MemoryUsageSetting} で
+ * 1ドキュメントあたりのメインメモリ使用量に上限を設け、超えた分は scratch ファイルへ逃がす。
+ *
+ * <p>中断したジョブは別のノードが回収して再開するため、複数ノード構成（{@code upload.events.bus=jdbc}）では
+ * spool ディレクトリを全ノードで共有するボリュームに置く必要がある。未指定（ノードローカルの tmpdir）のままなら起動を止める。
+ */
+@Component
+@Slf4j
+public class PdfSpoolService {
+
+    /** ページ数を数えられない PDF のページ数概算に使う、1ページあたりのバイト数 */
+    private static final long ESTIMATED_BYTES_PER_PAGE = 200 * 1024L;
+
+    /** spool / scratch ファイルの置き場所（空なら java.io.tmpdir 配下） */
+    @Value("${upload.pdf.spool-dir:}")
+    private String spoolDir;
+
+    /** 1ドキュメントあたりに PDFBox が使うメインメモリの上限（MB）。超えた分は scratch ファイル */
+    @Value("${upload.pdf.max-main-memory-mb:16}")
+    private long maxMainMemoryMb;
+
+    /** 進捗イベントの配送方式（jdbc = 複数ノード構成） */
+    @Value("${upload.events.bus:local}")
+    private String eventsBus;
+
+    private Path root;
+
+    @PostConstruct
+    void init() throws IOException {
+        if ("jdbc".equals(eventsBus) && (spoolDir == null || spoolDir.isBlank())) {
+            throw new IllegalStateException(
+                    "upload.pdf.spool-dir must point to a volume shared by all nodes when upload.events.bus=jdbc");
+        }
+        root = (spoolDir == null || spoolDir.isBlank())
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "mynote-spool")
+                : Paths.get(spoolDir);
+        Files.createDirectories(root);
+        log.info("[spool] dir={} maxMainMemory={}MB", root, maxMainMemoryMb);
+    }
+
+    /**
+     * MultipartFile を spool ディレクトリへ書き出す。
+     * Servlet コンテナの一時ファイルがあれば移動（transferTo）で済ませ、コピーを避ける。
+     */
+    public SpooledPdf spool(MultipartFile pdf) throws IOException {
+        if (pdf == null || pdf.isEmpty())
+            throw new IllegalArgumentException("PDF file is required");
+
+        File file = Files.createTempFile(root, "upload-", ".pdf").toFile();
+        try {
+            pdf.transferTo(file);
+        } catch (IOException | RuntimeException e) {
+            file.delete();
+            throw e;
+        }
+        log.debug("[spool] {} ({}B) -> {}", pdf.getOriginalFilename(), file.length(), file);
+        return new SpooledPdf(file, pdf.getOriginalFilename());
+    }
+
+    /**
+     * spool 済みの PDF をメモリ上限付きで開く。
+     * 呼び出し側で close すること（scratch ファイルも close 時に削除される）。
+     */
+    public PDDocument load(File pdfFile) throws IOException {
+        return PDDocument.load(pdfFile, memoryUsageSetting());
+    }
+
+    /**
+     * ページ数を数える（ジョブのコスト見積もり用）。
+     * 壊れている・暗号化されているなどで開けない場合はファイルサイズから概算する。
+     */
+    public int countPages(File pdfFile) {
+        try (PDDocument doc = PDDocument.load(pdfFile, MemoryUsageSetting.setupTempFileOnly().setTempDir(root.toFile()))) {
+            return Math.max(1, doc.getNumberOfPages());
+        } catch (IOException e) {
+            int estimate = (int) Math.max(1, pdfFile.length() / ESTIMATED_BYTES_PER_PAGE);
+            log.warn("[spool] page count failed, estimated {} pages from size: {} : {}", estimate, pdfFile, e.toString());
+            return estimate;
+        }
+    }
+
+    /** spool ディレクトリのあるディスクの空き容量（バイト） */
+    public long usableSpace() {
+        return root.toFile().getUsableSpace();
+    }
+
+    private MemoryUsageSetting memoryUsageSetting() {
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(Math.max(1, maxMainMemoryMb) * 1024L * 1024L);
+        setting.setTempDir(root.toFile());
+        return setting;
+    }
+
+    /** spool 済み PDF。処理完了後に {@link #close()} でファイルを削除する */
+    public static final class SpooledPdf implements AutoCloseable {
+
+        private final File file;
+        private final String originalFilename;
+
+        SpooledPdf(File file, String originalFilename) {
+            this.file = file;
+            this.originalFilename = originalFilename;
+        }
+
+        public File file() {
+            return file;
+        }
+
+        public String originalFilename() {
+            return originalFilename;
+        }
+
+        public long size() {
+            return file.length();
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (file.exists()) file.delete();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+}
@@ -1,15 +1,44 @@
 package com.mynote.app.api.service.upload;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * SSE で送る進捗イベント。
+ * meta はイベント固有の付加情報（PAGE_DONE のページ番号など）。不要なイベントでは null（JSON には出さない）。
+ */
 public record ProcessStatusEvent(
         Code code,
         String message,
         Long noteId,
         boolean finished,
-        Mode mode
+        Mode mode,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Map<String, Object> meta
 ) {
-    public enum Code { UPLOAD_DONE, OCR_DONE, OCR_SKIPPED, AI_DONE, ERROR, COMPLETE }
+    public enum Code { QUEUED, UPLOAD_DONE, OCR_DONE, OCR_SKIPPED, PAGE_DONE, AI_DONE, ERROR, COMPLETE }
     public enum Mode { FULL, SIMPLE }
 
+    public ProcessStatusEvent(Code code, String message, Long noteId, boolean finished, Mode mode) {
+        this(code, message, noteId, finished, mode, null);
+    }
+
+    /**
+     * 取り込みジョブを受け付けたことを通知する（最初のイベント。noteId はまだ無い）。
+     *
+     * @param jobId           ジョブID
+     * @param position        待ち順（1 = 次に開始）
+     * @param pageEstimate    推定ページ数
+     * @param expectedStartAt 開始予定時刻（概算）
+     */
+    public static ProcessStatusEvent queued(Mode mode, Long jobId, long position, int pageEstimate, Instant expectedStartAt) {
+        return new ProcessStatusEvent(Code.QUEUED, "処理待ちです", null, false, mode,
+                Map.of("jobId", jobId, "position", position, "pageEstimate", pageEstimate,
+                        "expectedStartAt", expectedStartAt.toString()));
+    }
+
     public static ProcessStatusEvent uploadDone(Long noteId, Mode mode) {
         return new ProcessStatusEvent(Code.UPLOAD_DONE, "アップロードが完了しました", noteId, false, mode);
     }
@@ -22,6 +51,18 @@ public record ProcessStatusEvent(
         return new ProcessStatusEvent(Code.OCR_SKIPPED, "OCRをスキップしました", noteId, false, mode);
     }
 
+    /**
+     * AI のページ解説が保存されたページを通知する（AI 解析中に複数回送られる）。
+     *
+     * @param pageNumbers 今回保存したページ番号
+     * @param donePages   これまでに保存したページ数
+     * @param totalPages  全ページ数
+     */
+    public static ProcessStatusEvent pageDone(Long noteId, Mode mode, List<Integer> pageNumbers, int donePages, int totalPages) {
+        return new ProcessStatusEvent(Code.PAGE_DONE, "ページ解説を保存しました", noteId, false, mode,
+                Map.of("pages", pageNumbers, "donePages", donePages, "totalPages", totalPages));
+    }
+
     public static ProcessStatusEvent aiDone(Long noteId, Mode mode) {
         return new ProcessStatusEvent(Code.AI_DONE, "AI解析が完了しました", noteId, false, mode);
     }
@@ -33,4 +74,15 @@ public record ProcessStatusEvent(
     public static ProcessStatusEvent error(Long noteId, String message, Mode mode) {
         return new ProcessStatusEvent(Code.ERROR, message, noteId, true, mode);
     }
+
+    /**
+     * 受け入れ判定で断ったことを通知する（429 / 413 のレスポンス本文）。
+     *
+     * @param reason            断った理由（IngestAdmissionService.Reason の名前）
+     * @param retryAfterSeconds 再試行までの秒数の目安（再試行しても通らない場合は 0）
+     */
+    public static ProcessStatusEvent rejected(Mode mode, String message, String reason, int retryAfterSeconds) {
+        return new ProcessStatusEvent(Code.ERROR, message, null, true, mode,
+                Map.of("reason", reason, "retryAfterSeconds", retryAfterSeconds));
+    }
 }
@@ -0,0 +1,45 @@
+package com.mynote.app.api.service.upload;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 取り込みジョブの進捗イベントをノード間で配る。
+ *
+ * <p>ジョブを処理するノードと、クライアントの SSE 接続を持つノードは一致するとは限らない（ロードバランサ配下の複数レプリカ）。
+ * 発行側は {@link #publish} に渡すだけで、全ノードの購読者（{@link JobEventStreams}）へ届く。
+ * イベントID はバスが採番し、同じジョブの中で単調増加する（SSE の id / Last-Event-ID としてどのノードでも同じ値になる）。
+ *
+ * <p>実装は {@code upload.events.bus} で選ぶ。
+ * <ul>
+ *   <li>{@code local}（既定）: 同一 JVM 内だけで配る。単一ノード構成向け</li>
+ *   <li>{@code jdbc} : ingest_job_events テーブルへ書き、各ノードがポーリングで読む。追加のミドルウェア不要</li>
+ * </ul>
+ * メッセージブローカー（Redis Pub/Sub など）を使う場合は、このインタフェースを実装して
+ * publish でブローカーへ送り、受信したメッセージを subscribe された購読者へ渡す。
+ */
+public interface ProgressEventBus {
+
+    /**
+     * 配送されるイベント。
+     *
+     * @param id ジョブ内で単調増加するイベントID
+     */
+    record Envelope(long id, Long jobId, Long userId, ProcessStatusEvent event) {}
+
+    /** イベントを発行する（全ノードの購読者へ届く） */
+    void publish(Long jobId, Long userId, ProcessStatusEvent event);
+
+    /** このノードで受け取る購読者を登録する。起動時に1度だけ呼ぶ想定 */
+    void subscribe(Consumer<Envelope> listener);
+
+    /**
+     * ジョブの過去のイベントを返す（再接続先のノードが、そのジョブの配信をまだ受けていなかった場合の再送用）。
+     * 履歴を持たない実装は空を返す。
+     *
+     * @param afterId この ID より後のイベントだけ返す
+     */
+    default List<Envelope> history(Long jobId, long afterId) {
+        return List.of();
+    }
+}
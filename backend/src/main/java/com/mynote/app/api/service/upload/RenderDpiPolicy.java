@@ -0,0 +1,68 @@
+package com.mynote.app.api.service.upload;
+
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ページごとのレンダリングDPIを決めるポリシー。
+ *
+ * <p>ページの物理サイズ（CropBox、1pt = 1/72 inch）と1ページあたりの画素予算から上限DPIを求め、
+ * 用途（OCRに回すか、表示のみか）に応じて下限・上限で丸める。
+ * <ul>
+ *   <li>OCR    : {@code ocr-min}〜{@code max}（Vision OCR の精度に概ね 200〜300dpi 必要）</li>
+ *   <li>DISPLAY: {@code display} を上限（画面表示だけなら高DPIは不要）</li>
+ * </ul>
+ * A3 ポスターのような大判ページは画素予算で自動的に DPI が下がり、4:3 スライドは上限DPIのまま描画される。
+ */
+@Component
+public class RenderDpiPolicy {
+
+    public enum Purpose { OCR, DISPLAY }
+
+    /** DISPLAY 用途でもこれ以下には下げない */
+    private static final int MIN_DPI = 72;
+
+    @Value("${upload.ingest.dpi.max:300}")
+    private int maxDpi;
+
+    @Value("${upload.ingest.dpi.ocr-min:200}")
+    private int ocrMinDpi;
+
+    @Value("${upload.ingest.dpi.display:150}")
+    private int displayDpi;
+
+    /** 1ページあたりの画素数の目安（既定はA4縦を300dpiで描画した程度） */
+    @Value("${upload.ingest.dpi.pixel-budget:9000000}")
+    private long pixelBudget;
+
+    /**
+     * ページサイズと用途から DPI を決める。
+     *
+     * @param box     ページの CropBox
+     * @param purpose OCR に回すページか、表示のみか
+     */
+    public int choose(PDRectangle box, Purpose purpose) {
+        double areaInch2 = Math.max(1e-6, (box.getWidth() / 72.0) * (box.getHeight() / 72.0));
+        int byBudget = (int) Math.floor(Math.sqrt(pixelBudget / areaInch2));
+
+        if (purpose == Purpose.OCR) {
+            return clamp(byBudget, ocrMinDpi, maxDpi);
+        }
+        return clamp(byBudget, MIN_DPI, Math.min(displayDpi, maxDpi));
+    }
+
+    /** このポリシーで取りうる最大DPI（メモリ見積もり用） */
+    public int upperBound(PDRectangle box) {
+        return choose(box, Purpose.OCR);
+    }
+
+    /** 設定値の組（同じ PDF でも設定が変われば描画結果が変わるため、キャッシュキー等に使う） */
+    public String signature() {
+        return "max=" + maxDpi + ",ocrMin=" + ocrMinDpi + ",display=" + displayDpi + ",budget=" + pixelBudget;
+    }
+
+    private static int clamp(int v, int lo, int hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
@@ -0,0 +1,238 @@
+package com.mynote.app.api.service.upload;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SSE 接続の集中管理。
+ *
+ * <p>発行側（取り込みワーカーなど）は {@link Connection#send} で接続ごとの有界キューに積むだけで、
+ * ソケットへの書き込みは送信用の仮想スレッドが接続ごとに1本ずつ行う。遅いクライアントがいても発行側は待たない。
+ * <ul>
+ *   <li>キューが {@code upload.sse.queue-capacity} を超えたら {@code upload.sse.overflow-policy} に従う。
+ *       CLOSE（既定）は接続を閉じる（クライアントは Last-Event-ID で再接続して取りこぼしを受け直す）。
+ *       DROP_OLDEST は古いイベントを捨てる</li>
+ *   <li>ハートビートは全接続で1つのスケジュールタスクが送る。
+ *       {@code upload.sse.heartbeat-interval-ms} 以上何も送っていない接続にだけコメント行を積む</li>
+ *   <li>送信に失敗した接続・完了／タイムアウトした接続はその場で登録を外す</li>
+ * </ul>
+ * 待機中の接続はスレッドを持たないため、数万本の待機接続でも CPU はハートビートの送信分しか使わない。
+ *
+ * <p>メトリクス:
+ * <ul>
+ *   <li>{@code upload.sse.connections} : 開いている接続数</li>
+ *   <li>{@code upload.sse.overflows}   : キューあふれの回数</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SseHub {
+
+    /** キューあふれ時の扱い */
+    public enum OverflowPolicy { CLOSE, DROP_OLDEST }
+
+    /**
+     * 送信するイベント。接続ごとに SseEventBuilder を組み立てる（builder は使い回せないため）。
+     *
+     * @param id   SSE の id（null なら付けない）
+     * @param name SSE の event 名（null なら付けない）
+     */
+    public record Event(String id, String name, Object data) {}
+
+    /** ハートビート（コメント行）の目印 */
+    private static final Event HEARTBEAT = new Event(null, null, null);
+    /** キューを送り切ったら接続を閉じる目印 */
+    private static final Event CLOSE = new Event(null, null, null);
+
+    private final MeterRegistry meterRegistry;
+
+    /** 1接続あたりの未送信イベントの上限（再送バッファより大きくする） */
+    @Value("${upload.sse.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${upload.sse.overflow-policy:CLOSE}")
+    private OverflowPolicy overflowPolicy;
+
+    /** この間隔以上何も送っていない接続にハートビートを送る（ミリ秒） */
+    @Value("${upload.sse.heartbeat-interval-ms:20000}")
+    private long heartbeatIntervalMs;
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private ExecutorService sender;
+    private Counter overflows;
+
+    @PostConstruct
+    void init() {
+        sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-send-", 0).factory());
+        Gauge.builder("upload.sse.connections", connections, Set::size)
+                .description("開いている SSE 接続数").register(meterRegistry);
+        overflows = Counter.builder("upload.sse.overflows")
+                .description("SSE 送信キューがあふれた回数").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connections.forEach(c -> c.close(null));
+        sender.shutdownNow();
+    }
+
+    /**
+     * 接続を開いて登録する。
+     *
+     * @param timeoutMs 接続のタイムアウト（ミリ秒）
+     */
+    public Connection open(long timeoutMs) {
+        return register(new SseEmitter(timeoutMs));
+    }
+
+    Connection register(SseEmitter emitter) {
+        Connection c = new Connection(emitter, Math.max(1, queueCapacity));
+        connections.add(c);
+        emitter.onCompletion(() -> c.close(null));
+        emitter.onTimeout(() -> c.close(null));
+        emitter.onError(e -> c.close(null));
+        return c;
+    }
+
+    /** 開いている接続数 */
+    public int size() {
+        return connections.size();
+    }
+
+    /** しばらく何も送っていない接続にハートビートを積む */
+    @Scheduled(fixedDelayString = "${upload.sse.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        long threshold = System.currentTimeMillis() - heartbeatIntervalMs;
+        for (Connection c : connections) {
+            if (c.lastSentAt <= threshold && c.queue.isEmpty()) {
+                c.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    /** 1本の SSE 接続。send / complete はどのスレッドから呼んでもブロックしない */
+    public final class Connection {
+
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Event> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastSentAt = System.currentTimeMillis();
+        private volatile Runnable onClose;
+
+        private Connection(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        public SseEmitter emitter() {
+            return emitter;
+        }
+
+        /** 接続が閉じられたとき（送信失敗・切断・タイムアウト・あふれ）に1度だけ呼ぶ処理 */
+        public void onClose(Runnable callback) {
+            this.onClose = callback;
+            if (closed.get()) callback.run();
+        }
+
+        public boolean isOpen() {
+            return !closed.get();
+        }
+
+        /** イベントを送信キューに積む。閉じていれば何もしない */
+        public void send(String id, String name, Object data) {
+            offer(new Event(id, name, data));
+        }
+
+        /** キューに積んだイベントを送り切ってから接続を閉じる */
+        public void complete() {
+            offer(CLOSE);
+        }
+
+        private void offer(Event event) {
+            if (closed.get()) return;
+            if (!queue.offer(event)) {
+                overflows.increment();
+                if (overflowPolicy == OverflowPolicy.DROP_OLDEST && event != CLOSE) {
+                    Event dropped = queue.poll();
+                    queue.offer(dropped == CLOSE ? CLOSE : event);
+                } else {
+                    // 取りこぼしを黙って続けない。閉じればクライアントは Last-Event-ID で受け直せる
+                    log.debug("[sse] queue overflow, closing connection");
+                    queue.clear();
+                    queue.offer(CLOSE);
+                }
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        /** 送信用スレッドでキューを送り切る。同じ接続を同時に2本のスレッドが送ることはない */
+        private void drain() {
+            while (true) {
+                Event event;
+                while ((event = queue.poll()) != null) {
+                    if (event == CLOSE) {
+                        close(null);
+                        return;
+                    }
+                    try {
+                        emitter.send(build(event));
+                        lastSentAt = System.currentTimeMillis();
+                    } catch (IOException | IllegalStateException e) {
+                        close(e);
+                        return;
+                    }
+                }
+                draining.set(false);
+                // 解放した直後に積まれた分は、ここで取り直すか積んだ側が送る
+                if (queue.isEmpty() || !draining.compareAndSet(false, true)) return;
+            }
+        }
+
+        private void close(Throwable error) {
+            if (!closed.compareAndSet(false, true)) return;
+            connections.remove(this);
+            queue.clear();
+            try {
+                if (error == null) emitter.complete();
+                else emitter.completeWithError(error);
+            } catch (RuntimeException ignore) {
+                // 既に完了済み
+            }
+            Runnable callback = onClose;
+            if (callback != null) callback.run();
+        }
+
+        private SseEmitter.SseEventBuilder build(Event event) {
+            if (event == HEARTBEAT) {
+                return SseEmitter.event().comment("hb");
+            }
+            SseEmitter.SseEventBuilder b = SseEmitter.event();
+            if (event.id() != null) b.id(event.id());
+            if (event.name() != null) b.name(event.name());
+            return b.data(event.data(), MediaType.APPLICATION_JSON);
+        }
+    }
+}
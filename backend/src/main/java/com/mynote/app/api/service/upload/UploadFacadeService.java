@@ -1,31 +1,30 @@
 package com.mynote.app.api.service.upload;
 
-import java.io.IOException;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.mynote.app.api.dto.ai.AiIngestRequestDto;
 import com.mynote.app.api.dto.ai.AiPageDetailDto;
 import com.mynote.app.api.dto.ai.AiSectionDto;
-import com.mynote.app.api.dto.note.NotePageRequestDto;
 import com.mynote.app.api.dto.note.NoteRequestDto;
+import com.mynote.app.api.service.nav.NavChangedEvent;
+import com.mynote.app.api.service.note.NoteBulkWriter;
 import com.mynote.app.api.service.note.NoteIndexService;
 import com.mynote.app.api.service.note.NotePageService;
 import com.mynote.app.api.service.note.NoteService;
-import com.mynote.app.api.service.upload.ProcessStatusEvent.Code;
+import com.mynote.app.api.service.upload.IngestJobService.Stage;
 import com.mynote.app.api.service.upload.ProcessStatusEvent.Mode;
+import com.mynote.app.domain.entity.IngestJob;
 import com.mynote.app.domain.entity.Note;
 import com.mynote.app.domain.entity.NoteIndex;
 import com.mynote.app.domain.entity.NotePage;
@@ -33,6 +32,7 @@ import com.mynote.app.domain.mapper.NoteIndexMapper; // 既存依存は現状維
 import com.mynote.app.domain.mapper.NoteMapper; // 既存依存は現状維持
 import com.mynote.app.domain.mapper.NotePageMapper; // 既存依存は現状維持
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
@@ -42,8 +42,6 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class UploadFacadeService {
 
-	private final Map<Long, SseEmitter> emitters = new ConcurrentHashMap<>();
-
 	// Mapper直参照は現状維持（Service未整備箇所あり）
 	private final NoteMapper noteMapper;
 	private final NotePageMapper notePageMapper;
@@ -52,136 +50,200 @@ public class UploadFacadeService {
 	private final NoteService noteService;
 	private final NotePageService notePageService;
 	private final NoteIndexService noteIndexService;
+	private final NoteBulkWriter noteBulkWriter;
 
 	private final VisionOcrService visionOcrService;
 	private final VertexGeminiService vertexGeminiService;
 	private final PdfPageIngestService pdfPageIngestService;
+	private final IngestFingerprintService ingestFingerprintService;
+	private final IngestJobService ingestJobService;
+	private final EmbeddedTextPolicy embeddedTextPolicy;
+	private final ProgressEventBus progressEventBus;
+	/** ノートの概要・更新日時が変わったらナビゲーションの変更として通知する */
+	private final ApplicationEventPublisher eventPublisher;
+	private final PlatformTransactionManager transactionManager;
+
+	/**
+	 * ページの登録し直し・AI 結果の反映をそれぞれ1トランザクションでコミットする。
+	 * processJob からの自己呼び出しでは @Transactional が効かないため、TransactionTemplate で明示的に張る
+	 * （トランザクション内では NoteBulkWriter も専用プールを使わず、このトランザクションで書き込む）。
+	 */
+	private TransactionTemplate tx;
+
+	/** ストリーミング適用時、ページ解説をまとめて UPDATE するページ数 */
+	@org.springframework.beans.factory.annotation.Value("${gemini.stream.flush-pages:4}")
+	private int streamFlushPages;
+
+	/** ストリーミング適用時、ページ数に満たなくても UPDATE する間隔（ミリ秒） */
+	@org.springframework.beans.factory.annotation.Value("${gemini.stream.flush-interval-ms:1500}")
+	private long streamFlushIntervalMs;
+
+	@PostConstruct
+	void init() {
+		tx = new TransactionTemplate(transactionManager);
+	}
 
 	// =========================
-	// SSE Emitter 管理
+	// 進捗通知（バス経由で、SSE 接続を持つノードのジョブ単位ストリームへ届く）
 	// =========================
-	public SseEmitter addEmitter(Long userId) {
-		SseEmitter emitter = new SseEmitter(10 * 60 * 1000L);
-		emitters.put(userId, emitter);
-	    try {
-	
-	        emitter.send(
-	            SseEmitter.event()
-	                .name("connect")
-	                .data(Map.of("message", "Connection established"), MediaType.APPLICATION_JSON)
-	        );
-	    } catch (IOException e) {
-			emitters.remove(userId);
+	private void notifyClient(Long jobId, Long userId, ProcessStatusEvent event) {
+		try {
+			progressEventBus.publish(jobId, userId, event);
+		} catch (RuntimeException e) {
+			// 通知の失敗で取り込み自体は止めない（クライアントは再接続時に DB の状態から結果を受け取れる）
+			log.warn("[sse] progress publish failed jobId={} code={} : {}", jobId, event.code(), e.toString());
 		}
-		emitter.onCompletion(() -> emitters.remove(userId));
-		emitter.onTimeout(() -> {
-			emitter.complete();
-			emitters.remove(userId);
-		});
-		return emitter;
 	}
 
-	private void notifyClient(Long userId, ProcessStatusEvent event) {
-		SseEmitter emitter = emitters.get(userId);
-		if (emitter == null)
+	// =========================
+	// 取り込みジョブの処理（Mode対応）
+	//   IngestJobWorker から呼ばれる。段階ごとにチェックポイントを記録し、
+	//   再開時は最後に完了した段階の次から処理する。例外はワーカーへそのまま投げる
+	// =========================
+	public void processJob(IngestJob job) throws Exception {
+		final Long jobId = job.getId();
+		final Long userId = job.getUserId();
+		final Long categoryId = job.getCategoryId();
+		final Mode mode = Mode.valueOf(job.getMode());
+		final String tocPrompt = job.getTocPrompt();
+		final String pagePrompt = job.getPagePrompt();
+		final File pdf = new File(job.getSpoolPath());
+		final Stage done = ingestJobService.stageOf(job); // null = 未着手
+
+		// 1) noteID発行（再開時は発行済みのものを使う）
+		Long noteId = job.getNoteId();
+		if (noteId == null) {
+			noteId = saveInitialNote(userId, categoryId, job.getTitle(), job.getOriginalFilename());
+			ingestJobService.attachNote(jobId, noteId);
+			job.setNoteId(noteId); // 失敗時の通知・markAbandoned で使う
+		}
+		if (done == Stage.APPLIED) {
+			notifyClient(jobId, userId, ProcessStatusEvent.complete(noteId, mode));
 			return;
-		try {
-			emitter.send(SseEmitter.event()
-					.name(event.code().name()) // ← enum名で送る
-					.data(event, MediaType.APPLICATION_JSON));
-			if (event.finished() || event.code() == Code.ERROR) { //終端判定
-				emitter.complete();
-				emitters.remove(userId);
+		}
+
+		// 1-2) 同一PDF・同一設定の取り込み結果があれば再利用（描画・アップロード・OCR・AI を省略）
+		//      指紋は登録時に保存した内容ハッシュから作る（PDF は読み直さない）。再開時は検索しない
+		boolean includeEmbedded = (mode == Mode.SIMPLE);
+		IngestFingerprintService.Key fingerprint = null;
+		if (done == null) {
+			fingerprint = ingestFingerprintService.keyOf(job.getPdfSha256(), mode, tocPrompt, pagePrompt);
+			IngestFingerprintService.Reuse reuse =
+					ingestFingerprintService.tryReuse(userId, categoryId, noteId, fingerprint);
+			if (reuse != null) {
+				replaceNotePages(noteId, reuse.pages());
+				notifyClient(jobId, userId, ProcessStatusEvent.uploadDone(noteId, mode));
+				notifyClient(jobId, userId, includeEmbedded
+						? ProcessStatusEvent.ocrSkipped(noteId, mode)
+						: ProcessStatusEvent.ocrDone(noteId, mode));
+				applyAiResult(reuse.aiResult(), true, true);
+				ingestJobService.checkpoint(jobId, Stage.APPLIED);
+				notifyClient(jobId, userId, ProcessStatusEvent.aiDone(noteId, mode));
+				notifyClient(jobId, userId, ProcessStatusEvent.complete(noteId, mode));
+				return;
 			}
-		} catch (IOException e) {
-			emitter.completeWithError(e);
-			emitters.remove(userId);
 		}
-	}
 
-	// =========================
-	// 非同期処理（Mode対応）
-	// =========================
-	@Async
-	public void processPdfAsync(
-			Long userId,
-			Long categoryId,
-			String title,
-			MultipartFile file,
-			String tocPrompt,
-			String pagePrompt,
-			Mode mode) {
-
-		Long noteId = null;
+		/**
+		 * 2) PDF → 画像 → GCS
+		 *    （画像をFirebaseに保存しURL/gsUriを発行。埋め込みテキストも各ページに格納。DB未保存）
+		 *
+		 * PageData {
+		 *   int pageNumber;      // 何ページ目か
+		 *   String publicUrl;    // 公開用の画像URL
+		 *   String gsUri;        // Firebase管理用の gs:// パス
+		 *   String embeddedText; // 埋め込みテキスト（SIMPLE＝必要、FULL＝ null）
+		 *   int renderDpi;       // 描画に使ったDPI（ページサイズ・OCR要否から決定）
+		 * }
+		 */
+		List<PageData> pages;
+		if (passed(done, Stage.RENDERED)) {
+			pages = ingestJobService.pagesOf(job);
+		} else {
+			pages = pdfPageIngestService.ingest(pdf, userId, categoryId, noteId, includeEmbedded);
+			ingestJobService.checkpointRendered(jobId, pages);
+		}
 
-		try {
+		if (!passed(done, Stage.UPLOADED)) {
+			replaceNotePages(noteId, pages);
+			ingestJobService.checkpoint(jobId, Stage.UPLOADED);
+		}
 
-			// 1) noteID発行（DB登録は後回し）
-			String originalFilename = file.getOriginalFilename();
-			noteId = saveInitialNote(userId, categoryId, title, originalFilename);
-			/**
-			 * 2) PDF → 画像 → GCS
-			 *    （画像をFirebaseに保存しURL/gsUriを発行。埋め込みテキストも各ページに格納。DB未保存）
-			 *
-			 * Result {
-			 *   Long noteId; // null（DB保存前）
-			 *   List<PageData> pages;
-			 * }
-			 *
-			 * PageData {
-			 *   int pageNumber;      // 何ページ目か
-			 *   String publicUrl;    // 公開用の画像URL
-			 *   String gsUri;        // Firebase管理用の gs:// パス
-			 *   String embeddedText; // 埋め込みテキスト（SIMPLE＝必要、FULL＝ null）
-			 * }
-			 */
-			boolean includeEmbedded = (mode == Mode.SIMPLE);
-			List<PageData> pages = pdfPageIngestService.ingest(file, 300,userId, categoryId, noteId, includeEmbedded);
-			Result result = new Result(null, pages);
+		// 3) 進捗: アップロード完了
+		notifyClient(jobId, userId, ProcessStatusEvent.uploadDone(noteId, mode));
+
+		// 4) モード分岐：テキスト抽出元をここで決定
+		String aiInput;
+		int ocrPages;
+		if (passed(done, Stage.OCR_DONE)) {
+			aiInput = job.getOcrText();
+			// 初回と同じイベントを送る（記録が無い古いジョブは、SIMPLE なら省略したものとみなす）
+			ocrPages = (job.getOcrPages() != null) ? job.getOcrPages() : (includeEmbedded ? 0 : pages.size());
+		} else if (includeEmbedded) {
+			// ページ単位で埋め込みテキスト／OCR を選択（埋め込みテキストが使えないページだけ OCR）
+			HybridText hybrid = buildHybridText(pages);
+			aiInput = hybrid.text();
+			ocrPages = hybrid.ocrPages();
+			ingestJobService.checkpointOcr(jobId, aiInput, ocrPages);
+		} else {
+			aiInput = runOcrFromPages(pages);
+			ocrPages = pages.size();
+			ingestJobService.checkpointOcr(jobId, aiInput, ocrPages);
+		}
+		notifyClient(jobId, userId, ocrPages > 0
+				? ProcessStatusEvent.ocrDone(noteId, mode)
+				: ProcessStatusEvent.ocrSkipped(noteId, mode));
+
+		// 5) AI 実行 → DB 反映
+		if (passed(done, Stage.AI_DONE)) {
+			// 保存済みの AI 結果を反映し直す（途中まで反映済みでも目次は差分反映、本文は上書きのため冪等）
+			applyAiResult(ingestJobService.aiResultOf(job), true, true);
+		} else {
+			// AI の出力はページ単位で逐次保存し、PAGE_DONE で通知する
+			AiIngestRequestDto ai = runAiFromOcrStreaming(jobId, userId, noteId, mode, aiInput, tocPrompt, pagePrompt);
+			ingestJobService.checkpointAi(jobId, ai);
+			// 次回同じPDFが来たときのために成果物を記録
+			if (fingerprint == null) {
+				fingerprint = ingestFingerprintService.keyOf(job.getPdfSha256(), mode, tocPrompt, pagePrompt);
+			}
+			ingestFingerprintService.record(userId, fingerprint, noteId, pages, aiInput, ai);
+			applyAiResult(ai, false, false);
+		}
+		ingestJobService.checkpoint(jobId, Stage.APPLIED);
 
-			saveNotePages(noteId, pages);
+		notifyClient(jobId, userId, ProcessStatusEvent.aiDone(noteId, mode));
+		notifyClient(jobId, userId, ProcessStatusEvent.complete(noteId, mode));
+	}
 
-			// 3) 進捗: アップロード完了
-			notifyClient(userId, ProcessStatusEvent.uploadDone(noteId, mode));
-
-			// 4) モード分岐：テキスト抽出元をここで決定
-			if (includeEmbedded) {
-				String text = joinEmbeddedText(result.getPages());
-
-				if (text == null || text.isBlank()) {
-					// フォールバック：in-memory の gsUri で直接OCR
-					String ocrText = runOcrFromPages(result.getPages());
-					notifyClient(userId, ProcessStatusEvent.ocrDone(noteId, mode));
-					runAiFromOcr(noteId, ocrText, tocPrompt, pagePrompt);
-				} else {
-					notifyClient(userId, ProcessStatusEvent.ocrSkipped(noteId, mode));
-					runAiFromOcr(noteId, text, tocPrompt, pagePrompt);
-				}
+	/** ジョブの受付（待ち順・開始予定）をクライアントへ通知する */
+	public void notifyQueued(Long userId, Mode mode, IngestJobService.QueueTicket ticket) {
+		notifyClient(ticket.jobId(), userId, ProcessStatusEvent.queued(
+				mode, ticket.jobId(), ticket.position(), ticket.pageEstimate(), ticket.expectedStartAt()));
+	}
 
-				notifyClient(userId, ProcessStatusEvent.aiDone(noteId, mode));
-				notifyClient(userId, ProcessStatusEvent.complete(noteId, mode));
-				return;
-			}
+	/** ジョブの失敗をクライアントへ通知する */
+	public void notifyFailed(IngestJob job, Exception e) {
+		String msg = "処理中にエラーが発生しました: " + e.getMessage();
+		notifyClient(job.getId(), job.getUserId(), ProcessStatusEvent.error(job.getNoteId(), msg, Mode.valueOf(job.getMode())));
+	}
 
-		
-			String ocrText = runOcrFromPages(result.getPages());
-			notifyClient(userId, ProcessStatusEvent.ocrDone(noteId, mode));
-			runAiFromOcr(noteId, ocrText, tocPrompt, pagePrompt);
-			notifyClient(userId, ProcessStatusEvent.aiDone(noteId, mode));
-			notifyClient(userId, ProcessStatusEvent.complete(noteId, mode));
-
-		} catch (Exception e) {
-			log.error("Async PDF processing failed for userId={} : {}", userId, e.getMessage(), e);
-			String msg = "処理中にエラーが発生しました: " + e.getMessage();
-			notifyClient(userId, ProcessStatusEvent.error(noteId, msg, mode));
+	/** 再試行を使い切ったジョブのノートを「失敗」と分かる状態にする */
+	public void markAbandoned(IngestJob job) {
+		if (job.getNoteId() != null) {
+			noteMapper.updateDescription(job.getNoteId(), "AI解析に失敗しました");
+			eventPublisher.publishEvent(NavChangedEvent.note(job.getUserId(), job.getNoteId(), null, false));
 		}
 	}
 
+	/** stage まで完了済みか */
+	private static boolean passed(Stage done, Stage stage) {
+		return done != null && done.compareTo(stage) >= 0;
+	}
+
 	// =========================
 	// 1.5) 初期DB登録
 	// =========================
-	@Transactional
-	public Long saveInitialNote(Long userId, Long categoryId, String title, String originalFilename) {
+	private Long saveInitialNote(Long userId, Long categoryId, String title, String originalFilename) {
 		NoteRequestDto noteRequestDto = new NoteRequestDto();
 		noteRequestDto.setCategoryId(categoryId);
 		noteRequestDto.setTitle(title);
@@ -194,26 +256,36 @@ public class UploadFacadeService {
 		return noteId;
 	}
 
-	@Transactional
-	public void saveNotePages(Long noteId, List<PageData> pages) {
+	/**
+	 * ページを登録し直す（再開時に途中まで登録した分があっても重複させない）。
+	 * 削除と登録は1トランザクションで行い、ページが0件の状態を他から見せない。
+	 */
+	private void replaceNotePages(Long noteId, List<PageData> pages) {
+		tx.executeWithoutResult(status -> {
+			notePageMapper.deleteByNoteId(noteId);
+			saveNotePages(noteId, pages);
+		});
+	}
 
+	private void saveNotePages(Long noteId, List<PageData> pages) {
+		// ページ行は複数行 INSERT でまとめて登録（1ページ1往復にしない）
+		List<NotePage> rows = new ArrayList<>(pages.size());
 		for (PageData pd : pages) {
-			NotePageRequestDto pageRequestDto = new NotePageRequestDto();
-			pageRequestDto.setNoteId(noteId);
-			pageRequestDto.setPageNumber(pd.getPageNumber());
-			pageRequestDto.setFirebasePublicUrl(pd.getPublicUrl());
-			pageRequestDto.setFirebaseAdminPath(pd.getGsUri());
-			pageRequestDto.setExtractedText(pd.getEmbeddedText());
-			boolean success = notePageService.createNotePage(pageRequestDto);
-			if (!success)
-				throw new RuntimeException("NotePage creation failed for page " + pd.getPageNumber() + ".");
+			NotePage row = new NotePage();
+			row.setNoteId(noteId);
+			row.setPageNumber(pd.getPageNumber());
+			row.setFirebasePublicUrl(pd.getPublicUrl());
+			row.setFirebaseAdminPath(pd.getGsUri());
+			row.setExtractedText(pd.getEmbeddedText());
+			row.setRenderDpi(pd.getRenderDpi());
+			rows.add(row);
 		}
+		notePageService.createNotePages(rows);
 	}
 
 	// =========================
 	// OCR実行（in-memoryのgsUri群から）
 	// =========================
-	@Transactional(readOnly = true)
 	private String runOcrFromPages(List<PageData> pages) {
 		if (pages == null || pages.isEmpty())
 			return "";
@@ -231,31 +303,172 @@ public class UploadFacadeService {
 		return (ocr == null) ? "" : ocr.trim();
 	}
 
+	// =========================
+	// SIMPLE: ページ単位のテキスト選択（埋め込み or OCR）
+	// =========================
+	private record HybridText(String text, int ocrPages) {}
+
+	/**
+	 * 埋め込みテキストが妥当なページはそのまま使い、無い／文字化けしているページだけをまとめて OCR する。
+	 * 結果は OCR と同じ "--- Page N ---" 形式でページ順に連結する。
+	 */
+	private HybridText buildHybridText(List<PageData> pages) {
+		if (pages == null || pages.isEmpty())
+			return new HybridText("", 0);
+
+		List<PageData> sorted = pages.stream()
+				.sorted(Comparator.comparingInt(PageData::getPageNumber))
+				.toList();
+
+		// OCR が必要なページだけを抽出
+		List<PageData> needOcr = sorted.stream()
+				.filter(p -> !embeddedTextPolicy.isPlausible(p.getEmbeddedText()))
+				.filter(p -> p.getGsUri() != null && !p.getGsUri().isBlank())
+				.toList();
+
+		Map<Integer, String> ocrByPage = new java.util.HashMap<>();
+		if (!needOcr.isEmpty()) {
+			long t0 = System.currentTimeMillis();
+			List<String> texts = visionOcrService.ocrTexts(needOcr.stream().map(PageData::getGsUri).toList());
+			for (int i = 0; i < needOcr.size(); i++) {
+				ocrByPage.put(needOcr.get(i).getPageNumber(), texts.get(i));
+			}
+			log.info("[AI] hybrid text: embedded={} ocr={} ({}ms)",
+					sorted.size() - needOcr.size(), needOcr.size(), System.currentTimeMillis() - t0);
+		}
+
+		String text = sorted.stream()
+				.map(p -> {
+					// OCR でも文字が取れなければ埋め込みテキスト（あれば）を使う
+					String ocr = ocrByPage.get(p.getPageNumber());
+					String body = (ocr != null && !ocr.isBlank()) ? ocr : p.getEmbeddedText();
+					body = (body == null || body.isBlank()) ? "(no text)" : body.trim();
+					return "--- Page " + p.getPageNumber() + " ---\n" + body;
+				})
+				.collect(Collectors.joining("\n\n"));
+		return new HybridText(text, needOcr.size());
+	}
+
 	// =========================
 	// 3) AI実行→DB反映
 	// =========================
-	@Transactional
-	public AiIngestRequestDto runAiFromOcr(Long noteId, String ocrText, String tocPrompt, String pagePrompt) {
+	/**
+	 * OCR テキストから AI を実行する（ストリーミング）。
+	 * Gemini の応答からページ解説・目次が1件確定するたびに DB へ反映し、ページ解説は PAGE_DONE で通知する。
+	 * 文書要約（notes.description）は反映しない（呼び出し側で AI 結果を保存した後に applyAiResult で反映する）。
+	 */
+	public AiIngestRequestDto runAiFromOcrStreaming(Long jobId, Long userId, Long noteId, Mode mode,
+			String ocrText, String tocPrompt, String pagePrompt) {
 		if (noteId == null)
 			throw new IllegalArgumentException("noteId is required");
 		if (ocrText == null || ocrText.isBlank())
 			throw new IllegalArgumentException("ocrText is empty");
 
 		long t0 = System.currentTimeMillis();
-		log.info("[AI] Gemini start noteId={}", noteId);
+		log.info("[AI] Gemini start (streaming) noteId={}", noteId);
+		StreamingApplier applier = new StreamingApplier(jobId, userId, noteId, mode);
 		AiIngestRequestDto dto = vertexGeminiService.generateIngestPayload(
-				noteId, ocrText, tocPrompt, pagePrompt, null /* modelId inside service */);
-		applyAiResult(dto);
-		log.info("[AI] Apply done noteId={} ({}ms)", noteId, (System.currentTimeMillis() - t0));
+				noteId, ocrText, tocPrompt, pagePrompt, null /* modelId inside service */, applier);
+		applier.finish();
+		log.info("[AI] Apply done noteId={} pages={} sections={} ({}ms)",
+				noteId, applier.donePages, applier.sectionCount, (System.currentTimeMillis() - t0));
 		return dto;
 	}
 
+	/**
+	 * ストリーミング中に届いた AI 結果を逐次 DB に反映する。
+	 * ページ解説は {@code gemini.stream.flush-pages} 件または {@code gemini.stream.flush-interval-ms} ごとに
+	 * NoteBulkWriter でまとめて UPDATE し、保存したページを PAGE_DONE で通知する。
+	 * 目次は溜めておき、最後に既存の目次との差分だけを反映する（途中で全削除しない）。
+	 * map-reduce では窓ごとのスレッドから呼ばれるため、各メソッドは synchronized。
+	 */
+	private final class StreamingApplier implements AiIngestListener {
+
+		private final Long jobId;
+		private final Long userId;
+		private final Long noteId;
+		private final Mode mode;
+		private final Map<Integer, Long> pageNoToId;
+
+		private final Map<Long, String> pendingPages = new java.util.LinkedHashMap<>();
+		private final List<Integer> pendingPageNumbers = new ArrayList<>();
+		private final List<NoteIndex> sections = new ArrayList<>();
+		private long lastFlush = System.currentTimeMillis();
+		private int donePages;
+		private int sectionCount;
+
+		StreamingApplier(Long jobId, Long userId, Long noteId, Mode mode) {
+			this.jobId = jobId;
+			this.userId = userId;
+			this.noteId = noteId;
+			this.mode = mode;
+			this.pageNoToId = notePageMapper.findByNoteId(noteId).stream()
+					.collect(Collectors.toMap(NotePage::getPageNumber, NotePage::getId, (a, b) -> a, TreeMap::new));
+		}
+
+		@Override
+		public synchronized void onPageDetail(AiPageDetailDto pd) {
+			if (pd == null || pd.getPageNumber() == null) return;
+			Long pageId = pageNoToId.get(pd.getPageNumber());
+			if (pageId == null) {
+				log.warn("skip pageDetail: no page row for noteId={}, pageNo={}", noteId, pd.getPageNumber());
+				return;
+			}
+			String text = trimToNull(pd.getDetailedExplanationMd());
+			if (text == null) return;
+
+			if (pendingPages.put(pageId, text) == null) {
+				pendingPageNumbers.add(pd.getPageNumber());
+			}
+			flushIfDue();
+		}
+
+		@Override
+		public synchronized void onSection(AiSectionDto s) {
+			if (s == null) return;
+			sections.add(toNoteIndex(noteId, ++sectionCount, s));
+		}
+
+		/** 残りのページ解説と目次を反映する */
+		synchronized void finish() {
+			flush();
+			noteIndexService.syncSections(noteId, sections);
+		}
+
+		private void flushIfDue() {
+			if (pendingPages.size() >= Math.max(1, streamFlushPages)
+					|| System.currentTimeMillis() - lastFlush >= streamFlushIntervalMs) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			lastFlush = System.currentTimeMillis();
+
+			if (!pendingPages.isEmpty()) {
+				noteBulkWriter.updatePageTexts(new java.util.LinkedHashMap<>(pendingPages));
+				donePages += pendingPages.size();
+				List<Integer> pageNumbers = List.copyOf(pendingPageNumbers);
+				pendingPages.clear();
+				pendingPageNumbers.clear();
+				notifyClient(jobId, userId, ProcessStatusEvent.pageDone(noteId, mode, pageNumbers, donePages, pageNoToId.size()));
+			}
+		}
+	}
+
 	// =========================
 	// 4) AI結果のDB反映
 	// =========================
 
-	@Transactional
-	public void applyAiResult(AiIngestRequestDto req) {
+	/**
+	 * AI 結果を DB に1トランザクションで反映する。
+	 * ストリーミングで目次・ページ解説を反映済みの場合は applySections / applyPages を false にして要約だけ反映する。
+	 */
+	private void applyAiResult(AiIngestRequestDto req, boolean applySections, boolean applyPages) {
+		tx.executeWithoutResult(status -> applyAiResultInTx(req, applySections, applyPages));
+	}
+
+	private void applyAiResultInTx(AiIngestRequestDto req, boolean applySections, boolean applyPages) {
 		if (req == null || req.getNoteId() == null)
 			throw new IllegalArgumentException("noteId is required.");
 		final Long noteId = req.getNoteId();
@@ -265,6 +478,7 @@ public class UploadFacadeService {
 			throw new IllegalArgumentException("Note not found: id=" + noteId);
 
 		// 1) 文書要約 → notes.description
+		boolean summaryUpdated = false;
 		if (req.getDocumentSummary() != null && !req.getDocumentSummary().isEmpty()) {
 			String summaryHtml = req.getDocumentSummary().stream()
 					.map(ds -> trimToNull(ds == null ? null : ds.getOverallSummaryMd()))
@@ -272,43 +486,23 @@ public class UploadFacadeService {
 					.collect(Collectors.joining("<hr/>"));
 			if (!summaryHtml.isBlank()) {
 				noteMapper.updateDescription(noteId, summaryHtml);
+				summaryUpdated = true;
 			}
 		}
 
-		// 2) 目次 → 全削除 + バルクINSERT
-		if (req.getSections() != null) {
-			// 既存レコードを1クエリで全削除
-			noteIndexMapper.deleteByNoteId(noteId);
-
-			// 新規レコードをエンティティリストに変換
+		// 2) 目次 → 既存の目次との差分だけ INSERT / UPDATE / DELETE
+		if (applySections && req.getSections() != null) {
 			List<NoteIndex> newIndexes = new ArrayList<>();
 			int idxNo = 1;
 			for (AiSectionDto s : req.getSections()) {
 				if (s == null) continue;
-
-				String title = nullToEmpty(s.getTitle());
-				if (title.codePointCount(0, title.length()) > 12) {
-					title = title.substring(0, title.offsetByCodePoints(0, 12));
-				}
-
-				NoteIndex idx = new NoteIndex();
-				idx.setNoteId(noteId);
-				idx.setIndexNumber(idxNo++);
-				idx.setStartIndex(s.getStartPage());
-				idx.setEndIndex(s.getEndPage());
-				idx.setTitle(title);
-				idx.setBody(nullToEmpty(s.getContentSummaryMd()));
-				newIndexes.add(idx);
-			}
-
-			// バルクINSERT（リストが空なら何もしない）
-			if (!newIndexes.isEmpty()) {
-				noteIndexMapper.insertBatch(newIndexes);
+				newIndexes.add(toNoteIndex(noteId, idxNo++, s));
 			}
+			noteIndexService.syncSections(noteId, newIndexes);
 		}
 
 		// 3) ページ本文 → note_pages.extracted_text をバルクUPDATE
-		if (req.getPageDetails() != null && !req.getPageDetails().isEmpty()) {
+		if (applyPages && req.getPageDetails() != null && !req.getPageDetails().isEmpty()) {
 			List<NotePage> pages = notePageMapper.findByNoteId(noteId);
 			Map<Integer, Long> pageNoToId = pages.stream()
 					.sorted(Comparator.comparing(NotePage::getPageNumber))
@@ -337,9 +531,7 @@ public class UploadFacadeService {
 				updates.put(pageId, text);
 			}
 
-			if (!updates.isEmpty()) {
-				notePageMapper.updateExtractedTextBatch(updates);
-			}
+			noteBulkWriter.updatePageTexts(updates);
 		}
 
 		// 4) メタはログのみ
@@ -349,24 +541,31 @@ public class UploadFacadeService {
 		}
 		if (req.getRawJson() != null)
 			log.debug("AI rawJson size: {}", req.getRawJson().length());
+
+		// ナビゲーションの版の行ロックを短くするため、変更の記録は最後に行う
+		if (summaryUpdated) {
+			eventPublisher.publishEvent(NavChangedEvent.note(note.getUserId(), noteId, null, false));
+		}
 		log.info("applyAiResult finished. noteId={}", noteId);
 	}
 
 	// ===== utils =====
 
-	private static String joinEmbeddedText(List<PageData> pages) {
-		if (pages == null || pages.isEmpty())
-			return "";
+	/** AI の目次1件を note_index の行に変換する（タイトルは12文字まで） */
+	private static NoteIndex toNoteIndex(Long noteId, int indexNumber, AiSectionDto s) {
+		String title = nullToEmpty(s.getTitle());
+		if (title.codePointCount(0, title.length()) > 12) {
+			title = title.substring(0, title.offsetByCodePoints(0, 12));
+		}
 
-		return pages.stream()
-				.sorted(java.util.Comparator.comparingInt(PageData::getPageNumber))
-				.map(p -> {
-					String text = (p.getEmbeddedText() == null || p.getEmbeddedText().isBlank())
-							? "(no text)"
-							: p.getEmbeddedText().trim();
-					return "--- Page " + p.getPageNumber() + " ---\n" + text;
-				})
-				.collect(java.util.stream.Collectors.joining("\n\n"));
+		NoteIndex idx = new NoteIndex();
+		idx.setNoteId(noteId);
+		idx.setIndexNumber(indexNumber);
+		idx.setStartIndex(s.getStartPage());
+		idx.setEndIndex(s.getEndPage());
+		idx.setTitle(title);
+		idx.setBody(nullToEmpty(s.getContentSummaryMd()));
+		return idx;
 	}
 
 	private static int len(String s) {
@@ -390,6 +589,7 @@ public class UploadFacadeService {
 		String publicUrl;
 		String gsUri;
 		String embeddedText;
+		int renderDpi;
 	}
 
 	@Value
@@ -1,8 +1,28 @@
 package com.mynote.app.api.service.upload;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.vertexai.VertexAI;
@@ -13,8 +33,14 @@ import com.google.cloud.vertexai.api.Part;
 import com.google.cloud.vertexai.api.Schema;
 import com.google.cloud.vertexai.api.Type;
 import com.google.cloud.vertexai.generativeai.GenerativeModel;
+import com.google.cloud.vertexai.generativeai.ResponseStream;
+import com.mynote.app.api.dto.ai.AiDocumentSummaryDto;
 import com.mynote.app.api.dto.ai.AiIngestRequestDto;
+import com.mynote.app.api.dto.ai.AiPageDetailDto;
+import com.mynote.app.api.dto.ai.AiSectionDto;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 @Service
@@ -22,54 +48,121 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class VertexGeminiService {
 
+  /** OCR テキストのページ区切り（"--- Page N ---"） */
+  private static final Pattern PAGE_MARKER = Pattern.compile("(?m)^--- Page (\\d+) ---$");
+
+  private static final ObjectMapper OM = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
   private final VertexAI vertexAI;
 
   @Value("${gemini.model-id:gemini-2.5-flash}")
   private String defaultModelId;
 
+  /** このページ数を超える文書は map-reduce（ページ窓ごとに並列解析 → 統合）で処理する。0 以下で無効 */
+  @Value("${gemini.map-reduce.threshold-pages:40}")
+  private int mapReduceThresholdPages;
+
+  /** map-reduce の1窓あたりのページ数 */
+  @Value("${gemini.map-reduce.window-pages:20}")
+  private int windowPages;
+
+  /** map フェーズで同時に投げるリクエスト数の上限（全リクエスト合計） */
+  @Value("${gemini.map-reduce.parallelism:4}")
+  private int mapParallelism;
+
+  private ExecutorService executor;
+  private Semaphore mapPermits;
+
+  @PostConstruct
+  void init() {
+    executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("gemini-map-", 0).factory());
+    mapPermits = new Semaphore(Math.max(1, mapParallelism), true);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  /** modelId 未指定時に使うモデル名 */
+  public String getDefaultModelId() { return defaultModelId; }
+
+  /** 出力形式の厳守事項（単一パス／map 共通） */
+  private static final String STRICT_RULES = String.join("\n",
+      "【厳守事項】",
+      "- 出力は必ず純粋なJSONのみ（説明文やコードフェンスは禁止）。",
+      "- すべての本文は Markdown とする（#見出し, 箇条書き, 強調 などを使用可）。",
+      "- セクションタイトル（sections[].title）は12文字以内。句読点のみのタイトルは禁止。",
+      "- ページ解説は用語解説中心で簡潔に。不要なら空文字可。前置き定型は禁止。内容が変わる場合は改行を入れる。"
+  );
+
+  /** 目次・ページ解説の制約と Markdown の書式ルール（単一パス／map 共通） */
+  private static final String FORMAT_RULES = String.join("\n",
+      "【制約】",
+      "- sections[].startPage<=endPage、存在範囲内。",
+      "- pageDetails[].pageNumber は存在範囲内、昇順。",
+      "- 冗長・推測は避け、事実ベースで簡潔に。",
+      "",
+      "【Markdown改行・レイアウト規約（厳守）】",
+      "- 1行=1文（いわゆるセマンティック改行）。句点「。」「！」「？」の直後で改行する。",
+      "- 段落（文のまとまり）の間には「空行1つ」を入れる（空行2連続は禁止）。",
+      "- 見出しの前後には必ず空行1つ（例: 見出しの直後に本文が来るときも空行）。",
+      "- 箇条書きは `- ` を使う（`*` や `・` は禁止）。各項目は1行=1文。小見出し→箇条書きの順。",
+      "- 強調は **太字** のみ。下線/斜体/絵文字/HTMLタグ/`<br>` は禁止。",
+      "- 表は使わない（改行と箇条書きで構造化）。",
+      "- 改行を入れない長文（1行120文字超）は作らない。句点まで待てない場合は読点「、」で分割して改行してよい。"
+  );
+
+  /**
+   * OCR テキストから要約・目次・ページ解説を生成する。
+   * ページ数が {@code gemini.map-reduce.threshold-pages} を超える場合は map-reduce で処理する
+   * （出力トークン上限と長大なレイテンシを避けるため）。どちらでも返す DTO の形は同じ。
+   */
   public AiIngestRequestDto generateIngestPayload(
       Long noteId,
       String ocrText,
       String tocPrompt,
       String pagePrompt,
       String modelId
+  ) {
+    return generateIngestPayload(noteId, ocrText, tocPrompt, pagePrompt, modelId, AiIngestListener.NONE);
+  }
+
+  /**
+   * {@link #generateIngestPayload(Long, String, String, String, String)} のストリーミング版。
+   * 単一パスでは streaming API の応答を Jackson のストリーミングパーサで読み進め、
+   * pageDetails / sections の各要素が閉じた時点で listener に渡す（全体の完了を待たない）。
+   * map-reduce では窓が完了するたびにその窓のページ解説を渡す。
+   * 戻り値は従来どおり全体をまとめた DTO。
+   */
+  public AiIngestRequestDto generateIngestPayload(
+      Long noteId,
+      String ocrText,
+      String tocPrompt,
+      String pagePrompt,
+      String modelId,
+      AiIngestListener listener
   ) {
     final String modelName = (modelId == null || modelId.isBlank()) ? defaultModelId : modelId;
 
-  
-    String sysText = String.join("\n",
-    	    "あなたはドキュメントの要約と目次・ページ別の要点抽出を行うアシスタントです。",
-    	    "",
-    	    "【厳守事項】",
-    	    "- 出力は必ず純粋なJSONのみ（説明文やコードフェンスは禁止）。",
-    	    "- すべての本文は Markdown とする（#見出し, 箇条書き, 強調 などを使用可）。",
-    	    "- セクションタイトル（sections[].title）は12文字以内。句読点のみのタイトルは禁止。",
-    	    "- ページ解説は用語解説中心で簡潔に。不要なら空文字可。前置き定型は禁止。内容が変わる場合は改行を入れる。",
-    	    "",
-    	    "【生成手順】",
-    	    "1) 全ページOCR（`--- Page N ---`区切り）を読み、論理トピックで sections を作る。",
-    	    "2) sections[].startPage/endPage は実在範囲、昇順、重複/過不足なし。",
-    	    "3) pageDetails は存在ページ分を pageNumber 昇順で作る。",
-    	    "",
-    	    "【制約】",
-    	    "- sections[].startPage<=endPage、存在範囲内。",
-    	    "- pageDetails[].pageNumber は存在範囲内、昇順。",
-    	    "- 冗長・推測は避け、事実ベースで簡潔に。",
-    	    "",
-    	    "【Markdown改行・レイアウト規約（厳守）】",
-    	    "- 1行=1文（いわゆるセマンティック改行）。句点「。」「！」「？」の直後で改行する。",
-    	    "- 段落（文のまとまり）の間には「空行1つ」を入れる（空行2連続は禁止）。",
-    	    "- 見出しの前後には必ず空行1つ（例: 見出しの直後に本文が来るときも空行）。",
-    	    "- 箇条書きは `- ` を使う（`*` や `・` は禁止）。各項目は1行=1文。小見出し→箇条書きの順。",
-    	    "- 強調は **太字** のみ。下線/斜体/絵文字/HTMLタグ/`<br>` は禁止。",
-    	    "- 表は使わない（改行と箇条書きで構造化）。",
-    	    "- 改行を入れない長文（1行120文字超）は作らない。句点まで待てない場合は読点「、」で分割して改行してよい。"
-    	);
+    List<PageText> pages = splitPages(ocrText);
+    if (mapReduceThresholdPages > 0 && pages.size() > mapReduceThresholdPages) {
+      return generateMapReduce(noteId, pages, tocPrompt, pagePrompt, modelName, listener);
+    }
 
-    Content systemInstruction = Content.newBuilder()
-        .setRole("system")
-        .addParts(Part.newBuilder().setText(sysText))
-        .build();
+    String sysText = String.join("\n",
+        "あなたはドキュメントの要約と目次・ページ別の要点抽出を行うアシスタントです。",
+        "",
+        STRICT_RULES,
+        "",
+        "【生成手順】",
+        "1) 全ページOCR（`--- Page N ---`区切り）を読み、論理トピックで sections を作る。",
+        "2) sections[].startPage/endPage は実在範囲、昇順、重複/過不足なし。",
+        "3) pageDetails は存在ページ分を pageNumber 昇順で作る。",
+        "",
+        FORMAT_RULES
+    );
 
     // --- User prompt（Markdown一本化）
     String userText =
@@ -78,20 +171,389 @@ public class VertexGeminiService {
         "\n\n【注記】上記方針は必ず反映。本文はすべて Markdown。" +
         "\n\n=== OCR抽出テキスト（全ページ、`--- Page N ---`区切り） ===\n" + nvl(ocrText);
 
-    Content userContent = Content.newBuilder()
+    Schema responseSchema = Schema.newBuilder()
+        .setType(Type.OBJECT)
+        .putProperties("documentSummary", Schema.newBuilder().setType(Type.ARRAY).setItems(documentSummaryItemSchema()).build())
+        .putProperties("sections", Schema.newBuilder().setType(Type.ARRAY).setItems(sectionSchema()).build())
+        .putProperties("pageDetails", Schema.newBuilder().setType(Type.ARRAY).setItems(pageDetailSchema()).build())
+        .putProperties("model", Schema.newBuilder().setType(Type.STRING).build())
+        .putProperties("promptToc", Schema.newBuilder().setType(Type.STRING).build())
+        .putProperties("promptPage", Schema.newBuilder().setType(Type.STRING).build())
+        .putProperties("rawJson", Schema.newBuilder().setType(Type.STRING).build())
+        .addRequired("documentSummary").addRequired("sections").addRequired("pageDetails")
+        // 生成順を固定する（既定はキー名順で documentSummary が先になり、ページの逐次保存が最後まで始まらない）
+        .addAllPropertyOrdering(List.of("pageDetails", "sections", "documentSummary",
+            "model", "promptToc", "promptPage", "rawJson"))
+        .build();
+
+    try {
+      long t0 = System.currentTimeMillis();
+      AiIngestRequestDto dto = new AiIngestRequestDto();
+      List<AiPageDetailDto> details = new ArrayList<>();
+      List<AiSectionDto> sections = new ArrayList<>();
+      StringBuilder raw = new StringBuilder();
+
+      ResponseStream<GenerateContentResponse> stream =
+          model(modelName, sysText, responseSchema).generateContentStream(userContent(userText));
+      try (JsonParser p = OM.getFactory().createParser(new ResponseTextReader(stream.iterator(), raw))) {
+
+        if (p.nextToken() != JsonToken.START_OBJECT)
+          throw new IOException("Gemini response is not a JSON object");
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String field = p.currentName();
+          p.nextToken();
+          switch (field) {
+            case "pageDetails" -> readArray(p, AiPageDetailDto.class, d -> {
+              if (details.isEmpty()) log.info("[AI] first page detail in {}ms", System.currentTimeMillis() - t0);
+              details.add(d);
+              listener.onPageDetail(d);
+            });
+            case "sections" -> readArray(p, AiSectionDto.class, sec -> {
+              sections.add(sec);
+              listener.onSection(sec);
+            });
+            case "documentSummary" -> {
+              List<AiDocumentSummaryDto> summary = new ArrayList<>();
+              readArray(p, AiDocumentSummaryDto.class, summary::add);
+              dto.setDocumentSummary(summary);
+              listener.onDocumentSummary(summary);
+            }
+            default -> p.skipChildren();
+          }
+        }
+      }
+
+      dto.setPageDetails(details);
+      dto.setSections(sections);
+      return withMeta(dto, noteId, modelName, tocPrompt, pagePrompt, raw.toString());
+
+    } catch (Exception e) {
+      log.error("Gemini call/parse failed", e);
+      throw new RuntimeException("Gemini failed: " + e.getMessage(), e);
+    }
+  }
+
+  // =========================
+  // map-reduce
+  // =========================
+
+  /** 1ページ分の OCR テキスト */
+  record PageText(int pageNumber, String text) {}
+
+  /** map フェーズ（1窓）の結果 */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  record WindowResult(String windowSummaryMd, List<AiSectionDto> sections, List<AiPageDetailDto> pageDetails) {}
+
+  /** reduce フェーズの結果 */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  record MergeResult(List<AiDocumentSummaryDto> documentSummary, List<AiSectionDto> sections) {}
+
+  /**
+   * ページ窓ごとに（並列で）局所的な目次・ページ解説を作り、最後に軽量な統合パスで
+   * 文書要約と目次の境界調整を行う。統合パスにはページ本文を渡さず、各窓の要約と局所目次だけを渡す。
+   */
+  private AiIngestRequestDto generateMapReduce(Long noteId, List<PageText> pages,
+      String tocPrompt, String pagePrompt, String modelName, AiIngestListener listener) {
+
+    int size = Math.max(1, windowPages);
+    int firstPage = pages.get(0).pageNumber();
+    int lastPage = pages.get(pages.size() - 1).pageNumber();
+    long t0 = System.currentTimeMillis();
+
+    // --- map
+    List<CompletableFuture<WindowResult>> futures = new ArrayList<>();
+    for (int start = 0; start < pages.size(); start += size) {
+      List<PageText> window = pages.subList(start, Math.min(start + size, pages.size()));
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        WindowResult r = analyzeWindow(window, firstPage, lastPage, tocPrompt, pagePrompt, modelName);
+        // 窓が終わった時点でページ解説を渡す（他の窓の完了を待たない）
+        windowDetails(window, r).forEach(listener::onPageDetail);
+        return r;
+      }, executor));
+    }
+
+    List<WindowResult> windows;
+    try {
+      windows = futures.stream().map(CompletableFuture::join).toList();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      log.error("Gemini map phase failed", cause);
+      throw new RuntimeException("Gemini failed: " + cause.getMessage(), cause);
+    }
+    log.info("[AI] map done windows={} pages={} ({}ms)", windows.size(), pages.size(), System.currentTimeMillis() - t0);
+
+    // ページ解説は各窓の担当範囲のものだけ採用（窓外のページ番号や重複は捨てる）
+    Map<Integer, AiPageDetailDto> details = new LinkedHashMap<>();
+    List<AiSectionDto> localSections = new ArrayList<>();
+    for (int w = 0; w < windows.size(); w++) {
+      List<PageText> window = pages.subList(w * size, Math.min((w + 1) * size, pages.size()));
+      int from = window.get(0).pageNumber();
+      int to = window.get(window.size() - 1).pageNumber();
+      WindowResult r = windows.get(w);
+      for (AiPageDetailDto d : windowDetails(window, r)) {
+        details.putIfAbsent(d.getPageNumber(), d);
+      }
+      if (r.sections() != null) {
+        for (AiSectionDto s : r.sections()) {
+          if (s == null || s.getStartPage() == null || s.getEndPage() == null) continue;
+          localSections.add(clampSection(s, from, to));
+        }
+      }
+    }
+
+    // --- reduce
+    AiIngestRequestDto dto = new AiIngestRequestDto();
+    String raw = null;
+    try {
+      MergeResult merged = mergeWindows(windows, localSections, firstPage, lastPage, tocPrompt, modelName);
+      raw = OM.writeValueAsString(merged);
+      dto.setDocumentSummary(merged.documentSummary());
+      dto.setSections(normalizeSections(merged.sections(), firstPage, lastPage));
+    } catch (Exception e) {
+      // 統合に失敗しても、局所目次とページ解説は使えるのでそのまま返す
+      log.warn("Gemini merge pass failed, using window-local sections: {}", e.toString());
+      dto.setSections(normalizeSections(localSections, firstPage, lastPage));
+    }
+    dto.setPageDetails(details.values().stream()
+        .sorted(Comparator.comparing(AiPageDetailDto::getPageNumber))
+        .toList());
+    if (dto.getSections() != null) dto.getSections().forEach(listener::onSection);
+    if (dto.getDocumentSummary() != null) listener.onDocumentSummary(dto.getDocumentSummary());
+
+    log.info("[AI] map-reduce done pages={} sections={} ({}ms)",
+        pages.size(), dto.getSections() == null ? 0 : dto.getSections().size(), System.currentTimeMillis() - t0);
+    return withMeta(dto, noteId, modelName, tocPrompt, pagePrompt, raw);
+  }
+
+  /** 窓の担当範囲内のページ解説だけを返す（窓外のページ番号や重複は捨てる） */
+  private static List<AiPageDetailDto> windowDetails(List<PageText> window, WindowResult r) {
+    if (r.pageDetails() == null) return List.of();
+    int from = window.get(0).pageNumber();
+    int to = window.get(window.size() - 1).pageNumber();
+    Map<Integer, AiPageDetailDto> byPage = new LinkedHashMap<>();
+    for (AiPageDetailDto d : r.pageDetails()) {
+      if (d == null || d.getPageNumber() == null) continue;
+      if (d.getPageNumber() < from || d.getPageNumber() > to) continue;
+      byPage.putIfAbsent(d.getPageNumber(), d);
+    }
+    return List.copyOf(byPage.values());
+  }
+
+  /** map: 1窓分のページから局所目次・ページ解説・窓の要約を作る */
+  private WindowResult analyzeWindow(List<PageText> window, int firstPage, int lastPage,
+      String tocPrompt, String pagePrompt, String modelName) {
+
+    int from = window.get(0).pageNumber();
+    int to = window.get(window.size() - 1).pageNumber();
+
+    String sysText = String.join("\n",
+        "あなたはドキュメントの目次・ページ別の要点抽出を行うアシスタントです。",
+        "入力は全" + (lastPage - firstPage + 1) + "ページの文書のうち p." + from + "〜p." + to + " の部分です。",
+        "",
+        STRICT_RULES,
+        "",
+        "【生成手順】",
+        "1) 入力ページを読み、論理トピックで sections を作る（p." + from + "〜p." + to + " の範囲内のみ）。",
+        "2) pageDetails は入力ページ分を pageNumber 昇順で作る。",
+        "3) windowSummaryMd にこの範囲の要約を3〜5文で書く（後で文書全体の要約に使う）。",
+        "",
+        FORMAT_RULES
+    );
+
+    StringBuilder body = new StringBuilder();
+    for (PageText p : window) {
+      body.append("--- Page ").append(p.pageNumber()).append(" ---\n").append(p.text()).append("\n\n");
+    }
+    String userText =
+        "追加指示（目次方針）:\n" + nvl(tocPrompt) +
+        "\n\n追加指示（ページ注釈方針）:\n" + nvl(pagePrompt) +
+        "\n\n【注記】上記方針は必ず反映。本文はすべて Markdown。" +
+        "\n\n=== OCR抽出テキスト（p." + from + "〜p." + to + "、`--- Page N ---`区切り） ===\n" + body;
+
+    Schema schema = Schema.newBuilder()
+        .setType(Type.OBJECT)
+        .putProperties("windowSummaryMd", Schema.newBuilder().setType(Type.STRING).build())
+        .putProperties("sections", Schema.newBuilder().setType(Type.ARRAY).setItems(sectionSchema()).build())
+        .putProperties("pageDetails", Schema.newBuilder().setType(Type.ARRAY).setItems(pageDetailSchema()).build())
+        .addRequired("windowSummaryMd").addRequired("sections").addRequired("pageDetails")
+        .build();
+
+    try {
+      mapPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(e);
+    }
+    try {
+      long t0 = System.currentTimeMillis();
+      String raw = callJson(modelName, sysText, userText, schema);
+      WindowResult r = OM.readValue(raw, WindowResult.class);
+      log.debug("[AI] map window p.{}-{} done ({}ms)", from, to, System.currentTimeMillis() - t0);
+      return r;
+    } catch (Exception e) {
+      throw new CompletionException("window p." + from + "-" + to + ": " + e.getMessage(), e);
+    } finally {
+      mapPermits.release();
+    }
+  }
+
+  /** reduce: 各窓の要約と局所目次から、文書要約と全体の目次（窓境界をまたぐセクションの統合）を作る */
+  private MergeResult mergeWindows(List<WindowResult> windows, List<AiSectionDto> localSections,
+      int firstPage, int lastPage, String tocPrompt, String modelName) throws Exception {
+
+    String sysText = String.join("\n",
+        "あなたはドキュメントの要約と目次の統合を行うアシスタントです。",
+        "入力は、文書をページ範囲ごとに分けて解析した「範囲ごとの要約」と「範囲ごとの目次」です。",
+        "",
+        "【厳守事項】",
+        "- 出力は必ず純粋なJSONのみ（説明文やコードフェンスは禁止）。",
+        "- すべての本文は Markdown とする。強調は **太字** のみ、箇条書きは `- `。",
+        "- セクションタイトル（sections[].title）は12文字以内。句読点のみのタイトルは禁止。",
+        "",
+        "【生成手順】",
+        "1) documentSummary に文書全体の要約を書く。",
+        "2) 範囲の境界で分断された同一トピックのセクションは1つにまとめる。",
+        "3) sections[].startPage/endPage は p." + firstPage + "〜p." + lastPage + " の範囲内、昇順、重複/過不足なし。",
+        "4) contentSummaryMd は元のセクション要約をもとに簡潔にまとめ直す。"
+    );
+
+    StringBuilder body = new StringBuilder("=== 範囲ごとの要約 ===\n");
+    for (WindowResult w : windows) {
+      body.append("- ").append(nvl(w.windowSummaryMd()).replace("\n", " ")).append("\n");
+    }
+    body.append("\n=== 範囲ごとの目次（JSON） ===\n").append(OM.writeValueAsString(localSections));
+
+    String userText = "追加指示（目次方針）:\n" + nvl(tocPrompt) + "\n\n" + body;
+
+    Schema schema = Schema.newBuilder()
+        .setType(Type.OBJECT)
+        .putProperties("documentSummary", Schema.newBuilder().setType(Type.ARRAY).setItems(documentSummaryItemSchema()).build())
+        .putProperties("sections", Schema.newBuilder().setType(Type.ARRAY).setItems(sectionSchema()).build())
+        .addRequired("documentSummary").addRequired("sections")
+        .build();
+
+    long t0 = System.currentTimeMillis();
+    String raw = callJson(modelName, sysText, userText, schema);
+    MergeResult r = OM.readValue(raw, MergeResult.class);
+    log.info("[AI] merge pass done localSections={} ({}ms)", localSections.size(), System.currentTimeMillis() - t0);
+    return r;
+  }
+
+  // =========================
+  // 共通
+  // =========================
+
+  /** JSON 出力を指定してモデルを呼び、最初の候補のテキストを返す */
+  private String callJson(String modelName, String sysText, String userText, Schema responseSchema) throws Exception {
+    GenerateContentResponse resp = model(modelName, sysText, responseSchema).generateContent(userContent(userText));
+    return textOf(resp);
+  }
+
+  /** JSON 出力を指定したモデル */
+  private GenerativeModel model(String modelName, String sysText, Schema responseSchema) {
+    Content systemInstruction = Content.newBuilder()
+        .setRole("system")
+        .addParts(Part.newBuilder().setText(sysText))
+        .build();
+
+    GenerationConfig genConfig = GenerationConfig.newBuilder()
+        .setResponseMimeType("application/json")
+        .setResponseSchema(responseSchema)
+        .build();
+
+    return new GenerativeModel(modelName, vertexAI)
+        .withSystemInstruction(systemInstruction)
+        .withGenerationConfig(genConfig);
+  }
+
+  private static Content userContent(String userText) {
+    return Content.newBuilder()
         .setRole("user")
         .addParts(Part.newBuilder().setText(userText))
         .build();
+  }
+
+  /** 最初の候補のテキスト（ストリーミングでは各チャンクの差分） */
+  private static String textOf(GenerateContentResponse resp) {
+    if (resp.getCandidatesCount() > 0) {
+      var cand = resp.getCandidates(0);
+      if (cand.hasContent() && cand.getContent().getPartsCount() > 0) {
+        return cand.getContent().getParts(0).getText();
+      }
+    }
+    return "";
+  }
+
+  /** 配列の各要素を読み終えるごとに consumer に渡す（配列でなければ読み飛ばす） */
+  private static <T> void readArray(JsonParser p, Class<T> type, Consumer<T> consumer) throws IOException {
+    if (p.currentToken() != JsonToken.START_ARRAY) {
+      p.skipChildren();
+      return;
+    }
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      if (p.currentToken() == JsonToken.VALUE_NULL) continue;
+      consumer.accept(OM.readValue(p, type));
+    }
+  }
+
+  /**
+   * ストリーミング応答のチャンクを1つの文字ストリームとして読ませる Reader。
+   * パーサが要求した分だけ次のチャンクを待つため、JSON を先頭から順に解釈できる。読んだ内容は raw に控える。
+   */
+  private static final class ResponseTextReader extends Reader {
+    private final Iterator<GenerateContentResponse> chunks;
+    private final StringBuilder raw;
+    private String current = "";
+    private int pos;
+
+    ResponseTextReader(Iterator<GenerateContentResponse> chunks, StringBuilder raw) {
+      this.chunks = chunks;
+      this.raw = raw;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+      if (len == 0) return 0;
+      while (pos >= current.length()) {
+        if (!chunks.hasNext()) return -1;
+        current = textOf(chunks.next());
+        pos = 0;
+        raw.append(current);
+      }
+      int n = Math.min(len, current.length() - pos);
+      current.getChars(pos, pos + n, cbuf, off);
+      pos += n;
+      return n;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
 
-    // --- JSON Schema（*Html → *Md に変更）
-    Schema pageDetailSchema = Schema.newBuilder()
+  private static AiIngestRequestDto withMeta(AiIngestRequestDto dto, Long noteId, String modelName,
+      String tocPrompt, String pagePrompt, String raw) {
+    dto.setNoteId(noteId);
+    dto.setModel(modelName);
+    dto.setPromptToc(tocPrompt);
+    dto.setPromptPage(pagePrompt);
+    dto.setRawJson(raw);
+    return dto;
+  }
+
+  // --- JSON Schema（*Html → *Md に変更）
+  private static Schema pageDetailSchema() {
+    return Schema.newBuilder()
         .setType(Type.OBJECT)
         .putProperties("pageNumber", Schema.newBuilder().setType(Type.INTEGER).build())
         .putProperties("detailedExplanationMd", Schema.newBuilder().setType(Type.STRING).build()) // ★
         .addRequired("pageNumber").addRequired("detailedExplanationMd")
         .build();
+  }
 
-    Schema sectionSchema = Schema.newBuilder()
+  private static Schema sectionSchema() {
+    return Schema.newBuilder()
         .setType(Type.OBJECT)
         .putProperties("title", Schema.newBuilder().setType(Type.STRING).build())
         .putProperties("startPage", Schema.newBuilder().setType(Type.INTEGER).build())
@@ -99,60 +561,56 @@ public class VertexGeminiService {
         .putProperties("contentSummaryMd", Schema.newBuilder().setType(Type.STRING).build()) // ★
         .addRequired("title").addRequired("startPage").addRequired("endPage")
         .build();
+  }
 
-    Schema documentSummaryItemSchema = Schema.newBuilder()
+  private static Schema documentSummaryItemSchema() {
+    return Schema.newBuilder()
         .setType(Type.OBJECT)
         .putProperties("overallSummaryMd", Schema.newBuilder().setType(Type.STRING).build()) // ★
         .addRequired("overallSummaryMd")
         .build();
+  }
 
-    Schema responseSchema = Schema.newBuilder()
-        .setType(Type.OBJECT)
-        .putProperties("documentSummary", Schema.newBuilder().setType(Type.ARRAY).setItems(documentSummaryItemSchema).build())
-        .putProperties("sections", Schema.newBuilder().setType(Type.ARRAY).setItems(sectionSchema).build())
-        .putProperties("pageDetails", Schema.newBuilder().setType(Type.ARRAY).setItems(pageDetailSchema).build())
-        .putProperties("model", Schema.newBuilder().setType(Type.STRING).build())
-        .putProperties("promptToc", Schema.newBuilder().setType(Type.STRING).build())
-        .putProperties("promptPage", Schema.newBuilder().setType(Type.STRING).build())
-        .putProperties("rawJson", Schema.newBuilder().setType(Type.STRING).build())
-        .addRequired("documentSummary").addRequired("sections").addRequired("pageDetails")
-        .build();
-
-    GenerationConfig genConfig = GenerationConfig.newBuilder()
-        .setResponseMimeType("application/json")
-        .setResponseSchema(responseSchema)
-        .build();
-
-    try {
-      GenerativeModel model = new GenerativeModel(modelName, vertexAI)
-          .withSystemInstruction(systemInstruction)
-          .withGenerationConfig(genConfig);
-
-      GenerateContentResponse resp = model.generateContent(userContent);
+  /** "--- Page N ---" 区切りのテキストをページごとに分割する（区切りが無ければ全体を1ページとみなす） */
+  static List<PageText> splitPages(String ocrText) {
+    List<PageText> pages = new ArrayList<>();
+    if (ocrText == null || ocrText.isBlank()) return pages;
 
-      String raw = "";
-      if (resp.getCandidatesCount() > 0) {
-        var cand = resp.getCandidates(0);
-        if (cand.hasContent() && cand.getContent().getPartsCount() > 0) {
-          raw = cand.getContent().getParts(0).getText();
-        }
-      }
-
-      ObjectMapper om = new ObjectMapper()
-          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    Matcher m = PAGE_MARKER.matcher(ocrText);
+    int prevNo = -1;
+    int prevEnd = -1;
+    while (m.find()) {
+      if (prevNo >= 0) pages.add(new PageText(prevNo, ocrText.substring(prevEnd, m.start()).trim()));
+      prevNo = Integer.parseInt(m.group(1));
+      prevEnd = m.end();
+    }
+    if (prevNo >= 0) {
+      pages.add(new PageText(prevNo, ocrText.substring(prevEnd).trim()));
+    } else {
+      pages.add(new PageText(1, ocrText.trim()));
+    }
+    return pages;
+  }
 
-      AiIngestRequestDto dto = om.readValue(raw, AiIngestRequestDto.class);
-      dto.setNoteId(noteId);
-      dto.setModel(modelName);
-      dto.setPromptToc(tocPrompt);
-      dto.setPromptPage(pagePrompt);
-      dto.setRawJson(raw);
-      return dto;
+  private static AiSectionDto clampSection(AiSectionDto s, int from, int to) {
+    AiSectionDto c = new AiSectionDto();
+    c.setTitle(s.getTitle());
+    c.setContentSummaryMd(s.getContentSummaryMd());
+    int start = Math.max(from, Math.min(to, s.getStartPage()));
+    int end = Math.max(start, Math.min(to, s.getEndPage()));
+    c.setStartPage(start);
+    c.setEndPage(end);
+    return c;
+  }
 
-    } catch (Exception e) {
-      log.error("Gemini call/parse failed", e);
-      throw new RuntimeException("Gemini failed: " + e.getMessage(), e);
-    }
+  /** 範囲外・逆転したセクションを丸め、開始ページ順に並べる */
+  private static List<AiSectionDto> normalizeSections(List<AiSectionDto> sections, int firstPage, int lastPage) {
+    if (sections == null) return null;
+    return sections.stream()
+        .filter(s -> s != null && s.getStartPage() != null && s.getEndPage() != null)
+        .map(s -> clampSection(s, firstPage, lastPage))
+        .sorted(Comparator.comparing(AiSectionDto::getStartPage))
+        .toList();
   }
 
   private static String nvl(String s){ return s == null ? "" : s; }
@@ -1,42 +1,57 @@
 package com.mynote.app.api.service.upload;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.google.api.gax.core.FixedCredentialsProvider;
-import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.vision.v1.AnnotateImageRequest;
 import com.google.cloud.vision.v1.AnnotateImageResponse;
 import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
 import com.google.cloud.vision.v1.Feature;
 import com.google.cloud.vision.v1.Image;
 import com.google.cloud.vision.v1.ImageAnnotatorClient;
-import com.google.cloud.vision.v1.ImageAnnotatorSettings;
 import com.google.cloud.vision.v1.ImageSource;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class VisionOcrService {
 
     /** Vision API の1バッチあたり最大リクエスト数 */
     private static final int VISION_BATCH_LIMIT = 16;
 
-    private final GoogleCredentials googleCredentials;
+    /** アプリ全体で共有するクライアント（FirebaseConfig で生成、チャネルを使い回す） */
+    private final ImageAnnotatorClient imageAnnotatorClient;
 
-    public VisionOcrService(@Qualifier("firebaseCredentials") GoogleCredentials googleCredentials) {
-        this.googleCredentials = googleCredentials;
+    /** 同時に送信するバッチ数の上限（全リクエスト合計） */
+    @Value("${vision.max-concurrent-batches:4}")
+    private int maxConcurrentBatches;
+
+    private ExecutorService executor;
+    private Semaphore batchPermits;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vision-ocr-", 0).factory());
+        batchPermits = new Semaphore(Math.max(1, maxConcurrentBatches), true);
     }
 
-    private ImageAnnotatorSettings buildSettings() throws IOException {
-        return ImageAnnotatorSettings.newBuilder()
-                .setCredentialsProvider(FixedCredentialsProvider.create(googleCredentials))
-                .build();
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
     }
 
     private static String formatPageBlock(int pageNo, String text) {
@@ -46,7 +61,7 @@ public class VisionOcrService {
 
     /**
      * gs:// URI 群を【1回または少数のバッチ】でまとめてOCRし、ページ見出し付きで連結して返す。
-     * Vision API の上限（16件/バッチ）を超える場合は自動的に分割して順次送信する。
+     * Vision API の上限（16件/バッチ）を超える場合は分割し、{@code vision.max-concurrent-batches} を上限に並列送信する。
      */
     public String ocrTextFromGsUris(List<String> gsUris) {
         if (gsUris == null || gsUris.isEmpty()) return "";
@@ -57,43 +72,73 @@ public class VisionOcrService {
                 .toList();
         if (validUris.isEmpty()) return "";
 
+        List<String> texts = ocrTexts(validUris);
+
         StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < texts.size(); i++) {
+            sb.append(formatPageBlock(i + 1, texts.get(i))).append("\n\n");
+        }
+        return sb.toString().trim();
+    }
 
-        try (ImageAnnotatorClient client = ImageAnnotatorClient.create(buildSettings())) {
-
-            // VISION_BATCH_LIMIT 件ごとに分割してバッチ送信
-            int pageOffset = 1; // ページ番号カウンタ
-            for (int start = 0; start < validUris.size(); start += VISION_BATCH_LIMIT) {
-                int end = Math.min(start + VISION_BATCH_LIMIT, validUris.size());
-                List<String> chunk = validUris.subList(start, end);
-
-                // バッチリクエスト構築
-                List<AnnotateImageRequest> reqs = new ArrayList<>(chunk.size());
-                for (String gs : chunk) {
-                    ImageSource src = ImageSource.newBuilder().setGcsImageUri(gs).build();
-                    Image img = Image.newBuilder().setSource(src).build();
-                    Feature feat = Feature.newBuilder()
-                            .setType(Feature.Type.DOCUMENT_TEXT_DETECTION)
-                            .build();
-                    reqs.add(AnnotateImageRequest.newBuilder()
-                            .setImage(img)
-                            .addFeatures(feat)
-                            .build());
-                }
+    /**
+     * gs:// URI ごとの OCR テキストを、入力と同じ順序で返す（文字が無いページは null）。
+     * バッチは並列に送信し、結果はバッチ位置に書き戻すことで順序を保つ。
+     */
+    public List<String> ocrTexts(List<String> gsUris) {
+        String[] texts = new String[gsUris.size()];
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+
+        for (int start = 0; start < gsUris.size(); start += VISION_BATCH_LIMIT) {
+            int from = start;
+            int to = Math.min(start + VISION_BATCH_LIMIT, gsUris.size());
+            batches.add(CompletableFuture.runAsync(() -> annotateBatch(gsUris, from, to, texts), executor));
+        }
 
-                log.debug("[OCR] sending batch pages={}-{} ({}件)", pageOffset, pageOffset + chunk.size() - 1, chunk.size());
-                BatchAnnotateImagesResponse resp = client.batchAnnotateImages(reqs);
+        try {
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("OCR failed: " + cause.getMessage(), cause);
+        }
+        return Arrays.asList(texts);
+    }
+
+    /** gsUris[from, to) を1バッチで送信し、結果を texts の同じ位置に格納する */
+    private void annotateBatch(List<String> gsUris, int from, int to, String[] texts) {
+        List<AnnotateImageRequest> reqs = new ArrayList<>(to - from);
+        for (String gs : gsUris.subList(from, to)) {
+            ImageSource src = ImageSource.newBuilder().setGcsImageUri(gs).build();
+            Image img = Image.newBuilder().setSource(src).build();
+            Feature feat = Feature.newBuilder()
+                    .setType(Feature.Type.DOCUMENT_TEXT_DETECTION)
+                    .build();
+            reqs.add(AnnotateImageRequest.newBuilder()
+                    .setImage(img)
+                    .addFeatures(feat)
+                    .build());
+        }
 
-                for (AnnotateImageResponse r : resp.getResponsesList()) {
-                    String text = r.hasFullTextAnnotation() ? r.getFullTextAnnotation().getText() : null;
-                    sb.append(formatPageBlock(pageOffset++, text)).append("\n\n");
+        try {
+            batchPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        try {
+            log.debug("[OCR] sending batch pages={}-{} ({}件)", from + 1, to, reqs.size());
+            BatchAnnotateImagesResponse resp = imageAnnotatorClient.batchAnnotateImages(reqs);
+
+            List<AnnotateImageResponse> results = resp.getResponsesList();
+            for (int i = 0; i < results.size() && from + i < to; i++) {
+                AnnotateImageResponse r = results.get(i);
+                if (r.hasError()) {
+                    log.warn("[OCR] page={} error: {}", from + i + 1, r.getError().getMessage());
                 }
+                texts[from + i] = r.hasFullTextAnnotation() ? r.getFullTextAnnotation().getText() : null;
             }
-
-        } catch (Exception e) {
-            throw new RuntimeException("OCR failed: " + e.getMessage(), e);
+        } finally {
+            batchPermits.release();
         }
-
-        return sb.toString().trim();
     }
 }
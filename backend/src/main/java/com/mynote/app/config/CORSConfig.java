@@ -5,9 +5,11 @@ import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.mynote.app.filter.AuthFilter;
+import com.mynote.app.filter.UploadAdmissionInterceptor;
 
 import lombok.RequiredArgsConstructor;
 
@@ -19,6 +21,7 @@ public class CORSConfig implements WebMvcConfigurer {
 	private String allowedOrigins;
 
 	private final AuthFilter authFilter;
+	private final UploadAdmissionInterceptor uploadAdmissionInterceptor;
 
 	@Override
 	public void addCorsMappings(CorsRegistry registry) {
@@ -26,9 +29,16 @@ public class CORSConfig implements WebMvcConfigurer {
 				.allowedOrigins(allowedOrigins.split(","))
 				.allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
 				.allowedHeaders("*")
-				.exposedHeaders("Authorization", "Content-Disposition")
+				.exposedHeaders("Authorization", "Content-Disposition", "Retry-After")
 				.allowCredentials(true)
 				.maxAge(3600);
 	}
 
+	/** PDF アップロードは本文を受信する前に受け入れ判定する（混雑時は 429） */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(uploadAdmissionInterceptor)
+				.addPathPatterns("/api/notes/upload/process-stream");
+	}
+
 }
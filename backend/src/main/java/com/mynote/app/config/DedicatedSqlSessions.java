@@ -0,0 +1,101 @@
+package com.mynote.app.config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.boot.autoconfigure.MybatisProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 特定の用途だけに使う接続プールと、そのプール用の SqlSessionFactory・トランザクションマネージャー。
+ *
+ * <p>ドライバの接続プロパティ（{@code rewriteBatchedStatements} / {@code allowMultiQueries} など）を
+ * 全 Mapper に効かせたくないときに、既定のデータソースと同じ接続先・認証情報で別のプールを作る。
+ * Mapper XML と MyBatis の設定（{@code mybatis.*}）は既定の SqlSessionFactory と同じものを読む。
+ * そのプールでしか実行できない SQL（複数文など）は {@code mybatis.mapper-locations} の外に置き、作成時に追加で読み込む。
+ *
+ * <p>Bean にはしない（DataSource / SqlSessionFactory の Bean が増えると、自動設定が既定のものを作らなくなるため）。
+ * 作った側が {@link #close()} すること。このプールのトランザクションは既定のトランザクションとは別物で、
+ * 呼び出し元のトランザクションには参加しない。
+ */
+public final class DedicatedSqlSessions implements AutoCloseable {
+
+	private final HikariDataSource dataSource;
+	private final SqlSessionFactory sqlSessionFactory;
+	private final DataSourceTransactionManager transactionManager;
+
+	private DedicatedSqlSessions(HikariDataSource dataSource, SqlSessionFactory sqlSessionFactory) {
+		this.dataSource = dataSource;
+		this.sqlSessionFactory = sqlSessionFactory;
+		this.transactionManager = new DataSourceTransactionManager(dataSource);
+	}
+
+	/**
+	 * @param poolName         プール名（ログ・メトリクスに出る）
+	 * @param maxPoolSize      最大接続数
+	 * @param driverProperties このプールだけに設定するドライバの接続プロパティ
+	 */
+	public static DedicatedSqlSessions create(String poolName, int maxPoolSize, Map<String, String> driverProperties,
+			DataSourceProperties dataSourceProperties, MybatisProperties mybatisProperties) {
+		return create(poolName, maxPoolSize, driverProperties, null, dataSourceProperties, mybatisProperties);
+	}
+
+	/**
+	 * @param extraMapperLocations 既定の Mapper XML に加えて、このプールにだけ読み込む Mapper XML（パターン可、null 可）
+	 */
+	public static DedicatedSqlSessions create(String poolName, int maxPoolSize, Map<String, String> driverProperties,
+			String extraMapperLocations, DataSourceProperties dataSourceProperties, MybatisProperties mybatisProperties) {
+		HikariDataSource ds = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		ds.setPoolName(poolName);
+		ds.setMaximumPoolSize(Math.max(1, maxPoolSize));
+		ds.setMinimumIdle(0);
+		driverProperties.forEach(ds::addDataSourceProperty);
+
+		try {
+			Configuration configuration = new Configuration();
+			if (mybatisProperties.getConfiguration() != null) {
+				mybatisProperties.getConfiguration().applyTo(configuration);
+			}
+			SqlSessionFactoryBean factory = new SqlSessionFactoryBean();
+			factory.setDataSource(ds);
+			factory.setConfiguration(configuration);
+			factory.setMapperLocations(mapperLocations(mybatisProperties, extraMapperLocations));
+			if (mybatisProperties.getTypeAliasesPackage() != null) {
+				factory.setTypeAliasesPackage(mybatisProperties.getTypeAliasesPackage());
+			}
+			return new DedicatedSqlSessions(ds, factory.getObject());
+		} catch (Exception e) {
+			ds.close();
+			throw new IllegalStateException("SqlSessionFactory for pool " + poolName + " could not be built", e);
+		}
+	}
+
+	private static Resource[] mapperLocations(MybatisProperties mybatisProperties, String extra) throws IOException {
+		Resource[] defaults = mybatisProperties.resolveMapperLocations();
+		if (extra == null) return defaults;
+		Resource[] added = new PathMatchingResourcePatternResolver().getResources(extra);
+		return Stream.concat(Stream.of(defaults), Stream.of(added)).toArray(Resource[]::new);
+	}
+
+	public SqlSessionFactory sqlSessionFactory() {
+		return sqlSessionFactory;
+	}
+
+	public DataSourceTransactionManager transactionManager() {
+		return transactionManager;
+	}
+
+	@Override
+	public void close() {
+		dataSource.close();
+	}
+}
@@ -12,9 +12,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 
+import com.google.api.gax.core.FixedCredentialsProvider;
+import com.google.api.gax.grpc.ChannelPoolSettings;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.cloud.vision.v1.ImageAnnotatorSettings;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 
@@ -59,6 +64,25 @@ public class FirebaseConfig {
     return StorageOptions.newBuilder().setCredentials(firebaseCredentials).build().getService();
   }
 
+  /**
+   * Vision API クライアント（アプリ全体で1つを共有し、gRPC チャネルを使い回す）。
+   * チャネル数は vision.channel-pool-size で固定する（並列バッチ送信時のストリーム多重化の上限対策）。
+   */
+  @Bean(destroyMethod = "close")
+  public ImageAnnotatorClient imageAnnotatorClient(
+      GoogleCredentials firebaseCredentials,
+      @Value("${vision.channel-pool-size:2}") int channelPoolSize) throws Exception {
+    InstantiatingGrpcChannelProvider channelProvider =
+        ImageAnnotatorSettings.defaultGrpcTransportProviderBuilder()
+            .setChannelPoolSettings(ChannelPoolSettings.staticallySized(Math.max(1, channelPoolSize)))
+            .build();
+    ImageAnnotatorSettings settings = ImageAnnotatorSettings.newBuilder()
+        .setCredentialsProvider(FixedCredentialsProvider.create(firebaseCredentials))
+        .setTransportChannelProvider(channelProvider)
+        .build();
+    return ImageAnnotatorClient.create(settings);
+  }
+
   /** 起動時に ADC を環境変数へセット（VertexAI 2 引数コンストラクタ用） */
   @PostConstruct
   public void setupAdcForVertex() throws Exception {
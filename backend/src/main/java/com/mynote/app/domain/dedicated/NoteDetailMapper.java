@@ -0,0 +1,22 @@
+package com.mynote.app.domain.dedicated;
+
+import org.apache.ibatis.annotations.Param;
+
+import com.mynote.app.api.dto.note.NoteByUserSeqNoResponseDto;
+
+/**
+ * ノート詳細の1往復取得（複数結果セット）用 Mapper。
+ * 接続に {@code allowMultiQueries=true} が必要なため、既定の SqlSessionFactory には登録しない。
+ * そのため {@code @MapperScan} の対象（{@code com.mynote.app.domain.mapper}）の外に置き、
+ * XML も {@code mybatis.mapper-locations} の外（{@code mybatis-dedicated/}）に置いている。
+ * {@link com.mynote.app.api.service.note.NoteDetailReader} の専用プールだけが読み込む。
+ */
+public interface NoteDetailMapper {
+
+    /**
+     * ノート詳細（ノート・ページ・目次）をユーザー別連番で1往復で取得する（複数結果セット）。
+     * 使用箇所: ノート詳細表示 G03-3。該当ノートが無ければ null。
+     * ページ・目次が無い場合、そのリストは null のままになる。
+     */
+    NoteByUserSeqNoResponseDto findDetailByUserAndSeq(@Param("userId") Long userId, @Param("userSeqNo") Integer userSeqNo);
+}
@@ -0,0 +1,28 @@
+package com.mynote.app.domain.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * 取り込み結果の指紋（同一 PDF・同一設定の再取り込みを省略するためのキャッシュ）。
+ * インサート時は id, hitCount, createdAt, lastHitAt は null でよい。
+ */
+@Data
+public class IngestFingerprint {
+	private Long id;
+	private Long userId;
+	private String fingerprint;
+	private String pdfSha256;
+	private String mode;
+	private String model;
+	private String dpiPolicy;
+	private Long sourceNoteId;
+	private Integer pageCount;
+	private String pagesJson;
+	private String ocrText;
+	private String aiResultJson;
+	private Integer hitCount;
+	private LocalDateTime createdAt;
+	private LocalDateTime lastHitAt;
+}
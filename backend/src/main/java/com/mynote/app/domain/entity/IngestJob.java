@@ -0,0 +1,48 @@
+package com.mynote.app.domain.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * PDF 取り込みジョブ（永続キュー）。
+ * stage は最後に完了した段階（未着手は null）。再開時はその次の段階から処理する。
+ * pdfSha256 は登録時に計算した PDF の内容ハッシュ（取り込みキャッシュの指紋に使う。キャッシュ無効時は null）。
+ * 再計算が高くつく途中成果物（ページ一覧・OCR テキスト・AI 結果）は pagesJson / ocrText / aiResultJson に保持する。
+ * priority（0 = 小さい文書）と virtualStart / virtualFinish（ユーザー単位の仮想時刻）は取り出し順の決定に使う。
+ */
+@Data
+public class IngestJob {
+	private Long id;
+	private Long userId;
+	private Long categoryId;
+	private Long noteId;
+	private String title;
+	private String originalFilename;
+	private String spoolPath;
+	private String pdfSha256;
+	private String mode;
+	private String tocPrompt;
+	private String pagePrompt;
+	private Integer pageEstimate;
+	private Integer priority;
+	private Double virtualStart;
+	private Double virtualFinish;
+	private String status;
+	private String stage;
+	private Integer attempts;
+	private String lockedBy;
+	private LocalDateTime heartbeatAt;
+	/** 失敗後の再試行を待つジョブは、この時刻まで取り出さない */
+	private LocalDateTime retryAt;
+	private String pagesJson;
+	private String ocrText;
+	/** OCR したページ数（0 = 埋め込みテキストだけで OCR を省略した）。再開時の進捗通知に使う */
+	private Integer ocrPages;
+	private String aiResultJson;
+	private String lastError;
+	private LocalDateTime createdAt;
+	private LocalDateTime updatedAt;
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.mynote.app.domain.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * 取り込みジョブの進捗イベント（ノード間の受け渡し用）。
+ * payload は ProcessStatusEvent の JSON。id はイベントID（SSE の id / Last-Event-ID）としてそのまま使う。
+ * settled は取得時に計算する列で、登録から十分に時間が経ち、これより小さい id の行が後から現れないとみなせるか。
+ */
+@Data
+public class IngestJobEvent {
+	private Long id;
+	private Long jobId;
+	private Long userId;
+	private String payload;
+	private LocalDateTime createdAt;
+	private boolean settled;
+}
@@ -0,0 +1,22 @@
+package com.mynote.app.domain.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * ナビゲーションの変更履歴（nav_changes）。カテゴリ・ノート1件につき最新の変更1行だけを持つ。
+ * entityType は CATEGORY / NOTE。deleted = true は削除の記録（一定時間後に compacted_version とともに消える）。
+ */
+@Data
+public class NavChange {
+	public static final String CATEGORY = "CATEGORY";
+	public static final String NOTE = "NOTE";
+
+	private Long userId;
+	private String entityType;
+	private Long entityId;
+	private long version;
+	private boolean deleted;
+	private LocalDateTime changedAt;
+}
@@ -0,0 +1,15 @@
+package com.mynote.app.domain.entity;
+
+import lombok.Data;
+
+/**
+ * ユーザーごとのナビゲーションの版（nav_versions）。
+ * version はカテゴリ・ノートが変わるたびに1つ進む。
+ * compactedVersion 以下の削除記録は消えている可能性があるため、それより前からの差分は返せない。
+ */
+@Data
+public class NavVersion {
+	private Long userId;
+	private long version;
+	private long compactedVersion;
+}
@@ -11,4 +11,8 @@ public class NoteIndex {
 	private Integer endIndex;
 	private String title;
 	private String body;
+	/** ユーザーがタイトルを編集済み（AI の再解析では上書きしない） */
+	private boolean titleEdited;
+	/** ユーザーが本文を編集済み（AI の再解析では上書きしない） */
+	private boolean bodyEdited;
 }
\ No newline at end of file
@@ -10,4 +10,5 @@ public class NotePage {
 	private String firebasePublicUrl;
 	private String firebaseAdminPath;
 	private String extractedText;
+	private Integer renderDpi;
 }
\ No newline at end of file
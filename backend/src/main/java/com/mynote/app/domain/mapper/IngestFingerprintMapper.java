@@ -0,0 +1,46 @@
+package com.mynote.app.domain.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.mynote.app.domain.entity.IngestFingerprint;
+
+/**
+ * ingest_fingerprints テーブル用 Mapper。
+ * 同一 PDF（内容ハッシュ）・同一設定の再取り込み時に、既存の成果物を再利用するためのキャッシュを扱う。
+ */
+@Mapper
+public interface IngestFingerprintMapper {
+
+    /**
+     * 指紋を登録する。同じ (user_id, fingerprint) が既にあれば最新の取り込み結果で上書きする。
+     *
+     * @param f 登録対象
+     * @return 影響件数
+     */
+    int upsert(IngestFingerprint f);
+
+    /**
+     * ユーザーと指紋で検索する。
+     *
+     * @return 見つからなければ null
+     */
+    IngestFingerprint findByUserAndFingerprint(@Param("userId") Long userId,
+                                               @Param("fingerprint") String fingerprint);
+
+    /**
+     * ヒット回数と最終ヒット日時を更新する。
+     */
+    int markHit(@Param("id") Long id);
+
+    /**
+     * 指紋を削除する（再利用に失敗した＝元の成果物が失われていた場合など）。
+     */
+    int delete(@Param("id") Long id);
+
+    /** 登録件数 */
+    long countAll();
+
+    /** 累計ヒット回数（hit_count の合計） */
+    long sumHitCount();
+}
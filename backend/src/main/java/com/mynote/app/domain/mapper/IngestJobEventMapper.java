@@ -0,0 +1,42 @@
+package com.mynote.app.domain.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.mynote.app.domain.entity.IngestJobEvent;
+
+/**
+ * ingest_job_events テーブル用 Mapper。
+ * 取り込みジョブの進捗イベントを、SSE 接続を持つノードへ受け渡す。
+ */
+@Mapper
+public interface IngestJobEventMapper {
+
+    /**
+     * イベントを登録する。
+     *
+     * @param event 登録対象（id は自動採番で詰め直される）
+     * @return 影響件数
+     */
+    int insert(IngestJobEvent event);
+
+    /**
+     * afterId より後のイベントを id 順に取得する。
+     *
+     * @param settleMillis 登録からこのミリ秒以上経った行を settled = true とする
+     */
+    List<IngestJobEvent> findAfter(@Param("afterId") long afterId,
+            @Param("settleMillis") long settleMillis,
+            @Param("limit") int limit);
+
+    /** ジョブのイベントのうち afterId より後のものを id 順に取得する（再接続時の再送用） */
+    List<IngestJobEvent> findByJobAfter(@Param("jobId") Long jobId, @Param("afterId") long afterId);
+
+    /** 最大のイベントID（無ければ 0） */
+    long maxId();
+
+    /** 登録から指定秒数を過ぎたイベントを削除する */
+    int deleteOlderThan(@Param("seconds") long seconds);
+}
@@ -0,0 +1,152 @@
+package com.mynote.app.domain.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.mynote.app.domain.entity.IngestJob;
+
+/**
+ * ingest_jobs テーブル用 Mapper。
+ * PDF 取り込みの永続キューと、段階ごとのチェックポイントを扱う。
+ */
+@Mapper
+public interface IngestJobMapper {
+
+    /**
+     * ジョブを登録する（status = QUEUED）。
+     *
+     * @param job 登録対象（id は自動採番で詰め直される）
+     * @return 影響件数
+     */
+    int insert(IngestJob job);
+
+    /**
+     * ID で取得する。
+     *
+     * @return 見つからなければ null
+     */
+    IngestJob findById(@Param("id") Long id);
+
+    /**
+     * 次に処理するジョブを1件ロックして ID を返す。
+     * 対象は QUEUED、または RUNNING のままハートビートが途絶えたもの（処理中のノードが落ちた）。
+     * {@code FOR UPDATE SKIP LOCKED} のため、他のワーカーがロック中の行は飛ばす。トランザクション内で呼ぶこと。
+     * 実行中のジョブが perUserLimit 件に達しているユーザーのジョブは対象外。
+     * ただし件数は RUNNING 行をロックせずに数えるため、同時に確保したワーカー同士は互いの確保が見えず、
+     * 一時的に perUserLimit を超えることがある（最善努力の上限）。
+     * 取り出し順は 中断ジョブ → 優先枠（小さい文書・長く待った文書）→ 仮想開始時刻。
+     *
+     * @param staleSeconds ハートビートがこの秒数より古い RUNNING を回収対象とする
+     * @param maxAttempts  試行回数がこれ未満のものだけを対象とする
+     * @param perUserLimit ユーザーごとの同時実行数の上限
+     * @param agingSeconds この秒数以上待ったジョブは優先枠として扱う（大きい文書の飢餓を防ぐ）
+     * @return 対象が無ければ null
+     */
+    Long lockNext(@Param("staleSeconds") int staleSeconds,
+                  @Param("maxAttempts") int maxAttempts,
+                  @Param("perUserLimit") int perUserLimit,
+                  @Param("agingSeconds") int agingSeconds);
+
+    /**
+     * システムの仮想時刻（重み付き公平キューイングの開始タグの基準）。
+     */
+    double currentVirtualTime();
+
+    /**
+     * ユーザーの待ち・実行中ジョブの最大終了タグ（無ければ 0）。
+     */
+    double lastVirtualFinish(@Param("userId") Long userId);
+
+    /** 指定ジョブより先に取り出される待ちジョブの件数（概算） */
+    long countAhead(@Param("id") Long id);
+
+    /** 指定ジョブより先に取り出される待ちジョブの推定ページ数の合計（概算） */
+    long sumPagesAhead(@Param("id") Long id);
+
+    /**
+     * 直近の完了ジョブから求めた1ページあたりの処理秒数。
+     *
+     * @return 履歴が無ければ null
+     */
+    Double recentSecondsPerPage(@Param("sampleSize") int sampleSize);
+
+    /**
+     * ロックしたジョブを RUNNING にし、担当ノードと試行回数を更新する。
+     */
+    int markRunning(@Param("id") Long id, @Param("owner") String owner);
+
+    /**
+     * 担当ノードが実行中のジョブのハートビートを更新する。
+     *
+     * @return 更新件数
+     */
+    int heartbeat(@Param("owner") String owner);
+
+    /**
+     * 試行回数を使い切ったままハートビートが途絶えたジョブを取得する（FAILED にして片付ける対象）。
+     */
+    List<IngestJob> findExhausted(@Param("staleSeconds") int staleSeconds, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 作成したノートの ID を記録する。
+     *
+     * @param owner 担当ノード（locked_by が一致しなければ更新しない）
+     * @return 更新件数（0 = 担当を失った）
+     */
+    int attachNote(@Param("id") Long id, @Param("owner") String owner, @Param("noteId") Long noteId);
+
+    /**
+     * 段階の完了を記録する。途中成果物は null 以外のものだけ更新する。
+     *
+     * @param owner 担当ノード（locked_by が一致しなければ更新しない）
+     * @return 更新件数（0 = 担当を失った）
+     */
+    int checkpoint(@Param("id") Long id,
+                   @Param("owner") String owner,
+                   @Param("stage") String stage,
+                   @Param("pagesJson") String pagesJson,
+                   @Param("ocrText") String ocrText,
+                   @Param("aiResultJson") String aiResultJson);
+
+    /**
+     * OCR_DONE の完了を、AI に渡すテキストと OCR したページ数とともに記録する。
+     *
+     * @param owner 担当ノード（locked_by が一致しなければ更新しない）
+     * @return 更新件数（0 = 担当を失った）
+     */
+    int checkpointOcr(@Param("id") Long id, @Param("owner") String owner,
+                      @Param("ocrText") String ocrText, @Param("ocrPages") int ocrPages);
+
+    /**
+     * 失敗したジョブを QUEUED に戻し、delaySeconds 秒後まで取り出さないようにする。
+     * 完了した段階と途中成果物は残す（次の試行はその続きから）。
+     *
+     * @param owner 担当ノード（locked_by が一致しなければ更新しない）
+     * @return 更新件数（0 = 担当を失った）
+     */
+    int requeue(@Param("id") Long id, @Param("owner") String owner,
+                @Param("delaySeconds") long delaySeconds, @Param("lastError") String lastError);
+
+    /**
+     * ジョブを終了させる（DONE / FAILED）。途中成果物は不要になるため消す。
+     *
+     * @param owner 担当ノード（locked_by が一致しなければ更新しない）
+     * @return 更新件数（0 = 担当を失った）
+     */
+    int finish(@Param("id") Long id, @Param("owner") String owner,
+               @Param("status") String status, @Param("lastError") String lastError);
+
+    /** 指定状態のジョブ数 */
+    long countByStatus(@Param("status") String status);
+
+    /** 待ちジョブの推定ページ数の合計 */
+    long sumQueuedPages();
+
+    /** 実行中ジョブの推定ページ数の合計（途中まで進んでいても全ページ分として数える） */
+    long sumRunningPages();
+
+    /** ユーザーの待ち・実行中ジョブ数 */
+    long countActiveByUser(@Param("userId") Long userId);
+}
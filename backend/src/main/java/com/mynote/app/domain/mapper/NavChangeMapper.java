@@ -0,0 +1,69 @@
+package com.mynote.app.domain.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.mynote.app.api.dto.nav.CategoryNavDto;
+import com.mynote.app.api.dto.nav.NoteNavDto;
+import com.mynote.app.domain.entity.NavChange;
+import com.mynote.app.domain.entity.NavVersion;
+
+/**
+ * nav_versions / nav_changes テーブル用 Mapper。
+ * ユーザーごとのナビゲーションの版と、カテゴリ・ノートの変更履歴（1件につき最新1行）を持つ。
+ * {@link #advanceVersion} と {@link #lastInsertId} は同じ接続（同じトランザクション）で呼ぶこと。
+ */
+@Mapper
+public interface NavChangeMapper {
+
+    /**
+     * 版を1つ進める（行ロックはトランザクション終了まで残るため、同じユーザーの版はコミット順に並ぶ）。
+     * 進めた後の値は {@link #lastInsertId} で取得する。
+     *
+     * @return 更新件数（行が無ければ 0）
+     */
+    int advanceVersion(@Param("userId") Long userId);
+
+    /**
+     * ユーザーの行が無ければ版 0 で作成する（ユーザーが削除済みなら何もしない）。
+     *
+     * @return 影響件数
+     */
+    int initVersion(@Param("userId") Long userId);
+
+    /** この接続で直前に {@link #advanceVersion} が設定した値 */
+    long lastInsertId();
+
+    /**
+     * 変更を記録する（同じカテゴリ・ノートの行は版と削除フラグを上書き）。
+     *
+     * @return 影響件数
+     */
+    int upsertChanges(@Param("changes") List<NavChange> changes);
+
+    /** ユーザーの版（行が無ければ null） */
+    NavVersion findVersion(@Param("userId") Long userId);
+
+    /** since より後に作成・更新され、今も存在するカテゴリ（表示順） */
+    List<CategoryNavDto> findCategoryUpsertsSince(@Param("userId") Long userId, @Param("since") long since);
+
+    /** since より後に作成・更新され、今も存在するノート（表示順） */
+    List<NoteNavDto> findNoteUpsertsSince(@Param("userId") Long userId, @Param("since") long since);
+
+    /** since より後に削除された ID */
+    List<Long> findDeletedIdsSince(@Param("userId") Long userId,
+            @Param("entityType") String entityType,
+            @Param("since") long since);
+
+    /**
+     * 削除から指定秒数を過ぎた記録の最大の版まで compacted_version を進める。
+     *
+     * @return 更新したユーザー数
+     */
+    int advanceCompactedVersion(@Param("seconds") long seconds);
+
+    /** compacted_version 以下の削除記録を消す */
+    int deleteCompacted();
+}
@@ -24,7 +24,7 @@ public interface NoteIndexMapper {
     int insert(NoteIndex idx);
 
     /**
-     * 目次タイトルのみを更新する。
+     * 目次タイトルのみを更新する（ユーザーの編集。以後 AI の再解析ではタイトルを上書きしない）。
      *
      * @param id 更新対象の目次ID
      * @param title 新しいタイトル
@@ -33,7 +33,7 @@ public interface NoteIndexMapper {
     int updateTitle(@Param("id") Long id, @Param("title") String title);
 
     /**
-     * 目次本文（解説など）を更新する。
+     * 目次本文（解説など）を更新する（ユーザーの編集。以後 AI の再解析では本文を上書きしない）。
      *
      * @param id 更新対象の目次ID
      * @param body 新しい本文
@@ -57,6 +57,12 @@ public interface NoteIndexMapper {
      * @return 目次リスト（空リストになる可能性あり）
      */
     List<NoteIndex> findByNoteId(@Param("noteId") Long noteId);
+
+    /**
+     * {@link #findByNoteId} と同じ行を排他ロック付き（FOR UPDATE）で取得する。
+     * 目次の差分反映で、読んでから書くまでの間にユーザーの編集が割り込まないようにする。トランザクション内で呼ぶこと。
+     */
+    List<NoteIndex> findByNoteIdForUpdate(@Param("noteId") Long noteId);
     
     /**
      * 指定した複数のノートに紐づくすべての目次を取得する。（N+1対策用）
@@ -80,4 +86,18 @@ public interface NoteIndexMapper {
      * @return 登録件数
      */
     int insertBatch(@Param("list") List<NoteIndex> list);
+
+    /**
+     * 目次の番号・ページ範囲・タイトル・本文をまとめて更新する（AI再インジェスト時の差分反映に使用）。
+     * @param idx 更新対象（id 必須）
+     * @return 更新件数（該当IDが存在すれば 1）
+     */
+    int update(NoteIndex idx);
+
+    /**
+     * 指定IDの目次をまとめて削除する（AI再インジェスト時の差分反映に使用）。
+     * @param ids 削除対象の目次IDのリスト（空は不可）
+     * @return 削除件数
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
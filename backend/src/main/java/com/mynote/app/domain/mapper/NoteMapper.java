@@ -22,11 +22,10 @@ public interface NoteMapper {
     // =============================
 
     /**
-     * XML内で userSeqNo を採番してから登録する版（selectKey + FOR UPDATE）。
-     * 同一Tx内での直列化が前提。分離レベルによっては UNIQUE 衝突が起き得るため、
-     * 上位サービス層で DuplicateKey リトライ方針を推奨。
+     * ノートを登録する。userSeqNo は呼び出し側で採番済みであること（NoteSeqAllocator）。
+     * id は useGeneratedKeys で詰め直される。
      */
-    int insertAutoSeq(Note n);
+    int insert(Note n);
 
     // =============================
     // UPDATE / DELETE
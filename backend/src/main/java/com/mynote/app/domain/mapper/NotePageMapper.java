@@ -24,6 +24,16 @@ public interface NotePageMapper {
      */
     int insert(NotePage p);
 
+    /**
+     * ページをまとめて登録する（複数行 INSERT）。
+     * <p>採番された ID はリストの順に各エンティティへ詰め直される。
+     * 1文が大きくなりすぎないよう、呼び出し側で件数を区切って渡すこと。</p>
+     *
+     * @param list 登録対象（同一ノートのページ）
+     * @return 登録件数
+     */
+    int insertBatch(@Param("list") List<NotePage> list);
+
     /**
      * 抽出テキスト（OCR結果など）を更新する。
      * <p>再OCR や AI によるテキスト置換処理を行った際に使用。</p>
@@ -44,6 +54,15 @@ public interface NotePageMapper {
      */
     int delete(@Param("id") Long id);
 
+    /**
+     * 指定ノートのページをすべて削除する。
+     * <p>取り込みジョブの再開時、途中まで登録したページを入れ直すときに使用。</p>
+     *
+     * @param noteId ノートID
+     * @return 削除件数
+     */
+    int deleteByNoteId(@Param("noteId") Long noteId);
+
     /**
      * 指定ノートに紐づくすべてのページを取得する。
      * <p>ノート詳細画面（G03-3）のページ一覧表示用。
@@ -0,0 +1,30 @@
+package com.mynote.app.domain.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * user_sequences テーブル用 Mapper。
+ * ユーザーごとの連番（notes.user_seq_no）の払い出し済み上限を持つ。
+ * {@link #advanceNoteSeq} と {@link #lastInsertId} は同じ接続（同じトランザクション）で呼ぶこと。
+ */
+@Mapper
+public interface UserSequenceMapper {
+
+    /**
+     * ノート連番を blockSize 進める。進めた後の値は {@link #lastInsertId} で取得する。
+     *
+     * @return 更新件数（行が無ければ 0）
+     */
+    int advanceNoteSeq(@Param("userId") Long userId, @Param("blockSize") int blockSize);
+
+    /**
+     * ユーザーの行が無ければ、既存ノートの最大連番で作成する（初回のみ notes を参照する）。
+     *
+     * @return 影響件数
+     */
+    int initNoteSeq(@Param("userId") Long userId);
+
+    /** この接続で直前に {@link #advanceNoteSeq} が設定した値 */
+    int lastInsertId();
+}
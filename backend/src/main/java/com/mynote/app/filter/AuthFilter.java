@@ -19,6 +19,9 @@ import lombok.RequiredArgsConstructor;
 public class AuthFilter extends OncePerRequestFilter {
 
 	private static final String ADMIN_PATH_PREFIX = "/api/notes/admin/";
+	/** Actuator（メトリクスなど）は管理者のみ。ヘルスチェックだけは認証なしで公開する */
+	private static final String ACTUATOR_PATH_PREFIX = "/actuator/";
+	private static final String HEALTH_PATH = "/actuator/health";
 
 	private final TokenUtil tokenUtil;
 
@@ -34,6 +37,9 @@ public class AuthFilter extends OncePerRequestFilter {
 		if (path.startsWith("/api/contacts")) {
 			return true;
 		}
+		if (path.equals(HEALTH_PATH) || path.startsWith(HEALTH_PATH + "/")) {
+			return true;
+		}
 		return false;
 	}
 
@@ -72,7 +78,7 @@ public class AuthFilter extends OncePerRequestFilter {
         request.setAttribute("role", userRole);
 
         // 管理者パスのチェック
-        if (requestURI.startsWith(ADMIN_PATH_PREFIX)) {
+        if (requestURI.startsWith(ADMIN_PATH_PREFIX) || requestURI.startsWith(ACTUATOR_PATH_PREFIX)) {
             if (!"ADMIN".equals(userRole)) {
                 response.setStatus(HttpServletResponse.SC_FORBIDDEN); // 403
                 return;
@@ -0,0 +1,62 @@
+package com.mynote.app.filter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mynote.app.api.service.upload.IngestAdmissionService;
+import com.mynote.app.api.service.upload.ProcessStatusEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * PDF アップロードの受け入れ判定を、本文（multipart）を受信する前に行う。
+ *
+ * <p>multipart は遅延解析（{@code spring.servlet.multipart.resolve-lazily=true}）にしているため、
+ * ここで断れば数百 MB の本文を読み込み・退避せずに 429（Retry-After 付き）を返せる。
+ * ページ数はまだ分からないので、キューの深さ・ノードの余力・Content-Length によるディスクの空きだけを見る。
+ * ページ数による判定（413 を含む）は、受信後にコントローラーが改めて行う。
+ */
+@Component
+@RequiredArgsConstructor
+public class UploadAdmissionInterceptor implements HandlerInterceptor {
+
+	private final IngestAdmissionService ingestAdmissionService;
+	private final ObjectMapper objectMapper;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws IOException {
+		if (!"POST".equals(request.getMethod())) {
+			return true;
+		}
+
+		// AuthFilter が格納したユーザー（無ければユーザー単位の判定は省く）
+		Long userId = (request.getAttribute("userId") instanceof Long id) ? id : null;
+		IngestAdmissionService.Decision decision =
+				ingestAdmissionService.precheck(userId, request.getContentLengthLong());
+		if (decision.admitted()) {
+			return true;
+		}
+
+		ProcessStatusEvent event = ProcessStatusEvent.rejected(null,
+				"混雑しているため受け付けできませんでした。" + decision.retryAfterSeconds() + "秒ほど後に再度お試しください",
+				decision.reason().name(), decision.retryAfterSeconds());
+		response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+		response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.getWriter().write("event:" + event.code().name() + "\ndata:"
+				+ objectMapper.writeValueAsString(event) + "\n\n");
+		return false;
+	}
+}
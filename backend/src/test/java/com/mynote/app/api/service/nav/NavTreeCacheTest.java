@@ -0,0 +1,163 @@
+package com.mynote.app.api.service.nav;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mynote.app.api.dto.nav.CategoryNavDto;
+import com.mynote.app.api.dto.nav.NavTreeDto;
+import com.mynote.app.api.dto.nav.NoteNavDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * NavTreeCache のヒット・LRU・TTL・無効化・版の確認。
+ */
+class NavTreeCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private NavTreeCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+    /** DB の nav_versions.version の代わり（無ければ 0） */
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(1 << 20, 100, 600);
+    }
+
+    private NavTreeCache cache(long maxBytes, int maxEntries, long ttlSeconds) {
+        NavTreeCache c = new NavTreeCache(registry = new SimpleMeterRegistry(), new ObjectMapper());
+        ReflectionTestUtils.setField(c, "maxBytes", maxBytes);
+        ReflectionTestUtils.setField(c, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(c, "ttlSeconds", ttlSeconds);
+        ReflectionTestUtils.invokeMethod(c, "init");
+        return c;
+    }
+
+    @Test
+    void secondGet_isHitWithSameJsonBytes() {
+        NavTreeCache.Entry first = get(1L, () -> tree(1L, 3));
+        NavTreeCache.Entry second = get(1L, () -> tree(1L, 3));
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.json()).isSameAs(first.json());
+        assertThat(new String(second.json(), StandardCharsets.UTF_8))
+                .contains("\"categories\"").contains("\"note1-0\"");
+        assertThat(registry.get("nav.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("nav.cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(registry.get("nav.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void event_invalidatesOnlyThatUser() {
+        get(1L, () -> tree(1L, 3));
+        get(2L, () -> tree(2L, 3));
+
+        cache.onNavChanged(NavChangedEvent.category(1L, 10L, false));
+        get(1L, () -> tree(1L, 4));
+        get(2L, () -> tree(2L, 3));
+
+        assertThat(loads).hasValue(3);
+        assertThat(registry.get("nav.cache.evictions").tag("cause", "invalidated").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidationDuringLoad_doesNotStoreStaleTree() {
+        get(1L, () -> {
+            // 読み込み中に別スレッドで変更がコミットされた想定
+            cache.invalidate(1L);
+            return tree(1L, 3);
+        });
+        get(1L, () -> tree(1L, 4));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void overBudget_evictsLeastRecentlyUsed() {
+        long one = 2L * get(5L, () -> tree(5L, 10)).json().length;
+        cache = cache(one * 3, 100, 600);
+
+        get(1L, () -> tree(1L, 10));
+        get(2L, () -> tree(2L, 10));
+        get(3L, () -> tree(3L, 10));
+        get(1L, () -> tree(1L, 10)); // 1 を最近使ったことにする
+        get(4L, () -> tree(4L, 10)); // 2 が追い出される
+
+        assertThat(cache.bytes()).isLessThanOrEqualTo(one * 3);
+        int before = loads.get();
+        get(1L, () -> tree(1L, 10));
+        assertThat(loads).hasValue(before);
+        get(2L, () -> tree(2L, 10));
+        assertThat(loads).hasValue(before + 1);
+        assertThat(registry.get("nav.cache.evictions").tag("cause", "size").counter().count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void expiredEntry_isReloaded() {
+        cache = cache(1 << 20, 100, 0);
+        get(1L, () -> tree(1L, 3));
+        get(1L, () -> tree(1L, 3));
+        assertThat(loads).hasValue(2);
+        assertThat(cache.size()).isZero();
+
+        cache = cache(1 << 20, 100, 600);
+        get(1L, () -> tree(1L, 3));
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        get(1L, () -> tree(1L, 3));
+        assertThat(registry.get("nav.cache.evictions").tag("cause", "expired").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void versionAdvancedElsewhere_reloadsWithoutEvent() {
+        get(1L, () -> tree(1L, 3));
+        get(1L, () -> tree(1L, 3));
+        assertThat(loads).hasValue(1);
+
+        // 他ノードで変更された想定（このノードにはイベントが届かない）
+        versions.put(1L, 1L);
+        NavTreeCache.Entry reloaded = get(1L, () -> tree(1L, 4));
+        get(1L, () -> tree(1L, 4));
+
+        assertThat(loads).hasValue(2);
+        assertThat(reloaded.version()).isEqualTo(1L);
+        assertThat(new String(reloaded.json(), StandardCharsets.UTF_8)).contains("\"note1-3\"");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(registry.get("nav.cache.evictions").tag("cause", "stale").counter().count()).isEqualTo(1);
+    }
+
+    private NavTreeCache.Entry get(long userId, Supplier<NavTreeDto> loader) {
+        return cache.get(userId, () -> version(userId), () -> new NavTreeCache.Snapshot(loader.get(), version(userId)));
+    }
+
+    private long version(long userId) {
+        return versions.getOrDefault(userId, 0L);
+    }
+
+    private NavTreeDto tree(long userId, int notes) {
+        loads.incrementAndGet();
+        Map<Long, CategoryNavDto> categories = new LinkedHashMap<>();
+        categories.put(userId * 10, new CategoryNavDto(userId * 10, userId, "category" + userId, (long) notes));
+        List<NoteNavDto> list = new ArrayList<>();
+        for (int i = 0; i < notes; i++) {
+            list.add(new NoteNavDto((long) i, userId, userId * 10, i + 1, "note" + userId + "-" + i, null, null));
+        }
+        Map<Long, List<NoteNavDto>> byCategory = new LinkedHashMap<>();
+        byCategory.put(userId * 10, list);
+        return new NavTreeDto(categories, byCategory);
+    }
+}
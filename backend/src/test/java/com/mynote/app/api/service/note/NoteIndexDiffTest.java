@@ -0,0 +1,122 @@
+package com.mynote.app.api.service.note;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.mynote.app.domain.entity.NoteIndex;
+
+/**
+ * 目次の差分計算（40 目次のノートを再解析した想定）。
+ */
+class NoteIndexDiffTest {
+
+    private static final int SECTIONS = 40;
+
+    @Test
+    void sameResult_touchesNothing() {
+        NoteIndexDiff.Plan plan = NoteIndexDiff.plan(existing(), incoming(SECTIONS));
+
+        assertThat(plan.touched()).isZero();
+        assertThat(plan.unchanged()).isEqualTo(SECTIONS);
+    }
+
+    @Test
+    void changedSummary_updatesOnlyThatRow() {
+        List<NoteIndex> in = incoming(SECTIONS);
+        in.get(9).setBody("new summary");
+
+        NoteIndexDiff.Plan plan = NoteIndexDiff.plan(existing(), in);
+
+        assertThat(plan.updates()).extracting(NoteIndex::getId).containsExactly(110L);
+        assertThat(plan.inserts()).isEmpty();
+        assertThat(plan.deletes()).isEmpty();
+        assertThat(plan.touched()).isEqualTo(1);
+    }
+
+    @Test
+    void userEditedRow_survivesReapply() {
+        List<NoteIndex> old = existing();
+        old.get(4).setTitle("my title");
+        old.get(4).setTitleEdited(true);
+        old.get(5).setBody("my notes");
+        old.get(5).setBodyEdited(true);
+
+        // 同じ AI 結果を再適用し、さらに編集済み行の AI 側の本文だけが変わった
+        List<NoteIndex> in = incoming(SECTIONS);
+        in.get(4).setBody("new summary");
+        NoteIndexDiff.Plan plan = NoteIndexDiff.plan(old, in);
+
+        // タイトルを編集した行は本文だけ更新、本文を編集した行は触らない
+        assertThat(plan.updates()).hasSize(1);
+        NoteIndex u = plan.updates().get(0);
+        assertThat(u.getId()).isEqualTo(105L);
+        assertThat(u.getTitle()).isEqualTo("my title");
+        assertThat(u.getBody()).isEqualTo("new summary");
+        assertThat(u.isTitleEdited()).isTrue();
+        assertThat(plan.unchanged()).isEqualTo(SECTIONS - 1);
+        assertThat(plan.inserts()).isEmpty();
+        assertThat(plan.deletes()).isEmpty();
+    }
+
+    @Test
+    void sectionInsertedInMiddle_renumbersFollowingRowsInPlace() {
+        List<NoteIndex> in = incoming(SECTIONS);
+        // 11 番目に新しい目次（ページ 1000）が入り、以降の番号が1つずつずれる
+        in.add(10, section(0, 1000, 1000, "new"));
+        for (int i = 0; i < in.size(); i++) in.get(i).setIndexNumber(i + 1);
+
+        NoteIndexDiff.Plan plan = NoteIndexDiff.plan(existing(), in);
+
+        assertThat(plan.inserts()).extracting(NoteIndex::getStartIndex).containsExactly(1000);
+        assertThat(plan.deletes()).isEmpty();
+        // 番号だけずれた行は ID を引き継いで UPDATE
+        assertThat(plan.updates()).hasSize(SECTIONS - 10);
+        assertThat(plan.updates()).allSatisfy(u -> assertThat(u.getId()).isEqualTo(100L + u.getStartIndex()));
+        assertThat(plan.unchanged()).isEqualTo(10);
+    }
+
+    @Test
+    void removedAndReshapedSections_areDeletedAndInserted() {
+        List<NoteIndex> in = new ArrayList<>(incoming(SECTIONS).subList(0, 38));
+        // 38 番目の範囲が変わる（既存行とは対応しない）
+        in.get(37).setEndIndex(40);
+
+        NoteIndexDiff.Plan plan = NoteIndexDiff.plan(existing(), in);
+
+        assertThat(plan.deletes()).containsExactlyInAnyOrder(138L, 139L, 140L);
+        assertThat(plan.inserts()).extracting(NoteIndex::getIndexNumber).containsExactly(38);
+        assertThat(plan.inserts()).allSatisfy(i -> assertThat(i.getId()).isNull());
+        assertThat(plan.updates()).isEmpty();
+        assertThat(plan.touched()).isEqualTo(4);
+    }
+
+    /** 既存の目次（id = 100 + 番号、ページ範囲は番号と同じ1ページ） */
+    private static List<NoteIndex> existing() {
+        List<NoteIndex> rows = incoming(SECTIONS);
+        rows.forEach(r -> r.setId(100L + r.getIndexNumber()));
+        return rows;
+    }
+
+    private static List<NoteIndex> incoming(int n) {
+        List<NoteIndex> rows = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            rows.add(section(i, i, i, "section" + i));
+        }
+        return rows;
+    }
+
+    private static NoteIndex section(int no, int start, int end, String title) {
+        NoteIndex idx = new NoteIndex();
+        idx.setNoteId(1L);
+        idx.setIndexNumber(no);
+        idx.setStartIndex(start);
+        idx.setEndIndex(end);
+        idx.setTitle(title);
+        idx.setBody("summary of " + title);
+        return idx;
+    }
+}
@@ -0,0 +1,149 @@
+package com.mynote.app.api.service.note;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mynote.app.domain.entity.Note;
+import com.mynote.app.domain.mapper.NoteMapper;
+import com.mynote.app.domain.mapper.UserSequenceMapper;
+
+/**
+ * ユーザー別ノート連番の同時採番（1ユーザーに 64 スレッドが、2ノード分のアロケーターから同時にノートを作成）。
+ * 各スレッドが自動コミットで INSERT するため、テストのトランザクションは使わず後片付けする
+ * （作成したノートを消し、user_sequences の連番もテスト前の値に戻す）。
+ */
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NoteSeqAllocatorIT {
+
+    private static final long USER_ID = 2L;
+    private static final long CATEGORY_ID = 6L;
+    private static final int CREATORS = 64;
+    private static final int NOTES_PER_CREATOR = 4;
+
+    @Autowired
+    private UserSequenceMapper userSequenceMapper;
+    @Autowired
+    private NoteMapper noteMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private DataSource dataSource;
+
+    private final ConcurrentLinkedQueue<Long> created = new ConcurrentLinkedQueue<>();
+    private JdbcTemplate jdbc;
+    /** テスト前の user_sequences.note_seq（行が無ければ null） */
+    private Integer seqBefore;
+
+    @BeforeEach
+    void rememberSeq() {
+        jdbc = new JdbcTemplate(dataSource);
+        seqBefore = jdbc.query("SELECT note_seq FROM user_sequences WHERE user_id = ?",
+                rs -> rs.next() ? rs.getInt(1) : null, USER_ID);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        created.forEach(id -> noteMapper.delete(USER_ID, id));
+        if (seqBefore == null) {
+            jdbc.update("DELETE FROM user_sequences WHERE user_id = ?", USER_ID);
+        } else {
+            jdbc.update("UPDATE user_sequences SET note_seq = ? WHERE user_id = ?", seqBefore, USER_ID);
+        }
+    }
+
+    private NoteSeqAllocator allocator() {
+        NoteSeqAllocator a = new NoteSeqAllocator(userSequenceMapper, transactionManager);
+        ReflectionTestUtils.setField(a, "blockSize", 10);
+        ReflectionTestUtils.invokeMethod(a, "init");
+        return a;
+    }
+
+    @Test
+    void parallelCreatorsForOneUser_getUniqueSeqWithoutDeadlock() throws Exception {
+        // 2ノードを想定し、それぞれ別の範囲キャッシュを持つアロケーターから交互に採番する
+        NoteSeqAllocator[] nodes = { allocator(), allocator() };
+        int before = noteMapper.findAllByUserId(USER_ID).stream()
+                .mapToInt(Note::getUserSeqNo).max().orElse(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CREATORS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Integer> seqs = new ConcurrentLinkedQueue<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < CREATORS; t++) {
+                int creator = t;
+                NoteSeqAllocator allocator = nodes[t % nodes.length];
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < NOTES_PER_CREATOR; i++) {
+                        Note n = new Note();
+                        n.setUserId(USER_ID);
+                        n.setCategoryId(CATEGORY_ID);
+                        n.setTitle("seq-stress " + creator + "-" + i);
+                        n.setUserSeqNo(allocator.next(USER_ID));
+                        assertThat(noteMapper.insert(n)).isEqualTo(1);
+                        created.add(n.getId());
+                        seqs.add(n.getUserSeqNo());
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS); // DuplicateKey / デッドロックがあればここで失敗する
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(seqs).hasSize(CREATORS * NOTES_PER_CREATOR);
+        assertThat(seqs).doesNotHaveDuplicates();
+        assertThat(seqs).allSatisfy(s -> assertThat(s).isGreaterThan(before));
+        assertThat(noteMapper.findAllByUserId(USER_ID))
+                .filteredOn(n -> created.contains(n.getId()))
+                .hasSize(CREATORS * NOTES_PER_CREATOR);
+    }
+
+    @Test
+    void callerRollback_doesNotHandOutSameNumberAgain() {
+        NoteSeqAllocator first = allocator();
+        TransactionTemplate caller = new TransactionTemplate(transactionManager);
+        Integer rolledBack = caller.execute(status -> {
+            int seq = first.next(USER_ID);
+            status.setRollbackOnly();
+            return seq;
+        });
+
+        // 別ノード（キャッシュを持たない別インスタンス）が次の範囲を取っても重ならない
+        int other = allocator().next(USER_ID);
+        assertThat(other).isGreaterThan(rolledBack);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mynote.app.api.service.upload;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mynote.app.api.service.upload.ProcessStatusEvent.Mode;
+import com.mynote.app.api.service.upload.ProgressEventBus.Envelope;
+import com.mynote.app.domain.mapper.IngestJobEventMapper;
+
+/**
+ * 同じ DB を共有する2ノード（バスのインスタンス2つ）の間で進捗イベントが届くことを確認する。
+ */
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class JdbcProgressEventBusIT {
+
+    @Autowired
+    private IngestJobEventMapper mapper;
+
+    private JdbcProgressEventBus node(List<Envelope> received) {
+        JdbcProgressEventBus bus = new JdbcProgressEventBus(mapper, new ObjectMapper());
+        ReflectionTestUtils.setField(bus, "settleMs", 0L);
+        ReflectionTestUtils.setField(bus, "batchSize", 100);
+        ReflectionTestUtils.setField(bus, "retentionSeconds", 600L);
+        bus.init();
+        bus.subscribe(received::add);
+        return bus;
+    }
+
+    @Test
+    void eventPublishedOnWorkerNode_reachesOtherNode() {
+        List<Envelope> onWorker = new CopyOnWriteArrayList<>();
+        List<Envelope> onStreamNode = new CopyOnWriteArrayList<>();
+        JdbcProgressEventBus worker = node(onWorker);
+        JdbcProgressEventBus streamNode = node(onStreamNode);
+
+        worker.publish(9001L, 1L, ProcessStatusEvent.uploadDone(10L, Mode.FULL));
+        worker.publish(9001L, 1L, ProcessStatusEvent.pageDone(10L, Mode.FULL, List.of(1, 2), 2, 5));
+        worker.publish(9001L, 1L, ProcessStatusEvent.complete(10L, Mode.FULL));
+
+        streamNode.poll();
+        worker.poll();
+
+        // どちらのノードにも同じ ID・同じ順序で届く
+        assertThat(onStreamNode).extracting(e -> e.event().code())
+                .containsExactly(ProcessStatusEvent.Code.UPLOAD_DONE, ProcessStatusEvent.Code.PAGE_DONE,
+                        ProcessStatusEvent.Code.COMPLETE);
+        assertThat(onStreamNode).extracting(Envelope::id)
+                .isSorted()
+                .containsExactlyElementsOf(onWorker.stream().map(Envelope::id).toList());
+        assertThat(onStreamNode.get(1).event().meta()).containsEntry("donePages", 2);
+        assertThat(onStreamNode.get(2).event().finished()).isTrue();
+        assertThat(onStreamNode).allSatisfy(e -> {
+            assertThat(e.jobId()).isEqualTo(9001L);
+            assertThat(e.userId()).isEqualTo(1L);
+        });
+
+        // 読み直しても二重には配らない
+        streamNode.poll();
+        assertThat(onStreamNode).hasSize(3);
+
+        // 再接続先のノードは履歴から Last-Event-ID 以降を取り直せる
+        long lastEventId = onStreamNode.get(0).id();
+        assertThat(streamNode.history(9001L, lastEventId)).extracting(Envelope::id)
+                .containsExactly(onStreamNode.get(1).id(), onStreamNode.get(2).id());
+    }
+
+    @Test
+    void eventsBeforeStartup_areNotBroadcast() {
+        List<Envelope> earlier = new CopyOnWriteArrayList<>();
+        node(earlier).publish(9002L, 1L, ProcessStatusEvent.uploadDone(11L, Mode.SIMPLE));
+
+        List<Envelope> late = new CopyOnWriteArrayList<>();
+        JdbcProgressEventBus lateNode = node(late);
+        lateNode.poll();
+
+        assertThat(late).isEmpty();
+        assertThat(lateNode.history(9002L, 0)).hasSize(1);
+    }
+}
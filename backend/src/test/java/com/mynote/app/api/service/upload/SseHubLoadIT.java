@@ -0,0 +1,143 @@
+package com.mynote.app.api.service.upload;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * SseHub の負荷試験（1ノードで待機中の進捗ストリーム 1万本）。
+ * ソケットの代わりに送信回数を数えるだけの SseEmitter を使い、ハブ自身のコストを測る。
+ * 時間と CPU を使うため通常のテスト（*Test）には含めず、{@code -Dtest=SseHubLoadIT} で個別に実行する。
+ */
+class SseHubLoadIT {
+
+    private static final int STREAMS = 10_000;
+
+    private SimpleMeterRegistry registry;
+    private SseHub hub;
+
+    /** 送信回数を数えるだけの SseEmitter */
+    private static class CountingEmitter extends SseEmitter {
+        static final AtomicLong SENT = new AtomicLong();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build();
+            SENT.incrementAndGet();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        hub = new SseHub(registry);
+        ReflectionTestUtils.setField(hub, "queueCapacity", 16);
+        ReflectionTestUtils.setField(hub, "overflowPolicy", SseHub.OverflowPolicy.CLOSE);
+        ReflectionTestUtils.setField(hub, "heartbeatIntervalMs", 0L);
+        hub.init();
+        CountingEmitter.SENT.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void tenThousandIdleStreams_flatCpu() throws Exception {
+        for (int i = 0; i < STREAMS; i++) {
+            hub.register(new CountingEmitter());
+        }
+        assertThat(hub.size()).isEqualTo(STREAMS);
+
+        // 待機中はスレッドを持たないため、CPU をほぼ使わない
+        long idleCpuMs = cpuMs(() -> sleep(2_000));
+        assertThat(idleCpuMs).as("idle(2s) cpu ms with %d streams", STREAMS).isLessThan(500);
+
+        // ハートビート1周のコストは接続数に比例するだけで、周回を重ねても増えない
+        List<Long> rounds = new ArrayList<>();
+        for (int r = 1; r <= 10; r++) {
+            long expected = (long) STREAMS * r;
+            rounds.add(cpuMs(() -> {
+                hub.heartbeat();
+                awaitSent(expected);
+            }));
+        }
+        assertThat(CountingEmitter.SENT.get()).isEqualTo(10L * STREAMS);
+        assertThat(hub.size()).isEqualTo(STREAMS);
+        long warm = rounds.subList(2, 5).stream().mapToLong(Long::longValue).max().orElseThrow();
+        long late = rounds.subList(7, 10).stream().mapToLong(Long::longValue).max().orElseThrow();
+        assertThat(late).as("heartbeat cpu per round(ms)=%s", rounds).isLessThanOrEqualTo(warm * 3 + 200);
+        assertThat(registry.get("upload.sse.connections").gauge().value()).isEqualTo(STREAMS);
+    }
+
+    @Test
+    void slowClient_doesNotBlockPublisher_andIsClosedOnOverflow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter stuck = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        SseHub.Connection slow = hub.register(stuck);
+        CountDownLatch closed = new CountDownLatch(1);
+        slow.onClose(closed::countDown);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            slow.send(String.valueOf(i), "PAGE_DONE", "x");
+        }
+        long publishMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        assertThat(publishMs).isLessThan(1_000);
+        assertThat(registry.get("upload.sse.overflows").counter().count()).isGreaterThanOrEqualTo(1);
+
+        release.countDown();
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(slow.isOpen()).isFalse();
+        assertThat(hub.size()).isZero();
+    }
+
+    private static long cpuMs(Runnable task) {
+        var os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long before = os.getProcessCpuTime();
+        task.run();
+        return TimeUnit.NANOSECONDS.toMillis(os.getProcessCpuTime() - before);
+    }
+
+    private static void awaitSent(long expected) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (CountingEmitter.SENT.get() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("sent=" + CountingEmitter.SENT.get() + " expected=" + expected);
+            }
+            sleep(5);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
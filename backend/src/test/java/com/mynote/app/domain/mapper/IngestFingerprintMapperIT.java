@@ -0,0 +1,59 @@
+package com.mynote.app.domain.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.mynote.app.domain.entity.IngestFingerprint;
+
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IngestFingerprintMapperIT {
+
+    @Autowired
+    private IngestFingerprintMapper mapper;
+
+    @Test
+    void upsert_find_markHit_delete_ok() {
+        IngestFingerprint f = new IngestFingerprint();
+        f.setUserId(1L);
+        f.setFingerprint("f".repeat(64));
+        f.setPdfSha256("a".repeat(64));
+        f.setMode("FULL");
+        f.setModel("gemini-test");
+        f.setDpiPolicy("max=300");
+        f.setSourceNoteId(1L);
+        f.setPageCount(2);
+        f.setPagesJson("[]");
+        f.setOcrText("--- Page 1 ---\ntext");
+        f.setAiResultJson("{}");
+
+        int ins = mapper.upsert(f);
+        assertThat(ins).isEqualTo(1);
+
+        IngestFingerprint found = mapper.findByUserAndFingerprint(1L, "f".repeat(64));
+        assertThat(found).isNotNull();
+        assertThat(found.getPageCount()).isEqualTo(2);
+        assertThat(found.getHitCount()).isZero();
+
+        // 同じキーでの再登録は上書きになる
+        f.setPageCount(3);
+        mapper.upsert(f);
+        assertThat(mapper.findByUserAndFingerprint(1L, "f".repeat(64)).getPageCount()).isEqualTo(3);
+
+        int hit = mapper.markHit(found.getId());
+        assertThat(hit).isEqualTo(1);
+        assertThat(mapper.findByUserAndFingerprint(1L, "f".repeat(64)).getHitCount()).isEqualTo(1);
+        assertThat(mapper.sumHitCount()).isGreaterThanOrEqualTo(1);
+        assertThat(mapper.countAll()).isGreaterThanOrEqualTo(1);
+
+        int del = mapper.delete(found.getId());
+        assertThat(del).isEqualTo(1);
+        assertThat(mapper.findByUserAndFingerprint(1L, "f".repeat(64))).isNull();
+    }
+}
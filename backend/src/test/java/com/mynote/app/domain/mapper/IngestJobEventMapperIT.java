@@ -0,0 +1,54 @@
+package com.mynote.app.domain.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.mynote.app.domain.entity.IngestJobEvent;
+
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IngestJobEventMapperIT {
+
+    @Autowired
+    private IngestJobEventMapper mapper;
+
+    private static IngestJobEvent newEvent(Long jobId) {
+        IngestJobEvent e = new IngestJobEvent();
+        e.setJobId(jobId);
+        e.setUserId(1L);
+        e.setPayload("{\"code\":\"UPLOAD_DONE\"}");
+        return e;
+    }
+
+    @Test
+    void insert_findAfter_purge_ok() {
+        long before = mapper.maxId();
+
+        IngestJobEvent a = newEvent(8001L);
+        IngestJobEvent b = newEvent(8002L);
+        assertThat(mapper.insert(a)).isEqualTo(1);
+        assertThat(mapper.insert(b)).isEqualTo(1);
+        assertThat(b.getId()).isGreaterThan(a.getId());
+        assertThat(mapper.maxId()).isEqualTo(b.getId());
+
+        // 登録直後の行は settle 期間内なので settled = false
+        assertThat(mapper.findAfter(before, 60_000, 10))
+                .extracting(IngestJobEvent::getId, IngestJobEvent::isSettled)
+                .containsExactly(tuple(a.getId(), false), tuple(b.getId(), false));
+        assertThat(mapper.findAfter(a.getId(), 60_000, 10)).extracting(IngestJobEvent::getId)
+                .containsExactly(b.getId());
+
+        assertThat(mapper.findByJobAfter(8001L, 0)).extracting(IngestJobEvent::getJobId)
+                .containsOnly(8001L);
+
+        // 保持期間内の行は消えない
+        mapper.deleteOlderThan(600);
+        assertThat(mapper.findByJobAfter(8002L, 0)).hasSize(1);
+    }
+}
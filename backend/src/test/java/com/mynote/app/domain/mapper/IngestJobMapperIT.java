@@ -0,0 +1,162 @@
+package com.mynote.app.domain.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.mynote.app.domain.entity.IngestJob;
+
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IngestJobMapperIT {
+
+    @Autowired
+    private IngestJobMapper mapper;
+
+    private static IngestJob newJob(int pages, int priority, double virtualStart) {
+        IngestJob job = new IngestJob();
+        job.setUserId(1L);
+        job.setCategoryId(1L);
+        job.setTitle("job-title");
+        job.setOriginalFilename("a.pdf");
+        job.setSpoolPath("/tmp/mynote-spool/upload-test.pdf");
+        job.setPdfSha256("0".repeat(64));
+        job.setMode("FULL");
+        job.setTocPrompt("toc");
+        job.setPagePrompt("page");
+        job.setPageEstimate(pages);
+        job.setPriority(priority);
+        job.setVirtualStart(virtualStart);
+        job.setVirtualFinish(virtualStart + pages);
+        return job;
+    }
+
+    @Test
+    void insert_claim_checkpoint_finish_ok() {
+        IngestJob job = newJob(10, 0, 0);
+
+        int ins = mapper.insert(job);
+        assertThat(ins).isEqualTo(1);
+        assertThat(job.getId()).isNotNull();
+
+        IngestJob found = mapper.findById(job.getId());
+        assertThat(found.getStatus()).isEqualTo("QUEUED");
+        assertThat(found.getPdfSha256()).isEqualTo("0".repeat(64));
+        assertThat(found.getStage()).isNull();
+        assertThat(found.getAttempts()).isZero();
+
+        // QUEUED のジョブが確保できる
+        Long locked = mapper.lockNext(90, 3, 2, 600);
+        assertThat(locked).isNotNull();
+
+        int run = mapper.markRunning(job.getId(), "node-test");
+        assertThat(run).isEqualTo(1);
+        found = mapper.findById(job.getId());
+        assertThat(found.getStatus()).isEqualTo("RUNNING");
+        assertThat(found.getLockedBy()).isEqualTo("node-test");
+        assertThat(found.getAttempts()).isEqualTo(1);
+        assertThat(found.getStartedAt()).isNotNull();
+        assertThat(mapper.heartbeat("node-test")).isGreaterThanOrEqualTo(1);
+
+        // 途中成果物は null 以外だけ更新される
+        mapper.attachNote(job.getId(), "node-test", 1L);
+        mapper.checkpoint(job.getId(), "node-test", "RENDERED", "[]", null, null);
+        mapper.checkpointOcr(job.getId(), "node-test", "--- Page 1 ---\ntext", 1);
+        found = mapper.findById(job.getId());
+        assertThat(found.getNoteId()).isEqualTo(1L);
+        assertThat(found.getStage()).isEqualTo("OCR_DONE");
+        assertThat(found.getPagesJson()).isEqualTo("[]");
+        assertThat(found.getOcrText()).isEqualTo("--- Page 1 ---\ntext");
+        assertThat(found.getOcrPages()).isEqualTo(1);
+
+        // ハートビートが新しい RUNNING は回収対象外
+        assertThat(mapper.findExhausted(90, 1))
+                .extracting(IngestJob::getId)
+                .doesNotContain(job.getId());
+
+        // 担当ノード以外からの書き込みは無視される
+        assertThat(mapper.checkpoint(job.getId(), "node-other", "AI_DONE", null, null, "{}")).isZero();
+        assertThat(mapper.finish(job.getId(), "node-other", "FAILED", "x")).isZero();
+        assertThat(mapper.findById(job.getId()).getStage()).isEqualTo("OCR_DONE");
+
+        int fin = mapper.finish(job.getId(), "node-test", "DONE", null);
+        assertThat(fin).isEqualTo(1);
+        found = mapper.findById(job.getId());
+        assertThat(found.getStatus()).isEqualTo("DONE");
+        assertThat(found.getFinishedAt()).isNotNull();
+        assertThat(found.getPagesJson()).isNull();
+        assertThat(found.getOcrText()).isNull();
+        assertThat(mapper.countByStatus("DONE")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void fairShareOrdering_ok() {
+        // 大きい文書（優先枠外）→ 小さい文書の順に登録しても、小さい文書が先に並ぶ
+        IngestJob big = newJob(200, 1, 1_000_000);
+        IngestJob small = newJob(5, 0, 1_000_000);
+        mapper.insert(big);
+        mapper.insert(small);
+
+        assertThat(mapper.countAhead(big.getId())).isGreaterThanOrEqualTo(1);
+        assertThat(mapper.sumPagesAhead(big.getId())).isGreaterThanOrEqualTo(5);
+        assertThat(mapper.lastVirtualFinish(1L)).isGreaterThanOrEqualTo(1_000_200);
+
+        // ユーザーの実行中ジョブが上限に達していれば、そのユーザーのジョブは確保されない
+        mapper.markRunning(small.getId(), "node-test");
+        Long next = mapper.lockNext(90, 3, 1, 600);
+        assertThat(next).isNotEqualTo(big.getId());
+        assertThat(mapper.currentVirtualTime()).isGreaterThanOrEqualTo(1_000_000);
+    }
+
+    @Test
+    void requeue_keepsStageAndWaitsUntilRetryAt() {
+        IngestJob job = newJob(3, 0, 0);
+        mapper.insert(job);
+        mapper.markRunning(job.getId(), "node-test");
+        mapper.checkpoint(job.getId(), "node-test", "RENDERED", "[]", null, null);
+
+        // 担当ノード以外からは戻せない
+        assertThat(mapper.requeue(job.getId(), "node-other", 60, "x")).isZero();
+
+        assertThat(mapper.requeue(job.getId(), "node-test", 3600, "vision 503")).isEqualTo(1);
+        IngestJob found = mapper.findById(job.getId());
+        assertThat(found.getStatus()).isEqualTo("QUEUED");
+        assertThat(found.getLockedBy()).isNull();
+        assertThat(found.getStage()).isEqualTo("RENDERED");
+        assertThat(found.getPagesJson()).isEqualTo("[]");
+        assertThat(found.getLastError()).isEqualTo("vision 503");
+        assertThat(found.getRetryAt()).isNotNull();
+
+        // 待ち時間が過ぎるまでは取り出されない
+        Long locked = mapper.lockNext(90, 3, 100, 600);
+        assertThat(locked).isNotEqualTo(job.getId());
+
+        assertThat(mapper.requeue(job.getId(), "node-test", 0, "x")).isZero(); // locked_by は外れている
+    }
+
+    @Test
+    void admissionCounters_ok() {
+        long pagesBefore = mapper.sumQueuedPages();
+        long runningPagesBefore = mapper.sumRunningPages();
+        long activeBefore = mapper.countActiveByUser(1L);
+
+        IngestJob queued = newJob(30, 1, 0);
+        IngestJob running = newJob(7, 0, 0);
+        mapper.insert(queued);
+        mapper.insert(running);
+        mapper.markRunning(running.getId(), "node-test");
+
+        // 待ちページ数は QUEUED のみ、ユーザーのジョブ数は QUEUED + RUNNING を数える
+        assertThat(mapper.sumQueuedPages()).isEqualTo(pagesBefore + 30);
+        assertThat(mapper.sumRunningPages()).isEqualTo(runningPagesBefore + 7);
+        assertThat(mapper.countActiveByUser(1L)).isEqualTo(activeBefore + 2);
+
+        mapper.finish(running.getId(), "node-test", "DONE", null);
+        assertThat(mapper.countActiveByUser(1L)).isEqualTo(activeBefore + 1);
+    }
+}
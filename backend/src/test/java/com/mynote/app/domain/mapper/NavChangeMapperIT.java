@@ -0,0 +1,101 @@
+package com.mynote.app.domain.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.mynote.app.api.dto.nav.CategoryNavDto;
+import com.mynote.app.api.dto.nav.NoteNavDto;
+import com.mynote.app.domain.entity.NavChange;
+import com.mynote.app.domain.entity.NavVersion;
+
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NavChangeMapperIT {
+
+    private static final long USER_ID = 1L;
+
+    @Autowired
+    private NavChangeMapper mapper;
+
+    @Test
+    void advanceVersion_createsRowOnFirstUseAndIncrements() {
+        long first = advance();
+        long second = advance();
+
+        assertThat(second).isEqualTo(first + 1);
+        NavVersion v = mapper.findVersion(USER_ID);
+        assertThat(v.getVersion()).isEqualTo(second);
+        assertThat(v.getCompactedVersion()).isLessThanOrEqualTo(v.getVersion());
+    }
+
+    @Test
+    void initVersion_ignoresUnknownUser() {
+        assertThat(mapper.initVersion(999_999L)).isZero();
+        assertThat(mapper.advanceVersion(999_999L)).isZero();
+    }
+
+    @Test
+    void upsertChanges_keepsLatestPerEntity() {
+        long v1 = advance();
+        mapper.upsertChanges(List.of(change(NavChange.NOTE, 1L, v1, false), change(NavChange.CATEGORY, 1L, v1, false)));
+        long v2 = advance();
+        mapper.upsertChanges(List.of(change(NavChange.NOTE, 2L, v2, true)));
+        long v3 = advance();
+        mapper.upsertChanges(List.of(change(NavChange.NOTE, 1L, v3, false)));
+
+        // v1 より後: ノート1（v3 で上書き）とノート2の削除。カテゴリ1は v1 のまま
+        List<NoteNavDto> notes = mapper.findNoteUpsertsSince(USER_ID, v1);
+        assertThat(notes).extracting(NoteNavDto::id).containsExactly(1L);
+        assertThat(notes.get(0).userSeqNo()).isNotNull();
+        assertThat(mapper.findCategoryUpsertsSince(USER_ID, v1)).isEmpty();
+        assertThat(mapper.findDeletedIdsSince(USER_ID, NavChange.NOTE, v1)).containsExactly(2L);
+
+        List<CategoryNavDto> categories = mapper.findCategoryUpsertsSince(USER_ID, v1 - 1);
+        assertThat(categories).extracting(CategoryNavDto::id).containsExactly(1L);
+        assertThat(categories.get(0).noteCount()).isPositive();
+
+        assertThat(mapper.findNoteUpsertsSince(USER_ID, v3)).isEmpty();
+        assertThat(mapper.findDeletedIdsSince(USER_ID, NavChange.NOTE, v2)).isEmpty();
+    }
+
+    @Test
+    void compaction_advancesFloorThenDeletesTombstones() {
+        long v1 = advance();
+        mapper.upsertChanges(List.of(change(NavChange.NOTE, 1L, v1, false), change(NavChange.CATEGORY, 4L, v1, true)));
+
+        // 保持秒数 -1 = 今より後に削除されたものまで対象（テストでは全件）
+        assertThat(mapper.advanceCompactedVersion(-1)).isPositive();
+        assertThat(mapper.findVersion(USER_ID).getCompactedVersion()).isGreaterThanOrEqualTo(v1);
+        assertThat(mapper.deleteCompacted()).isPositive();
+
+        assertThat(mapper.findDeletedIdsSince(USER_ID, NavChange.CATEGORY, v1 - 1)).isEmpty();
+        // 作成・更新の記録は残る
+        assertThat(mapper.findNoteUpsertsSince(USER_ID, v1 - 1)).extracting(NoteNavDto::id).containsExactly(1L);
+    }
+
+    private long advance() {
+        if (mapper.advanceVersion(USER_ID) == 0) {
+            mapper.initVersion(USER_ID);
+            assertThat(mapper.advanceVersion(USER_ID)).isEqualTo(1);
+        }
+        return mapper.lastInsertId();
+    }
+
+    private static NavChange change(String type, Long id, long version, boolean deleted) {
+        NavChange c = new NavChange();
+        c.setUserId(USER_ID);
+        c.setEntityType(type);
+        c.setEntityId(id);
+        c.setVersion(version);
+        c.setDeleted(deleted);
+        return c;
+    }
+}
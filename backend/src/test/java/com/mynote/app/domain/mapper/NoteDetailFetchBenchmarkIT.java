@@ -0,0 +1,209 @@
+package com.mynote.app.domain.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.autoconfigure.MybatisProperties;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mynote.app.api.dto.note.NoteByUserSeqNoResponseDto;
+import com.mynote.app.api.dto.note.NoteResponseDto;
+import com.mynote.app.api.dto.note.PageResponseDto;
+import com.mynote.app.api.dto.note.TocResponseDto;
+import com.mynote.app.api.service.note.NoteDetailReader;
+import com.mynote.app.domain.entity.Note;
+import com.mynote.app.domain.entity.NoteIndex;
+import com.mynote.app.domain.entity.NotePage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ノート詳細取得の比較（200ページ・40目次のノート）。
+ * <ul>
+ *   <li>before: findByUserAndSeq → ページ → 目次 の3往復 + エンティティから DTO への詰め替え</li>
+ *   <li>after : NoteDetailReader（allowMultiQueries の専用プールで複数結果セットを1往復、DTO へ直接マッピング）</li>
+ * </ul>
+ * テストのトランザクション内だと同じ SqlSession のローカルキャッシュが効いて計測にならないため、
+ * トランザクションは使わず、呼び出しごとに別の SqlSession で実行して最後に後片付けする。
+ * 計測結果は docs/benchmarks.md の表と同じ形式の行として INFO ログに出す（実行方法・結果もそちら）。
+ */
+@Slf4j
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NoteDetailFetchBenchmarkIT {
+
+    private static final long USER_ID = 1L;
+    private static final int SEQ = 90_002;
+    private static final int PAGES = 200;
+    private static final int SECTIONS = 40;
+    private static final int WARMUP = 20;
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    private NoteMapper noteMapper;
+    @Autowired
+    private NotePageMapper notePageMapper;
+    @Autowired
+    private NoteIndexMapper noteIndexMapper;
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+    @Autowired
+    private MybatisProperties mybatisProperties;
+
+    private NoteDetailReader reader;
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() {
+        reader = new NoteDetailReader(dataSourceProperties, mybatisProperties);
+        ReflectionTestUtils.setField(reader, "poolSize", 2);
+        ReflectionTestUtils.invokeMethod(reader, "init");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        // ページ・目次は外部キーの ON DELETE CASCADE で消える
+        if (noteId != null) noteMapper.delete(USER_ID, noteId);
+        ReflectionTestUtils.invokeMethod(reader, "close");
+    }
+
+    @Test
+    void singleRoundTrip_matchesThreeQueries() {
+        seed();
+
+        NoteByUserSeqNoResponseDto before = threeQueries();
+        NoteByUserSeqNoResponseDto after = reader.find(USER_ID, SEQ);
+
+        assertThat(after).isNotNull();
+        assertThat(after.getNote()).isEqualTo(before.getNote());
+        assertThat(after.getPage()).hasSize(PAGES).containsExactlyElementsOf(before.getPage());
+        assertThat(after.getToc()).hasSize(SECTIONS).containsExactlyElementsOf(before.getToc());
+
+        // 別ユーザーからは見えない
+        assertThat(reader.find(2L, SEQ)).isNull();
+
+        long[] beforeUs = measure(this::threeQueries);
+        long[] afterUs = measure(() -> reader.find(USER_ID, SEQ));
+        log.info("[note-detail] | 方式 | p50 (µs) | p95 (µs) |");
+        log.info("[note-detail] | before（3往復） | {} | {} |", pct(beforeUs, 50), pct(beforeUs, 95));
+        log.info("[note-detail] | after（1往復） | {} | {} |", pct(afterUs, 50), pct(afterUs, 95));
+    }
+
+    /** 変更前の取得方法（NoteService.getNoteByUserSeqNo の旧実装と同じ手順） */
+    private NoteByUserSeqNoResponseDto threeQueries() {
+        Note note = noteMapper.findByUserAndSeq(USER_ID, SEQ);
+        List<NotePage> pages = notePageMapper.findByNoteId(note.getId());
+        List<NoteIndex> indices = noteIndexMapper.findByNoteId(note.getId());
+
+        NoteResponseDto n = new NoteResponseDto();
+        n.setId(note.getId());
+        n.setUserId(note.getUserId());
+        n.setCategoryId(note.getCategoryId());
+        n.setUserSeqNo(note.getUserSeqNo());
+        n.setTitle(note.getTitle());
+        n.setDescription(note.getDescription());
+        n.setOriginalFilename(note.getOriginalFilename());
+        n.setCreatedAt(note.getCreatedAt());
+        n.setUpdatedAt(note.getUpdatedAt());
+
+        List<PageResponseDto> page = new ArrayList<>();
+        for (NotePage p : pages) {
+            PageResponseDto d = new PageResponseDto();
+            d.setId(p.getId());
+            d.setNoteId(p.getNoteId());
+            d.setPageNumber(p.getPageNumber());
+            d.setFirebasePublicUrl(p.getFirebasePublicUrl());
+            d.setFirebaseAdminPath(p.getFirebaseAdminPath());
+            d.setExtractedText(p.getExtractedText());
+            page.add(d);
+        }
+        List<TocResponseDto> toc = new ArrayList<>();
+        for (NoteIndex i : indices) {
+            TocResponseDto d = new TocResponseDto();
+            d.setId(i.getId());
+            d.setNoteId(i.getNoteId());
+            d.setIndexNumber(i.getIndexNumber());
+            d.setStartIndex(i.getStartIndex());
+            d.setEndIndex(i.getEndIndex());
+            d.setTitle(i.getTitle());
+            d.setBody(i.getBody());
+            toc.add(d);
+        }
+
+        NoteByUserSeqNoResponseDto dto = new NoteByUserSeqNoResponseDto();
+        dto.setNote(n);
+        dto.setPage(page);
+        dto.setToc(toc);
+        return dto;
+    }
+
+    private void seed() {
+        Note note = new Note();
+        note.setUserId(USER_ID);
+        note.setCategoryId(1L);
+        note.setUserSeqNo(SEQ);
+        note.setTitle("benchmark");
+        note.setDescription("200 pages");
+        note.setOriginalFilename("benchmark.pdf");
+        noteMapper.insert(note);
+        noteId = note.getId();
+
+        List<NotePage> pages = new ArrayList<>();
+        for (int i = 1; i <= PAGES; i++) {
+            NotePage p = new NotePage();
+            p.setNoteId(note.getId());
+            p.setPageNumber(i);
+            p.setFirebasePublicUrl("https://example.com/" + i + ".png");
+            p.setFirebaseAdminPath("/bucket/" + i + ".png");
+            p.setExtractedText("## page " + i + "\n" + "本文".repeat(500));
+            p.setRenderDpi(200);
+            pages.add(p);
+        }
+        notePageMapper.insertBatch(pages);
+
+        List<NoteIndex> toc = new ArrayList<>();
+        for (int i = 1; i <= SECTIONS; i++) {
+            NoteIndex idx = new NoteIndex();
+            idx.setNoteId(note.getId());
+            idx.setIndexNumber(i);
+            idx.setStartIndex((i - 1) * 5 + 1);
+            idx.setEndIndex(i * 5);
+            idx.setTitle("section" + i);
+            idx.setBody("summary " + i);
+            toc.add(idx);
+        }
+        noteIndexMapper.insertBatch(toc);
+    }
+
+    private static long[] measure(Supplier<?> call) {
+        for (int i = 0; i < WARMUP; i++) call.get();
+        long[] us = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            call.get();
+            us[i] = (System.nanoTime() - t0) / 1_000;
+        }
+        Arrays.sort(us);
+        return us;
+    }
+
+    private static long pct(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)];
+    }
+}
@@ -26,6 +26,13 @@ class NoteIndexMapperIT {
         assertThat(toc).isNotNull();
     }
 
+    @Test
+    void findByNoteIdForUpdate_returnsSameRows() {
+        assertThat(mapper.findByNoteIdForUpdate(1L))
+                .extracting(NoteIndex::getId)
+                .containsExactlyElementsOf(mapper.findByNoteId(1L).stream().map(NoteIndex::getId).toList());
+    }
+
     @Test
     void insert_update_delete_ok() {
         NoteIndex idx = new NoteIndex();
@@ -46,7 +53,45 @@ class NoteIndexMapperIT {
         int u2 = mapper.updateBody(idx.getId(), "body2");
         assertThat(u2).isEqualTo(1);
 
+        // ユーザーの編集には印が付く（AI の再解析で上書きしない）
+        assertThat(mapper.findByNoteId(1L))
+                .filteredOn(x -> x.getId().equals(idx.getId()))
+                .extracting(NoteIndex::isTitleEdited, NoteIndex::isBodyEdited)
+                .containsExactly(tuple(true, true));
+
         int del = mapper.delete(idx.getId());
         assertThat(del).isEqualTo(1);
     }
+
+    @Test
+    void update_deleteByIds_ok() {
+        List<NoteIndex> rows = new java.util.ArrayList<>();
+        for (int n = 901; n <= 903; n++) {
+            NoteIndex idx = new NoteIndex();
+            idx.setNoteId(1L);
+            idx.setIndexNumber(n);
+            idx.setStartIndex(n);
+            idx.setEndIndex(n);
+            idx.setTitle("toc" + n);
+            idx.setBody("body" + n);
+            rows.add(idx);
+        }
+        assertThat(mapper.insertBatch(rows)).isEqualTo(3);
+
+        NoteIndex moved = rows.get(0);
+        moved.setIndexNumber(904);
+        moved.setEndIndex(905);
+        moved.setTitle("moved");
+        assertThat(mapper.update(moved)).isEqualTo(1);
+        assertThat(mapper.findByNoteId(1L))
+                .filteredOn(x -> x.getId().equals(moved.getId()))
+                .extracting(NoteIndex::getIndexNumber, NoteIndex::getEndIndex, NoteIndex::getTitle)
+                .containsExactly(tuple(904, 905, "moved"));
+
+        int del = mapper.deleteByIds(List.of(rows.get(1).getId(), rows.get(2).getId()));
+        assertThat(del).isEqualTo(2);
+        assertThat(mapper.findByNoteId(1L)).extracting(NoteIndex::getId)
+                .contains(moved.getId())
+                .doesNotContain(rows.get(1).getId(), rows.get(2).getId());
+    }
 }
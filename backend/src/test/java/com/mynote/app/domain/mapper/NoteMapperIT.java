@@ -28,7 +28,7 @@ class NoteMapperIT {
     }
 
     @Test
-    void insertAutoSeq_update_select_delete_ok() {
+    void insert_update_select_delete_ok() {
         // 作成
         Note n = new Note();
         n.setUserId(1L);
@@ -36,8 +36,9 @@ class NoteMapperIT {
         n.setTitle("JUnit Note");
         n.setDescription("desc");
         n.setOriginalFilename("file.pdf");
+        n.setUserSeqNo(90_001);
 
-        int ins = mapper.insertAutoSeq(n);
+        int ins = mapper.insert(n);
         assertThat(ins).isEqualTo(1);
         assertThat(n.getId()).as("generated id").isNotNull();
         assertThat(n.getUserSeqNo()).as("user-seq-no").isNotNull();
@@ -0,0 +1,189 @@
+package com.mynote.app.domain.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.autoconfigure.MybatisProperties;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mynote.app.api.service.note.NoteBulkWriter;
+import com.mynote.app.domain.entity.NotePage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * note_pages.extracted_text の一括更新方式の比較（10 / 100 / 1000 ページ）。
+ * <ul>
+ *   <li>CASE    : updateExtractedTextBatch（CASE 式の1文）</li>
+ *   <li>BATCH   : NoteBulkWriter（BATCH executor + rewriteBatchedStatements の専用プール）</li>
+ *   <li>TEMP    : 一時テーブルへ複数行 INSERT → UPDATE ... JOIN</li>
+ * </ul>
+ * バッチ実行はトランザクション外で呼ぶ必要があるため、テストのトランザクションは使わず後片付けする。
+ * 計測結果は INFO ログに出す（実行方法は docs/benchmarks.md）。
+ */
+@Slf4j
+@MybatisTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotePageBulkUpdateBenchmarkIT {
+
+    private static final long NOTE_ID = 1L;
+    private static final int FIRST_PAGE = 20_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private NotePageMapper notePageMapper;
+    @Autowired
+    private NoteIndexMapper noteIndexMapper;
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+    @Autowired
+    private MybatisProperties mybatisProperties;
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(
+                        "DELETE FROM note_pages WHERE note_id = ? AND page_number >= ?")) {
+            ps.setLong(1, NOTE_ID);
+            ps.setInt(2, FIRST_PAGE);
+            ps.executeUpdate();
+        }
+    }
+
+    @Test
+    void compareBulkUpdateStrategies() throws Exception {
+        NoteBulkWriter writer = new NoteBulkWriter(dataSourceProperties, mybatisProperties, notePageMapper, noteIndexMapper);
+        ReflectionTestUtils.setField(writer, "chunkSize", 500);
+        ReflectionTestUtils.setField(writer, "poolSize", 2);
+        ReflectionTestUtils.invokeMethod(writer, "init");
+        try {
+            compare(writer);
+        } finally {
+            ReflectionTestUtils.invokeMethod(writer, "close");
+        }
+    }
+
+    private void compare(NoteBulkWriter writer) throws Exception {
+        log.info("[bulk-update] pages  CASE(ms)  BATCH(ms)  TEMP(ms)");
+        for (int size : new int[] { 10, 100, 1000 }) {
+            cleanUp();
+            List<NotePage> pages = seed(size);
+            assertThat(writer.insertPages(pages)).isEqualTo(size);
+
+            long caseMs = median(r -> {
+                Map<Long, String> u = updates(pages, "case-" + r);
+                notePageMapper.updateExtractedTextBatch(u);
+                return u;
+            });
+            long batchMs = median(r -> {
+                Map<Long, String> u = updates(pages, "batch-" + r);
+                assertThat(writer.updatePageTexts(u)).isEqualTo(size);
+                return u;
+            });
+            long tempMs = median(r -> {
+                Map<Long, String> u = updates(pages, "temp-" + r);
+                updateViaTempTable(u);
+                return u;
+            });
+            log.info(String.format("[bulk-update] %5d  %8d  %9d  %8d", size, caseMs, batchMs, tempMs));
+        }
+    }
+
+    /** 1回分の更新（戻り値は期待する本文） */
+    private interface Round {
+        Map<Long, String> run(int round) throws Exception;
+    }
+
+    /** ROUNDS 回実行して中央値（ms）を返す。毎回、全ページが期待どおり更新されたことも確認する */
+    private long median(Round round) throws Exception {
+        long[] ms = new long[ROUNDS];
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            Map<Long, String> expected = round.run(r);
+            ms[r] = (System.nanoTime() - t0) / 1_000_000;
+
+            Map<Long, String> actual = new LinkedHashMap<>();
+            notePageMapper.findByNoteId(NOTE_ID).stream()
+                    .filter(p -> expected.containsKey(p.getId()))
+                    .forEach(p -> actual.put(p.getId(), p.getExtractedText()));
+            assertThat(actual).containsExactlyInAnyOrderEntriesOf(expected);
+        }
+        Arrays.sort(ms);
+        return ms[ROUNDS / 2];
+    }
+
+    private void updateViaTempTable(Map<Long, String> updates) throws SQLException {
+        try (Connection c = dataSource.getConnection()) {
+            try (Statement st = c.createStatement()) {
+                st.execute("CREATE TEMPORARY TABLE tmp_page_text (id BIGINT PRIMARY KEY, extracted_text MEDIUMTEXT)");
+            }
+            try {
+                try (PreparedStatement ps = c.prepareStatement(
+                        "INSERT INTO tmp_page_text (id, extracted_text) VALUES (?, ?)")) {
+                    for (Map.Entry<Long, String> e : updates.entrySet()) {
+                        ps.setLong(1, e.getKey());
+                        ps.setString(2, e.getValue());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                try (Statement st = c.createStatement()) {
+                    st.executeUpdate("UPDATE note_pages p JOIN tmp_page_text t ON p.id = t.id"
+                            + " SET p.extracted_text = t.extracted_text");
+                }
+            } finally {
+                try (Statement st = c.createStatement()) {
+                    st.execute("DROP TEMPORARY TABLE IF EXISTS tmp_page_text");
+                }
+            }
+        }
+    }
+
+    private static List<NotePage> seed(int size) {
+        List<NotePage> pages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            NotePage p = new NotePage();
+            p.setNoteId(NOTE_ID);
+            p.setPageNumber(FIRST_PAGE + i);
+            p.setFirebasePublicUrl("https://example.com/" + i + ".png");
+            p.setFirebaseAdminPath("/bucket/" + i + ".png");
+            p.setRenderDpi(200);
+            pages.add(p);
+        }
+        return pages;
+    }
+
+    /** 1ページあたり約 2KB の Markdown を想定した本文 */
+    private static Map<Long, String> updates(List<NotePage> pages, String tag) {
+        Map<Long, String> u = new LinkedHashMap<>();
+        String body = "## 解説\n" + "本文".repeat(1000);
+        for (NotePage p : pages) {
+            u.put(p.getId(), tag + ":" + p.getPageNumber() + "\n" + body);
+        }
+        return u;
+    }
+}
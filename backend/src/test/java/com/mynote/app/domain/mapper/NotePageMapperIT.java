@@ -34,10 +34,15 @@ class NotePageMapperIT {
         p.setFirebasePublicUrl("https://example.com/p.png");
         p.setFirebaseAdminPath("/bucket/p.png");
         p.setExtractedText("text");
+        p.setRenderDpi(150);
 
         int ins = mapper.insert(p);
         assertThat(ins).isEqualTo(1);
         assertThat(p.getId()).isNotNull();
+        assertThat(mapper.findByNoteId(1L))
+                .filteredOn(x -> x.getId().equals(p.getId()))
+                .extracting(NotePage::getRenderDpi)
+                .containsExactly(150);
 
         int u1 = mapper.updateExtractedText(p.getId(), "text2");
         assertThat(u1).isEqualTo(1);
@@ -46,4 +51,28 @@ class NotePageMapperIT {
         int del = mapper.delete(p.getId());
         assertThat(del).isEqualTo(1);
     }
+
+    @Test
+    void insertBatch_returnsIdsInOrder() {
+        List<NotePage> pages = new java.util.ArrayList<>();
+        for (int n = 1001; n <= 1003; n++) {
+            NotePage p = new NotePage();
+            p.setNoteId(1L);
+            p.setPageNumber(n);
+            p.setFirebasePublicUrl("https://example.com/" + n + ".png");
+            p.setFirebaseAdminPath("/bucket/" + n + ".png");
+            p.setRenderDpi(200);
+            pages.add(p);
+        }
+
+        int ins = mapper.insertBatch(pages);
+        assertThat(ins).isEqualTo(3);
+        assertThat(pages).extracting(NotePage::getId).doesNotContainNull().isSorted();
+
+        // 採番された ID が同じ順のページに対応している
+        assertThat(mapper.findByNoteId(1L))
+                .filteredOn(x -> x.getPageNumber() >= 1001 && x.getPageNumber() <= 1003)
+                .extracting(NotePage::getId)
+                .containsExactlyElementsOf(pages.stream().map(NotePage::getId).toList());
+    }
 }
@@ -5,11 +5,15 @@ import { loginUserAtom } from '../../states/UserAtom';
 import { addToastAtom } from '../../states/ToastAtom';
 import customAxios, { getOk } from '../../helpers/CustomAxios';
 import { readSSE, toFormData, getAuthHeader } from '../../helpers/PdfuploadHelper';
-import type { PdfUploadRequest, Mode } from '../../types/upload';
+import type { PdfUploadRequest, Mode, ProcessStatusEvent } from '../../types/upload';
 import { useQueryClient } from '@tanstack/react-query';
 import { useCategories } from '../../hooks/queries/useNav';
 
 const SSE_URL = new URL('/api/notes/upload/process-stream', (customAxios.defaults.baseURL ?? '') + '/').toString();
+const jobEventsUrl = (jobId: number) =>
+  new URL(`/api/notes/upload/jobs/${jobId}/events`, (customAxios.defaults.baseURL ?? '') + '/').toString();
+// 進捗ストリームが途切れたときの再接続回数の上限
+const MAX_RECONNECT = 5;
 
 type CategoryPromptsDto = {
   categoryId: number;
@@ -129,18 +133,45 @@ export default function UploadForm() {
           headers, // FormDataなのでContent-Typeは自動でboundary付与
         });
 
+        if (res.status === 429) {
+          // 混雑のため受け付けられなかった（Retry-After 秒後に再試行できる）
+          const retryAfter = Number(res.headers.get('Retry-After') ?? '0');
+          throw new Error(
+            retryAfter > 0
+              ? `混雑しているため受け付けられませんでした。約${Math.ceil(retryAfter / 60)}分後に再度お試しください`
+              : '混雑しているため受け付けられませんでした。しばらくしてから再度お試しください'
+          );
+        }
+        if (res.status === 413) {
+          throw new Error('PDFのページ数が上限を超えているため取り込めません');
+        }
         if (!res.ok) {
           throw new Error(`upload failed: ${res.status} ${res.statusText}`);
         }
 
-        await readSSE(res, async (evt) => {
+        const job: { id: number | null } = { id: null };
+        const onEvent = async (evt: ProcessStatusEvent) => {
           if (!('code' in evt) || !evt.code) return; // connection event等を無視
+          if (evt.code === 'QUEUED') job.id = evt.meta.jobId;
 
           setSteps((prev) => {
             const next = [...prev];
-            if (evt.code === 'UPLOAD_DONE') {
+            if (evt.code === 'QUEUED') {
+              // 待ち行列に入った（先に処理中のジョブがあれば順番と開始予定を表示）
               const idx = next.findIndex((s) => s.id === 'upload');
-              if (idx !== -1) next[idx].status = 'done';
+              if (idx !== -1 && evt.meta.position > 1) {
+                const start = new Date(evt.meta.expectedStartAt).toLocaleTimeString('ja-JP', {
+                  hour: '2-digit',
+                  minute: '2-digit',
+                });
+                next[idx] = {
+                  ...next[idx],
+                  text: `アップロード・PDF解析（待ち ${evt.meta.position} 番目・開始予定 ${start} 頃）`,
+                };
+              }
+            } else if (evt.code === 'UPLOAD_DONE') {
+              const idx = next.findIndex((s) => s.id === 'upload');
+              if (idx !== -1) next[idx] = { ...next[idx], text: 'アップロード・PDF解析', status: 'done' };
               next.push({ id: 'ocr', text: 'OCR処理（画像テキスト抽出）', status: 'processing' });
             } else if (evt.code === 'OCR_DONE') {
               const idx = next.findIndex((s) => s.id === 'ocr');
@@ -150,9 +181,15 @@ export default function UploadForm() {
               const idx = next.findIndex((s) => s.id === 'ocr');
               if (idx !== -1) next[idx].status = 'skipped';
               next.push({ id: 'ai', text: 'AI解析（目次・要約生成）', status: 'processing' });
+            } else if (evt.code === 'PAGE_DONE') {
+              const idx = next.findIndex((s) => s.id === 'ai');
+              if (idx !== -1) {
+                const { donePages, totalPages } = evt.meta;
+                next[idx] = { ...next[idx], text: `AI解析（${donePages}/${totalPages} ページ完了）` };
+              }
             } else if (evt.code === 'AI_DONE') {
               const idx = next.findIndex((s) => s.id === 'ai');
-              if (idx !== -1) next[idx].status = 'done';
+              if (idx !== -1) next[idx] = { ...next[idx], text: 'AI解析（目次・要約生成）', status: 'done' };
             } else if (evt.code === 'ERROR') {
               let lastProc = -1;
               for (let j = 0; j < next.length; j++) {
@@ -172,7 +209,25 @@ export default function UploadForm() {
             }
             addToast({ type: 'success', message: 'ノートをアップロードしました' });
           }
-        });
+        };
+
+        // 接続が途切れたら Last-Event-ID を付けて再接続し、取りこぼしたイベントから受け直す
+        let result = await readSSE(res, onEvent);
+        for (let retry = 0; !result.finished && job.id !== null && retry < MAX_RECONNECT; retry++) {
+          await new Promise((r) => setTimeout(r, 1000 * (retry + 1)));
+          const reHeaders = new Headers(getAuthHeader());
+          if (result.lastEventId) reHeaders.set('Last-Event-ID', result.lastEventId);
+          const again = await fetch(jobEventsUrl(job.id), {
+            signal: ac.signal,
+            credentials: 'include',
+            headers: reHeaders,
+          });
+          if (!again.ok) break;
+          result = await readSSE(again, onEvent, result.lastEventId);
+        }
+        if (!result.finished) {
+          throw new Error('進捗の受信が途切れました。しばらくしてからノート一覧を確認してください');
+        }
       } catch (err) {
         const errMsg = err instanceof Error ? err.message : String(err);
         setSteps((prev) => {
@@ -32,14 +32,34 @@ const toFormData = function (req: PdfUploadRequest): FormData {
   return fd;
 };
 
+type SSEResult = {
+  /** 終端イベント（finished）まで受信したか */
+  finished: boolean;
+  /** 最後に受信したイベントの id（再接続時に Last-Event-ID として送る） */
+  lastEventId: string | null;
+};
+
 // 期待前提：各イベントは data:{...} のJSONで飛んでくる
-const readSSE = async function (res: Response, onEvent: (evt: ProcessStatusEvent) => void): Promise<void> {
+// 通信が途切れた場合は例外にせず finished=false を返す（中断 = AbortError は呼び出し側へ投げる）
+const readSSE = async function (
+  res: Response,
+  onEvent: (evt: ProcessStatusEvent) => void | Promise<void>,
+  lastEventId: string | null = null
+): Promise<SSEResult> {
   const reader = res.body!.getReader(); // bodyは必ずある前提
   const dec = new TextDecoder();
   let buf = '';
+  let lastId = lastEventId;
 
   while (true) {
-    const { value, done } = await reader.read();
+    let chunk: ReadableStreamReadResult<Uint8Array>;
+    try {
+      chunk = await reader.read();
+    } catch (e) {
+      if (e instanceof DOMException && e.name === 'AbortError') throw e;
+      return { finished: false, lastEventId: lastId };
+    }
+    const { value, done } = chunk;
     if (done) break;
 
     buf += dec.decode(value, { stream: true });
@@ -47,12 +67,15 @@ const readSSE = async function (res: Response, onEvent: (evt: ProcessStatusEvent
     // 空行でイベント区切り
     let sep: number;
     while ((sep = buf.indexOf('\n\n')) !== -1) {
-      const chunk = buf.slice(0, sep);
+      const block = buf.slice(0, sep);
       buf = buf.slice(sep + 2);
+      const lines = block.split('\n');
+
+      const id = lines.find((l) => l.startsWith('id:'));
+      if (id) lastId = id.slice(3).trim();
 
       // data: 行をまとめる
-      const data = chunk
-        .split('\n')
+      const data = lines
         .filter((l) => l.startsWith('data:'))
         .map((l) => l.slice(5).trim())
         .join('\n');
@@ -61,10 +84,11 @@ const readSSE = async function (res: Response, onEvent: (evt: ProcessStatusEvent
 
       // JSON前提でそのままパース
       const evt = JSON.parse(data) as ProcessStatusEvent;
-      onEvent(evt);
-      if (evt.finished) return;
+      await onEvent(evt);
+      if (evt.finished) return { finished: true, lastEventId: lastId };
     }
   }
+  return { finished: false, lastEventId: lastId };
 };
 
 export { readSSE, toFormData, getAuthHeader };
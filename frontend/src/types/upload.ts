@@ -2,6 +2,15 @@
 export type Mode = 'FULL' | 'SIMPLE';
 
 export type ProcessStatusEvent =
+  | {
+      code: 'QUEUED';
+      message: string;
+      noteId: null; // ノートはジョブ開始後に作られる
+      finished: boolean; // false
+      mode: 'FULL' | 'SIMPLE';
+      // 待ち順（1 = 次に開始）と開始予定時刻（ISO-8601、概算）
+      meta: { jobId: number; position: number; pageEstimate: number; expectedStartAt: string };
+    }
   | {
       code: 'UPLOAD_DONE' | 'OCR_DONE' | 'OCR_SKIPPED' | 'AI_DONE' | 'COMPLETE';
       message: string;
@@ -9,6 +18,15 @@ export type ProcessStatusEvent =
       finished: boolean; // COMPLETE のとき true
       mode: 'FULL' | 'SIMPLE';
     }
+  | {
+      code: 'PAGE_DONE';
+      message: string;
+      noteId: number | null;
+      finished: boolean; // false
+      mode: 'FULL' | 'SIMPLE';
+      // 今回保存したページ番号と、全体の進捗
+      meta: { pages: number[]; donePages: number; totalPages: number };
+    }
   | {
       code: 'ERROR';
       message: string; // エラーメッセージ
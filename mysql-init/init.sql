@@ -76,6 +76,186 @@ INSERT INTO `contacts` VALUES (1,1,'山田 太郎','yamada@example.com','アカ
 /*!40000 ALTER TABLE `contacts` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `ingest_fingerprints`
+--
+
+DROP TABLE IF EXISTS `ingest_fingerprints`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `ingest_fingerprints` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `user_id` int NOT NULL,
+  `fingerprint` char(64) NOT NULL,
+  `pdf_sha256` char(64) NOT NULL,
+  `mode` varchar(16) NOT NULL,
+  `model` varchar(64) DEFAULT NULL,
+  `dpi_policy` varchar(128) DEFAULT NULL,
+  `source_note_id` bigint NOT NULL,
+  `page_count` int NOT NULL,
+  `pages_json` mediumtext NOT NULL,
+  `ocr_text` mediumtext,
+  `ai_result_json` mediumtext NOT NULL,
+  `hit_count` int NOT NULL DEFAULT '0',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `last_hit_at` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uq_ingest_fp_user` (`user_id`,`fingerprint`),
+  KEY `fk_ingest_fp_note` (`source_note_id`),
+  CONSTRAINT `fk_ingest_fp_note` FOREIGN KEY (`source_note_id`) REFERENCES `notes` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `fk_ingest_fp_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `ingest_fingerprints`
+--
+
+LOCK TABLES `ingest_fingerprints` WRITE;
+/*!40000 ALTER TABLE `ingest_fingerprints` DISABLE KEYS */;
+/*!40000 ALTER TABLE `ingest_fingerprints` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `ingest_jobs`
+--
+
+DROP TABLE IF EXISTS `ingest_jobs`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `ingest_jobs` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `user_id` int NOT NULL,
+  `category_id` int NOT NULL,
+  `note_id` bigint DEFAULT NULL,
+  `title` varchar(255) NOT NULL,
+  `original_filename` varchar(255) DEFAULT NULL,
+  `spool_path` varchar(1024) NOT NULL,
+  `pdf_sha256` char(64) DEFAULT NULL,
+  `mode` varchar(16) NOT NULL,
+  `toc_prompt` text,
+  `page_prompt` text,
+  `page_estimate` int NOT NULL DEFAULT '1',
+  `priority` tinyint NOT NULL DEFAULT '1',
+  `virtual_start` double NOT NULL DEFAULT '0',
+  `virtual_finish` double NOT NULL DEFAULT '0',
+  `status` varchar(16) NOT NULL DEFAULT 'QUEUED',
+  `stage` varchar(16) DEFAULT NULL,
+  `attempts` int NOT NULL DEFAULT '0',
+  `locked_by` varchar(64) DEFAULT NULL,
+  `heartbeat_at` datetime DEFAULT NULL,
+  `retry_at` datetime DEFAULT NULL,
+  `pages_json` mediumtext,
+  `ocr_text` mediumtext,
+  `ocr_pages` int DEFAULT NULL,
+  `ai_result_json` mediumtext,
+  `last_error` varchar(1000) DEFAULT NULL,
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  `started_at` datetime DEFAULT NULL,
+  `finished_at` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_ingest_jobs_status` (`status`,`id`),
+  KEY `idx_ingest_jobs_sched` (`status`,`priority`,`virtual_start`),
+  KEY `fk_ingest_jobs_user` (`user_id`,`status`),
+  KEY `fk_ingest_jobs_note` (`note_id`),
+  CONSTRAINT `fk_ingest_jobs_note` FOREIGN KEY (`note_id`) REFERENCES `notes` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `fk_ingest_jobs_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `ingest_jobs`
+--
+
+LOCK TABLES `ingest_jobs` WRITE;
+/*!40000 ALTER TABLE `ingest_jobs` DISABLE KEYS */;
+/*!40000 ALTER TABLE `ingest_jobs` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `ingest_job_events`
+--
+
+DROP TABLE IF EXISTS `ingest_job_events`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `ingest_job_events` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `job_id` bigint NOT NULL,
+  `user_id` int NOT NULL,
+  `payload` text NOT NULL,
+  `created_at` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (`id`),
+  KEY `idx_ingest_job_events_job` (`job_id`,`id`),
+  KEY `idx_ingest_job_events_created` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `ingest_job_events`
+--
+
+LOCK TABLES `ingest_job_events` WRITE;
+/*!40000 ALTER TABLE `ingest_job_events` DISABLE KEYS */;
+/*!40000 ALTER TABLE `ingest_job_events` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `nav_changes`
+--
+
+DROP TABLE IF EXISTS `nav_changes`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `nav_changes` (
+  `user_id` int NOT NULL,
+  `entity_type` varchar(16) NOT NULL,
+  `entity_id` bigint NOT NULL,
+  `version` bigint NOT NULL,
+  `deleted` tinyint(1) NOT NULL DEFAULT '0',
+  `changed_at` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (`user_id`,`entity_type`,`entity_id`),
+  KEY `idx_nav_changes_version` (`user_id`,`version`),
+  KEY `idx_nav_changes_deleted` (`deleted`,`changed_at`),
+  CONSTRAINT `fk_nav_changes_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `nav_changes`
+--
+
+LOCK TABLES `nav_changes` WRITE;
+/*!40000 ALTER TABLE `nav_changes` DISABLE KEYS */;
+/*!40000 ALTER TABLE `nav_changes` ENABLE KEYS */;
+UNLOCK TABLES;
+
+--
+-- Table structure for table `nav_versions`
+--
+
+DROP TABLE IF EXISTS `nav_versions`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `nav_versions` (
+  `user_id` int NOT NULL,
+  `version` bigint NOT NULL DEFAULT '0',
+  `compacted_version` bigint NOT NULL DEFAULT '0',
+  PRIMARY KEY (`user_id`),
+  CONSTRAINT `fk_nav_versions_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `nav_versions`
+--
+
+LOCK TABLES `nav_versions` WRITE;
+/*!40000 ALTER TABLE `nav_versions` DISABLE KEYS */;
+/*!40000 ALTER TABLE `nav_versions` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `note_index`
 --
@@ -91,6 +271,8 @@ CREATE TABLE `note_index` (
   `end_index` int NOT NULL,
   `title` varchar(255) NOT NULL,
   `body` text,
+  `title_edited` tinyint(1) NOT NULL DEFAULT '0',
+  `body_edited` tinyint(1) NOT NULL DEFAULT '0',
   PRIMARY KEY (`id`),
   KEY `fk_note_index_note` (`note_id`),
   CONSTRAINT `fk_note_index_note` FOREIGN KEY (`note_id`) REFERENCES `notes` (`id`) ON DELETE CASCADE
@@ -121,6 +303,7 @@ CREATE TABLE `note_pages` (
   `firebase_public_url` varchar(500) DEFAULT NULL,
   `firebase_admin_path` varchar(255) DEFAULT NULL,
   `extracted_text` text,
+  `render_dpi` int DEFAULT NULL,
   PRIMARY KEY (`id`),
   KEY `fk_note_pages_note` (`note_id`),
   CONSTRAINT `fk_note_pages_note` FOREIGN KEY (`note_id`) REFERENCES `notes` (`id`) ON DELETE CASCADE
@@ -133,7 +316,7 @@ CREATE TABLE `note_pages` (
 
 LOCK TABLES `note_pages` WRITE;
 /*!40000 ALTER TABLE `note_pages` DISABLE KEYS */;
-INSERT INTO `note_pages` VALUES (1,1,1,'https://firebase/public/manual_page1.png','/admin/manual/page1','\\*業務手順 1ページ目\\*\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n\\\\| 項目 | 値 |\n\\\\| ---- | ---- |\n\\\\| A | 123 |\n\\\\| B | 456 |'),(2,2,1,'https://firebase/public/meeting_page1.png','/admin/meeting/page1','\\\\\\*\\\\\\*会議メモ 1ページ目\\\\\\*\\\\\\*\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n\\\\\\\\| 項目 | 値 |\n\\\\\\\\| ---- | ---- |\n\\\\\\\\| A | 123 |\n\\\\\\\\| B | 456 |'),(3,3,1,'https://firebase/public/travel_page1.png','/admin/travel/page1','旅行計画 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(4,4,1,'https://firebase/public/budget_page1.png','/admin/budget/page1','家計簿 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(11,11,1,'https://firebase/public/ai_page1.png','/admin/ai/page1','AI研究 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(12,12,1,'https://firebase/public/data_page1.png','/admin/data/page1','データ分析 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(13,13,1,'https://firebase/public/shopping_page1.png','/admin/shopping/page1','買い物リスト 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(14,14,1,'https://firebase/public/diy_page1.png','/admin/diy/page1','DIY記録 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(15,15,1,'https://firebase/public/gym_page1.png','/admin/gym/page1','筋トレ 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(16,16,1,'https://firebase/public/meal_page1.png','/admin/meal/page1','食事記録 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(23,24,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F575004f0-3052-4bac-9077-ba2cf720c455-page-1-8431617650118845148.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/575004f0-3052-4bac-9077-ba2cf720c455-page-1-8431617650118845148.png','画面番号\n画面 ID\n画面名\nURL\nクラス名\nテンプレートファイル名\n画面概要\nユーザーアクション\n対応機能 ID\n備考・フロント処理\n1\nG01-1\nログイン画面\n/login\nAuthController\nlogin.html\nメール・パスワードでログイン\n2\nG01-2\nユーザー登録画面\n/register\nAuthController\nregister.html\n新規ユーザー登録画面\n3\nG01-3\nパスワードリセット画面\n/reset-password\nAuthController\nreset_password.html\nメールでパスワード再設定リンクを送信'),(24,25,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2Fa48078c1-0605-4368-bd3e-47f9b1199ce8-page-1-15411802589437738741.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/a48078c1-0605-4368-bd3e-47f9b1199ce8-page-1-15411802589437738741.png','開発・運用時のガド\nJDK17への移行に伴う留意\nHITACHI\nInspire the Next\n4.9\n2024\\\\.\nSeptember\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n\\\\| 項目 | 値 |\n\\\\| ---- | ---- |\n\\\\| A | 123 |\n\\\\| B | 456 |'),(25,25,2,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2Fe58b6c2c-55ea-4ee4-b2b6-e421482d6704-page-2-4579840565383189388.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/e58b6c2c-55ea-4ee4-b2b6-e421482d6704-page-2-4579840565383189388.png','はじめに\nuCosminexus Application Server を使用し,システムを設計・構築・運用する方が留意すべき点につい\nて説明します。本書は,開発・運用フェーズで使用するドキュメントとして, JavaTM Development Kit 11\nから JavaTM Development Kit 17 への移行に伴う留意点について記述しています。\n1.対象とする読者\n本書は,JavaTM Development Kit 17 を使用し,システムを設計・構築・運用する立場にある方を対象\nとしています。\n商標類\n・HITACHI は,(株)日立製作所の商標または登録商標です。\n・Oracle と Java は、 Oracle Corporation 及びその子会社,関連会社の米国及びその他の国における登録\n商標です。文中の社名、商品名等は各社の商標または登録商標である場合があります。\n・その他記載の会社名、製品名は、それぞれの会社の商標もしくは登録商標です。\n■英略語の表記\n本書では,英略語を次のように表記しています。\nJava\nJava EE\nJava SE\nJDK\n表記\n製品名\nJava™\nJava™ Plat orm, Enterprise Edition\nJavaTM Plat orm, Standard Edition\nJavaTM Development Kit\nJDK™M\n|発行元\n株式会社日立製作所 クラウドサービスプラットフォームビジネスユニット マネージド&プラッ\nトフォームサービス事業部\nAll Rights Reserved. Copyright (C) 2024, Hitachi, Ltd.'),(26,25,3,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2Fbc84066b-bbdf-4a9b-8955-50eed6677bd0-page-3-12771291122419340068.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/bc84066b-bbdf-4a9b-8955-50eed6677bd0-page-3-12771291122419340068.png','1 JDK17への移行に伴う留意事項\n目次\n1\n1.1 JDK17 への移行に伴う GC についての留意事項\n.........2\n1.2 JDK17 への移行に伴うその他の留意事項\n.4\ni'),(27,25,4,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F841db999-ca80-40d7-bcd3-caf69ece58bc-page-4-9152928563469889157.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/841db999-ca80-40d7-bcd3-caf69ece58bc-page-4-9152928563469889157.png','1 JDK17への移行に伴う留意事\nJDK17 への移行に伴う留意事項を説明します。\n本章の構成\n1.1 JDK17 への移行に伴う GC についての留意事項\n1.2 JDK17 への移行に伴うその他の留意事項\n1'),(28,25,5,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F714a6fa7-4b40-420a-8e64-f351b5aaca2d-page-5-1421620436560096661.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/714a6fa7-4b40-420a-8e64-f351b5aaca2d-page-5-1421620436560096661.png','1.1 JDK17 への移行に伴うGCについての留意事項\n本節では,JDK11 から JDK17 に移行した際のGC についての留意事項を記載します。\n(1) ZGC の追加\nJDK17 以降ではGC (ガベージコレクタ) として, ZGC が選択できます。\nZGC はチューニングが簡単で,かつ停止時間が非常に短いスケーラブルな GC です。 そのため,低\nレイテンシが要求されるシステム,および大規模なメモリ環境のシステムに適しています。\n従来からサポートされている SerialGC・G1GC と ZGCの比較を以下の表に示します。\n#\nGC 方式\n特徴\n1\nSerialGC\n2\nG1GC\nGC 処理の全てをアプリケーションを停\n止させて行うため,アプリケーション実\n行中は GC 処理による CPU リソースの\n消費が起こりません。このため,アプリ\nケーションのスループットが他 GC より\nも高いです。一方で, GC によるアプリ\nケーションの停止時間は Java ヒープサ\nイズに比例して長くなります。\n推奨システム\n最悪レスポンス時間の要\nスループットの\n件がなく,\n方が重要なシステム。\nGC 処理の一部をアプリケーションの実| GCによる最悪レスポンス\n行と並行で行います。アプリケーション 時間の要件があり,スルー\nの実行中に GC 処理による CPU リソープットよりソフトリアル\nスの消費が起こります。このため,アプ|タイム性が重要なシステ\nリケーションのスループットは低くなり ム。\n3\nZGC\nます。 一方,上記の並行処理で取得した\n情報を利用することで, アプリケーショ\nンの停止時間をソフトリアルタイム制御\nできます。\n一部を除き, GC 処理をアプリケーショ\nンの実行と並行で行うためアプリケー\nションの停止時間が非常に短いです。 こ\nれは数テラバイトの非常に大きなヒープ\nを使用するようなシステムにおいても同\n様ですが,その反面スループットは低下\nします。\n低レイテンシが要求され\nるシステム。\n2'),(29,25,6,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F562f6dca-236d-4387-aeef-ac7daeec4526-page-6-1778537394481986461.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/562f6dca-236d-4387-aeef-ac7daeec4526-page-6-1778537394481986461.png','(2) デフォルト GC の変更\nJDK17 以降ではデフォルトで選択される GC が SerialGC から G1GC に変更されました。 ただし,\n論理プロセッサが2未満または物理メモリが 1792MB 未満の場合は自動で SerialGC が選択されます。\n(3) 明示管理ヒープ機能の非サポート化\nJDK17 以降では明示管理ヒープ機能は非サポートです。 明示管理ヒープ機能は SerialGC における\nGC 停止時間の長期化を防ぐために使用されました。JDK17 以降ではアプリケーションの要件に合わ\nせて G1GC または ZGC を使用することで GC 停止時間の長期化を防ぎます。\nJDK11 以前に明示管理ヒープ機能を使用していてJDK17へ移行する場合,以下に注意してください。\n明示管理ヒープ機能のJava VM オプションを指定している場合, プロセスの起動に失敗します。\nそのため,明示管理ヒープ機能の Java VM オプションはすべて削除してください。\n・明示管理ヒープ機能の API を使用している場合, アプリケーションの改修は必要ありません。明示\n管理ヒープ機能が無効の場合と同じ挙動となります。\n・明示管理ヒープ機能は, Java ヒープとは別の Explicit ヒープという独自の領域を使用しています。\nこれまで明示管理ヒープ機能を使用していた場合, Explicit ヒープに配置されていたオブジェクトは,\nすべてJava ヒープに配置されることになります。 そのため,これまで Explicit ヒープに設定してい\nたヒープサイズ (-XX:HitachiExplicit Heap MaxSize に指定した値)をJava ヒープに加算してくだ\nさい。G1GC,ZGC を使用する場合は,さらにそれぞれのGC で必要な Java ヒープサイズを加算し\nて使用してください。\n3'),(30,25,7,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F9bc8dfe9-acfb-4056-a156-dd962a98646a-page-7-2573789853383785070.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/9bc8dfe9-acfb-4056-a156-dd962a98646a-page-7-2573789853383785070.png','1.2 JDK17 への移行に伴うその他の留意事項\n本節では,JDK11 から JDK17 に移行した際のGC 以外の留意事項を記載します。\n(1)クラスファイルのバージョンについて\nJava SE 17 からクラスファイルのバージョンが 61 になりました。\nこれにより,クラスファイルフォーマット仕様に対し, Record/ PermittedSubclasses の Attribute\nが追加されています。\nクラスファイル変換等でクラスファイルを出力する場合、出力するクラスファイルのバージョンとク\nラスファイルのフォーマットが一致している必要があります。一致していない場合はクラスロード時\nに java.lang.Veri yError が発生するため,クラスファイルの読み込みや書き換え等を行っている,\nもしくは,そのようなツールを使用している場合は新仕様対応を行ってください。\nなお,クラスファイルのバージョンはバイナリエディタやjavap コマンドを使用してクラスファイル\n内の”major version\" から確認してください。\nまた, javac コマンドのクロスコンパイルオプション (source/target もしくは release) を用いることで\n指定したバージョンのクラスファイルを作成することもできます。詳細は(2) javac コマンドの\nsource/target/release オプションに指定できる値を確認してください。\n(2) javac コマンドの source/target/release オプションに指定できる値\njavac コマンドのクロスコンパイルオプション (source/target もしくは release) を用いることで指定し\nたバージョンのクラスファイルを作成できます。\nただし, その場合はクラスバージョンに対応する Java SE の機能までしか使用することはできませ\nん。\nJDK17 以降ではクロスコンパイルオプション (source/target もしくは release)に” 6\" を指定できな\nくなったため、 指定可能なバージョンは\"7\"以上\"17\"以下です。\n(3) sun.nio.cs.map システムプロパティの削除\nJDK17 以降では sun.nio.cs.map システムプロパティは削除されました。 そのため, JDK11 以前は以\n下の指定によりエンコーディング名 shi t_jis, csshi tjis,ms_kanji,x-sjis を Windows-31J (MS932)\nの別名として使用できましたが, JDK17 以降では使用できません。\nsun.nio.cs.map=Windows-31J/Shi t_JIS\nこの動作変更により, Shi t_JIS に含まれていない Windows-31J には含まれる日本語の特殊文字に\nついて文字化けが発生する可能性があります。 その場合には,アプリケーションの改修が必要です。\n4'),(31,25,8,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F298c4747-d7ae-4d29-a399-87297a724ad8-page-8-16398063073753375139.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/298c4747-d7ae-4d29-a399-87297a724ad8-page-8-16398063073753375139.png','(4) 内部 API へのアクセス制限厳格化\nJDK17 以降では内部 API でのアクセス制限がより厳格化されたため, 内部 API を使用する際には\n--add-opens オプションを指定する必要があります。これまでは-add-opens オプションの代替として\n-illegal-access オプションを指定することで警告やエラーを回避することが可能でしたが, JDK17\n以降では-illegal-access オプションは指定できなくなります。\n以下に-add-opens オプションの使用方法を記載します。\n--add-opens[使用する内部 API が含まれるモジュール]/[使用する内部 API が含まれるパッケージ]\n=[アクセス元のモジュール] (,[アクセス元のモジュール])*\n(5) その他\nその他の移行に関する留意事項については,以下の Web ページを参照してください。\nhttps://docs.oracle.com/en/java/javase/17/migrate/signi icant-changes-jdk-release.html#GUID-56\n1005C1-12BB-455C-AD41-00455CAD23A6\n5\n-以上-'),(62,50,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F001.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/001.png','1. ロンド形式: 主部が他の部分を挟みながら繰り返される形式。\n   ソナタ形式: 提示部、展開部、再現部からなる楽曲形式。\n   カデンツァ: 協奏曲の独奏部で、ソリストが技巧を披露する部分。\n   シンコペーション: 拍の頭を外してリズムをずらすこと。\n   デモーニッシュ: 悪魔的、魔的な魅力を持つこと。\n   緩徐楽章: テンポの遅い楽章。\n   フォルテ (ff): 非常に強く演奏すること。\n   *ウィーン・フィル: ウィーン・フィルハーモニー管弦楽団の略称。\n   ウィーン宮廷歌劇場:<u> かつてのウィーン国立歌劇場の名称。</u>*\n2. *てすｔ*\n3.'),(63,50,2,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F002.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/002.png','ツェムリンスキー: オーストリアの作曲家、指揮者。\nメンゲルベルク: オランダの指揮者。\n純粋器楽: 声楽を含まない、楽器のみで演奏される音楽。\n換骨堕胎: 古い形式を借りて新しい内容を盛り込むこと。\n葬送行進曲: 死者を送るための行進曲。\nトランペット・ソロ: トランペット単独での演奏。\nコラール: プロテスタント教会の合唱賛美歌。\nスケルツォ: 諧謔的で速いテンポの楽章。\nカノン: 同じ旋律を異なる時点から模倣するように演奏する形式。\nベル・アップ: 金管楽器のベルを上に向けて演奏する特殊奏法。\nアダージェット: 非常にゆっくりとした速度で演奏すること。\nフーガ: 複数の声部が同じ主題を模倣・反復する楽曲形式。'),(64,50,3,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F003.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/003.png','猩紅熱 (しょうこうねつ): 溶連菌感染による急性感染症。\nジフテリア: ジフテリア菌による感染症。\n分離派 (セセッション): 19世紀末ウィーンで起こった芸術運動。\nアンダンテ: 歩くような速さで。\nスケルツォ: 諧謔的で速いテンポの楽章。\nハンマー: マーラー交響曲第6番で用いられる打楽器。\n示導リズム: 特定のテーマを暗示する特徴的なリズム。\n示導和音: 特定のテーマを暗示する特徴的な和音。\nチェレスタ: 鉄琴に鍵盤を付けたような音色の楽器。\nカウベル: アルプスの牛の首にかけるような鐘。'),(65,50,4,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F004.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/004.png','タムタム (ドラ): 大きな銅鑼（どら）。\n昇天: 天に昇ること。\nルーテ: むち。\nピッコロ: フルートより1オクターブ高い音域の小型フルート。\nイングリッシュ・ホルン: オーボエ属の楽器。\nエス (E♭)・クラリネット: E♭調のクラリネット。\nバス・クラリネット: 低音域のクラリネット。\nコントラファゴット: ファゴットより1オクターブ低い音域の楽器。\nテューバ: 金管楽器の最低音域を受け持つ楽器。\nティンパニ: 大型の半球形太鼓。\nグロッケンシュピール: 鉄琴の一種。\nホルツクラッパー: 木を打ち合わせる打楽器。'),(66,51,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F001.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/001.png','「MyNote」というプロジェクトの制作発表ドキュメントの表紙です。\n作成者名は「小澤 基良」です。'),(67,51,2,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F002.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/002.png','MyNoteの開発に使用された技術が記載されています。\n\n* **フロントエンド**: React、TypeScript、Tailwind CSSが使用されています。\n* **バックエンド**: Java、Spring Boot、MyBatisが使用されています。\n* **データベース**: MySQL、FireStoreが使用されています。\n* **その他**: Google Gemini APIが活用されています。'),(68,51,3,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F003.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/003.png','MyNoteの主な工夫点に関する解説です。\n- **状態管理**: JotaiのAtomを使用し、ナビゲーションの状態を即時反映させ、コンポーネント間の状態共有をシンプルにしています。\n- **データ検証**: 新規登録時にデータベースで重複チェックを行い、ユーザー体験の向上とデータ整合性の確保を目指しています。\n- **エディタ**: MDXEditorを導入し、マークダウン編集と自動保存機能を提供することで、効率的な文書作成・編集を可能にしています。'),(69,51,4,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F004.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/004.png','現在未実装の機能に関する概要です。\n- **管理者用ページ**: 専用の権限と管理機能を持つページを想定しています。\n- **キャッシュ管理**: TanStack Query (Tany) によるキャッシュ管理を導入し、高速化を図る予定です。\n- **カテゴリ順番/ソート機能**: カテゴリの整理と使いやすさの向上を目的としています。\n- **進行状況表示の改善**: 進捗度をパーセンテージで示すなど、使いやすさを改善する予定です。\n- **ChatGPT風の折りたたみメニュー**: UIの改善を目的としたメニュー機能です。\n- **編集処理のトースト表示**: 編集操作の結果をユーザーに分かりやすく伝えるための表示です。'),(70,51,5,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F005.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/005.png','フロントエンドにおける今後の制作予定が示されています。\n- **デザイン**: ユーザビリティとアクセシビリティの向上を目指し、UIを再定義します。\n- **アニメーション**: open/closeアニメーションの実装により、スムーズな画面遷移とインタラクションを提供します。\n- **コンポーネント**: 共通UIのCSSコンポーネント化を進め、再利用性と保守性を高めます。\n- **テーマ**: カラーモードの実装を通じて、ダークモード対応と視認性の確保を目指します。\n- **レスポンシブ対応**: CSSのレスポンシブ化により、様々なデバイスでの表示に対応します。'),(71,51,6,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F006.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/006.png','システムをREST化する上での再設計項目です。\n- **要件定義書**: システム全体の要件をREST設計に適合するよう再定義します。\n- **基本設計書**: APIエンドポイントとリソース構造を設計します。\n- **詳細設計書**: 各APIエンドポイントの実装詳細とデータフローを記述します。\n- **API仕様書**: OpenAPI形式でAPIエンドポイントの仕様書を作成します。\n- **テスト詳細書**: 単体テストと結合テストの計画、および自動化テストの設計を行います。');
+INSERT INTO `note_pages` (`id`, `note_id`, `page_number`, `firebase_public_url`, `firebase_admin_path`, `extracted_text`) VALUES (1,1,1,'https://firebase/public/manual_page1.png','/admin/manual/page1','\\*業務手順 1ページ目\\*\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n\\\\| 項目 | 値 |\n\\\\| ---- | ---- |\n\\\\| A | 123 |\n\\\\| B | 456 |'),(2,2,1,'https://firebase/public/meeting_page1.png','/admin/meeting/page1','\\\\\\*\\\\\\*会議メモ 1ページ目\\\\\\*\\\\\\*\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n\\\\\\\\| 項目 | 値 |\n\\\\\\\\| ---- | ---- |\n\\\\\\\\| A | 123 |\n\\\\\\\\| B | 456 |'),(3,3,1,'https://firebase/public/travel_page1.png','/admin/travel/page1','旅行計画 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(4,4,1,'https://firebase/public/budget_page1.png','/admin/budget/page1','家計簿 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(11,11,1,'https://firebase/public/ai_page1.png','/admin/ai/page1','AI研究 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(12,12,1,'https://firebase/public/data_page1.png','/admin/data/page1','データ分析 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(13,13,1,'https://firebase/public/shopping_page1.png','/admin/shopping/page1','買い物リスト 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(14,14,1,'https://firebase/public/diy_page1.png','/admin/diy/page1','DIY記録 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(15,15,1,'https://firebase/public/gym_page1.png','/admin/gym/page1','筋トレ 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(16,16,1,'https://firebase/public/meal_page1.png','/admin/meal/page1','食事記録 1ページ目\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n| 項目 | 値 |\n| ---- | ---- |\n| A    | 123  |\n| B    | 456  |'),(23,24,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F575004f0-3052-4bac-9077-ba2cf720c455-page-1-8431617650118845148.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/575004f0-3052-4bac-9077-ba2cf720c455-page-1-8431617650118845148.png','画面番号\n画面 ID\n画面名\nURL\nクラス名\nテンプレートファイル名\n画面概要\nユーザーアクション\n対応機能 ID\n備考・フロント処理\n1\nG01-1\nログイン画面\n/login\nAuthController\nlogin.html\nメール・パスワードでログイン\n2\nG01-2\nユーザー登録画面\n/register\nAuthController\nregister.html\n新規ユーザー登録画面\n3\nG01-3\nパスワードリセット画面\n/reset-password\nAuthController\nreset_password.html\nメールでパスワード再設定リンクを送信'),(24,25,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2Fa48078c1-0605-4368-bd3e-47f9b1199ce8-page-1-15411802589437738741.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/a48078c1-0605-4368-bd3e-47f9b1199ce8-page-1-15411802589437738741.png','開発・運用時のガド\nJDK17への移行に伴う留意\nHITACHI\nInspire the Next\n4.9\n2024\\\\.\nSeptember\n\n— 表示確認用ダミー追記 —\n・箇条書きA（表示/折返し確認）\n・箇条書きB（表示/折返し確認）\n\n\\\\| 項目 | 値 |\n\\\\| ---- | ---- |\n\\\\| A | 123 |\n\\\\| B | 456 |'),(25,25,2,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2Fe58b6c2c-55ea-4ee4-b2b6-e421482d6704-page-2-4579840565383189388.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/e58b6c2c-55ea-4ee4-b2b6-e421482d6704-page-2-4579840565383189388.png','はじめに\nuCosminexus Application Server を使用し,システムを設計・構築・運用する方が留意すべき点につい\nて説明します。本書は,開発・運用フェーズで使用するドキュメントとして, JavaTM Development Kit 11\nから JavaTM Development Kit 17 への移行に伴う留意点について記述しています。\n1.対象とする読者\n本書は,JavaTM Development Kit 17 を使用し,システムを設計・構築・運用する立場にある方を対象\nとしています。\n商標類\n・HITACHI は,(株)日立製作所の商標または登録商標です。\n・Oracle と Java は、 Oracle Corporation 及びその子会社,関連会社の米国及びその他の国における登録\n商標です。文中の社名、商品名等は各社の商標または登録商標である場合があります。\n・その他記載の会社名、製品名は、それぞれの会社の商標もしくは登録商標です。\n■英略語の表記\n本書では,英略語を次のように表記しています。\nJava\nJava EE\nJava SE\nJDK\n表記\n製品名\nJava™\nJava™ Plat orm, Enterprise Edition\nJavaTM Plat orm, Standard Edition\nJavaTM Development Kit\nJDK™M\n|発行元\n株式会社日立製作所 クラウドサービスプラットフォームビジネスユニット マネージド&プラッ\nトフォームサービス事業部\nAll Rights Reserved. Copyright (C) 2024, Hitachi, Ltd.'),(26,25,3,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2Fbc84066b-bbdf-4a9b-8955-50eed6677bd0-page-3-12771291122419340068.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/bc84066b-bbdf-4a9b-8955-50eed6677bd0-page-3-12771291122419340068.png','1 JDK17への移行に伴う留意事項\n目次\n1\n1.1 JDK17 への移行に伴う GC についての留意事項\n.........2\n1.2 JDK17 への移行に伴うその他の留意事項\n.4\ni'),(27,25,4,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F841db999-ca80-40d7-bcd3-caf69ece58bc-page-4-9152928563469889157.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/841db999-ca80-40d7-bcd3-caf69ece58bc-page-4-9152928563469889157.png','1 JDK17への移行に伴う留意事\nJDK17 への移行に伴う留意事項を説明します。\n本章の構成\n1.1 JDK17 への移行に伴う GC についての留意事項\n1.2 JDK17 への移行に伴うその他の留意事項\n1'),(28,25,5,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F714a6fa7-4b40-420a-8e64-f351b5aaca2d-page-5-1421620436560096661.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/714a6fa7-4b40-420a-8e64-f351b5aaca2d-page-5-1421620436560096661.png','1.1 JDK17 への移行に伴うGCについての留意事項\n本節では,JDK11 から JDK17 に移行した際のGC についての留意事項を記載します。\n(1) ZGC の追加\nJDK17 以降ではGC (ガベージコレクタ) として, ZGC が選択できます。\nZGC はチューニングが簡単で,かつ停止時間が非常に短いスケーラブルな GC です。 そのため,低\nレイテンシが要求されるシステム,および大規模なメモリ環境のシステムに適しています。\n従来からサポートされている SerialGC・G1GC と ZGCの比較を以下の表に示します。\n#\nGC 方式\n特徴\n1\nSerialGC\n2\nG1GC\nGC 処理の全てをアプリケーションを停\n止させて行うため,アプリケーション実\n行中は GC 処理による CPU リソースの\n消費が起こりません。このため,アプリ\nケーションのスループットが他 GC より\nも高いです。一方で, GC によるアプリ\nケーションの停止時間は Java ヒープサ\nイズに比例して長くなります。\n推奨システム\n最悪レスポンス時間の要\nスループットの\n件がなく,\n方が重要なシステム。\nGC 処理の一部をアプリケーションの実| GCによる最悪レスポンス\n行と並行で行います。アプリケーション 時間の要件があり,スルー\nの実行中に GC 処理による CPU リソープットよりソフトリアル\nスの消費が起こります。このため,アプ|タイム性が重要なシステ\nリケーションのスループットは低くなり ム。\n3\nZGC\nます。 一方,上記の並行処理で取得した\n情報を利用することで, アプリケーショ\nンの停止時間をソフトリアルタイム制御\nできます。\n一部を除き, GC 処理をアプリケーショ\nンの実行と並行で行うためアプリケー\nションの停止時間が非常に短いです。 こ\nれは数テラバイトの非常に大きなヒープ\nを使用するようなシステムにおいても同\n様ですが,その反面スループットは低下\nします。\n低レイテンシが要求され\nるシステム。\n2'),(29,25,6,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F562f6dca-236d-4387-aeef-ac7daeec4526-page-6-1778537394481986461.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/562f6dca-236d-4387-aeef-ac7daeec4526-page-6-1778537394481986461.png','(2) デフォルト GC の変更\nJDK17 以降ではデフォルトで選択される GC が SerialGC から G1GC に変更されました。 ただし,\n論理プロセッサが2未満または物理メモリが 1792MB 未満の場合は自動で SerialGC が選択されます。\n(3) 明示管理ヒープ機能の非サポート化\nJDK17 以降では明示管理ヒープ機能は非サポートです。 明示管理ヒープ機能は SerialGC における\nGC 停止時間の長期化を防ぐために使用されました。JDK17 以降ではアプリケーションの要件に合わ\nせて G1GC または ZGC を使用することで GC 停止時間の長期化を防ぎます。\nJDK11 以前に明示管理ヒープ機能を使用していてJDK17へ移行する場合,以下に注意してください。\n明示管理ヒープ機能のJava VM オプションを指定している場合, プロセスの起動に失敗します。\nそのため,明示管理ヒープ機能の Java VM オプションはすべて削除してください。\n・明示管理ヒープ機能の API を使用している場合, アプリケーションの改修は必要ありません。明示\n管理ヒープ機能が無効の場合と同じ挙動となります。\n・明示管理ヒープ機能は, Java ヒープとは別の Explicit ヒープという独自の領域を使用しています。\nこれまで明示管理ヒープ機能を使用していた場合, Explicit ヒープに配置されていたオブジェクトは,\nすべてJava ヒープに配置されることになります。 そのため,これまで Explicit ヒープに設定してい\nたヒープサイズ (-XX:HitachiExplicit Heap MaxSize に指定した値)をJava ヒープに加算してくだ\nさい。G1GC,ZGC を使用する場合は,さらにそれぞれのGC で必要な Java ヒープサイズを加算し\nて使用してください。\n3'),(30,25,7,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F9bc8dfe9-acfb-4056-a156-dd962a98646a-page-7-2573789853383785070.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/9bc8dfe9-acfb-4056-a156-dd962a98646a-page-7-2573789853383785070.png','1.2 JDK17 への移行に伴うその他の留意事項\n本節では,JDK11 から JDK17 に移行した際のGC 以外の留意事項を記載します。\n(1)クラスファイルのバージョンについて\nJava SE 17 からクラスファイルのバージョンが 61 になりました。\nこれにより,クラスファイルフォーマット仕様に対し, Record/ PermittedSubclasses の Attribute\nが追加されています。\nクラスファイル変換等でクラスファイルを出力する場合、出力するクラスファイルのバージョンとク\nラスファイルのフォーマットが一致している必要があります。一致していない場合はクラスロード時\nに java.lang.Veri yError が発生するため,クラスファイルの読み込みや書き換え等を行っている,\nもしくは,そのようなツールを使用している場合は新仕様対応を行ってください。\nなお,クラスファイルのバージョンはバイナリエディタやjavap コマンドを使用してクラスファイル\n内の”major version\" から確認してください。\nまた, javac コマンドのクロスコンパイルオプション (source/target もしくは release) を用いることで\n指定したバージョンのクラスファイルを作成することもできます。詳細は(2) javac コマンドの\nsource/target/release オプションに指定できる値を確認してください。\n(2) javac コマンドの source/target/release オプションに指定できる値\njavac コマンドのクロスコンパイルオプション (source/target もしくは release) を用いることで指定し\nたバージョンのクラスファイルを作成できます。\nただし, その場合はクラスバージョンに対応する Java SE の機能までしか使用することはできませ\nん。\nJDK17 以降ではクロスコンパイルオプション (source/target もしくは release)に” 6\" を指定できな\nくなったため、 指定可能なバージョンは\"7\"以上\"17\"以下です。\n(3) sun.nio.cs.map システムプロパティの削除\nJDK17 以降では sun.nio.cs.map システムプロパティは削除されました。 そのため, JDK11 以前は以\n下の指定によりエンコーディング名 shi t_jis, csshi tjis,ms_kanji,x-sjis を Windows-31J (MS932)\nの別名として使用できましたが, JDK17 以降では使用できません。\nsun.nio.cs.map=Windows-31J/Shi t_JIS\nこの動作変更により, Shi t_JIS に含まれていない Windows-31J には含まれる日本語の特殊文字に\nついて文字化けが発生する可能性があります。 その場合には,アプリケーションの改修が必要です。\n4'),(31,25,8,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/images%2F298c4747-d7ae-4d29-a399-87297a724ad8-page-8-16398063073753375139.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/images/298c4747-d7ae-4d29-a399-87297a724ad8-page-8-16398063073753375139.png','(4) 内部 API へのアクセス制限厳格化\nJDK17 以降では内部 API でのアクセス制限がより厳格化されたため, 内部 API を使用する際には\n--add-opens オプションを指定する必要があります。これまでは-add-opens オプションの代替として\n-illegal-access オプションを指定することで警告やエラーを回避することが可能でしたが, JDK17\n以降では-illegal-access オプションは指定できなくなります。\n以下に-add-opens オプションの使用方法を記載します。\n--add-opens[使用する内部 API が含まれるモジュール]/[使用する内部 API が含まれるパッケージ]\n=[アクセス元のモジュール] (,[アクセス元のモジュール])*\n(5) その他\nその他の移行に関する留意事項については,以下の Web ページを参照してください。\nhttps://docs.oracle.com/en/java/javase/17/migrate/signi icant-changes-jdk-release.html#GUID-56\n1005C1-12BB-455C-AD41-00455CAD23A6\n5\n-以上-'),(62,50,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F001.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/001.png','1. ロンド形式: 主部が他の部分を挟みながら繰り返される形式。\n   ソナタ形式: 提示部、展開部、再現部からなる楽曲形式。\n   カデンツァ: 協奏曲の独奏部で、ソリストが技巧を披露する部分。\n   シンコペーション: 拍の頭を外してリズムをずらすこと。\n   デモーニッシュ: 悪魔的、魔的な魅力を持つこと。\n   緩徐楽章: テンポの遅い楽章。\n   フォルテ (ff): 非常に強く演奏すること。\n   *ウィーン・フィル: ウィーン・フィルハーモニー管弦楽団の略称。\n   ウィーン宮廷歌劇場:<u> かつてのウィーン国立歌劇場の名称。</u>*\n2. *てすｔ*\n3.'),(63,50,2,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F002.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/002.png','ツェムリンスキー: オーストリアの作曲家、指揮者。\nメンゲルベルク: オランダの指揮者。\n純粋器楽: 声楽を含まない、楽器のみで演奏される音楽。\n換骨堕胎: 古い形式を借りて新しい内容を盛り込むこと。\n葬送行進曲: 死者を送るための行進曲。\nトランペット・ソロ: トランペット単独での演奏。\nコラール: プロテスタント教会の合唱賛美歌。\nスケルツォ: 諧謔的で速いテンポの楽章。\nカノン: 同じ旋律を異なる時点から模倣するように演奏する形式。\nベル・アップ: 金管楽器のベルを上に向けて演奏する特殊奏法。\nアダージェット: 非常にゆっくりとした速度で演奏すること。\nフーガ: 複数の声部が同じ主題を模倣・反復する楽曲形式。'),(64,50,3,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F003.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/003.png','猩紅熱 (しょうこうねつ): 溶連菌感染による急性感染症。\nジフテリア: ジフテリア菌による感染症。\n分離派 (セセッション): 19世紀末ウィーンで起こった芸術運動。\nアンダンテ: 歩くような速さで。\nスケルツォ: 諧謔的で速いテンポの楽章。\nハンマー: マーラー交響曲第6番で用いられる打楽器。\n示導リズム: 特定のテーマを暗示する特徴的なリズム。\n示導和音: 特定のテーマを暗示する特徴的な和音。\nチェレスタ: 鉄琴に鍵盤を付けたような音色の楽器。\nカウベル: アルプスの牛の首にかけるような鐘。'),(65,50,4,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F4%2Fnotes%2F50%2Fpages%2F004.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/4/notes/50/pages/004.png','タムタム (ドラ): 大きな銅鑼（どら）。\n昇天: 天に昇ること。\nルーテ: むち。\nピッコロ: フルートより1オクターブ高い音域の小型フルート。\nイングリッシュ・ホルン: オーボエ属の楽器。\nエス (E♭)・クラリネット: E♭調のクラリネット。\nバス・クラリネット: 低音域のクラリネット。\nコントラファゴット: ファゴットより1オクターブ低い音域の楽器。\nテューバ: 金管楽器の最低音域を受け持つ楽器。\nティンパニ: 大型の半球形太鼓。\nグロッケンシュピール: 鉄琴の一種。\nホルツクラッパー: 木を打ち合わせる打楽器。'),(66,51,1,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F001.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/001.png','「MyNote」というプロジェクトの制作発表ドキュメントの表紙です。\n作成者名は「小澤 基良」です。'),(67,51,2,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F002.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/002.png','MyNoteの開発に使用された技術が記載されています。\n\n* **フロントエンド**: React、TypeScript、Tailwind CSSが使用されています。\n* **バックエンド**: Java、Spring Boot、MyBatisが使用されています。\n* **データベース**: MySQL、FireStoreが使用されています。\n* **その他**: Google Gemini APIが活用されています。'),(68,51,3,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F003.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/003.png','MyNoteの主な工夫点に関する解説です。\n- **状態管理**: JotaiのAtomを使用し、ナビゲーションの状態を即時反映させ、コンポーネント間の状態共有をシンプルにしています。\n- **データ検証**: 新規登録時にデータベースで重複チェックを行い、ユーザー体験の向上とデータ整合性の確保を目指しています。\n- **エディタ**: MDXEditorを導入し、マークダウン編集と自動保存機能を提供することで、効率的な文書作成・編集を可能にしています。'),(69,51,4,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F004.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/004.png','現在未実装の機能に関する概要です。\n- **管理者用ページ**: 専用の権限と管理機能を持つページを想定しています。\n- **キャッシュ管理**: TanStack Query (Tany) によるキャッシュ管理を導入し、高速化を図る予定です。\n- **カテゴリ順番/ソート機能**: カテゴリの整理と使いやすさの向上を目的としています。\n- **進行状況表示の改善**: 進捗度をパーセンテージで示すなど、使いやすさを改善する予定です。\n- **ChatGPT風の折りたたみメニュー**: UIの改善を目的としたメニュー機能です。\n- **編集処理のトースト表示**: 編集操作の結果をユーザーに分かりやすく伝えるための表示です。'),(70,51,5,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F005.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/005.png','フロントエンドにおける今後の制作予定が示されています。\n- **デザイン**: ユーザビリティとアクセシビリティの向上を目指し、UIを再定義します。\n- **アニメーション**: open/closeアニメーションの実装により、スムーズな画面遷移とインタラクションを提供します。\n- **コンポーネント**: 共通UIのCSSコンポーネント化を進め、再利用性と保守性を高めます。\n- **テーマ**: カラーモードの実装を通じて、ダークモード対応と視認性の確保を目指します。\n- **レスポンシブ対応**: CSSのレスポンシブ化により、様々なデバイスでの表示に対応します。'),(71,51,6,'https://firebasestorage.googleapis.com/v0/b/omega-strand-466903-n8.firebasestorage.app/o/users%2F1%2Fcategories%2F1%2Fnotes%2F51%2Fpages%2F006.png?alt=media','gs://omega-strand-466903-n8.firebasestorage.app/users/1/categories/1/notes/51/pages/006.png','システムをREST化する上での再設計項目です。\n- **要件定義書**: システム全体の要件をREST設計に適合するよう再定義します。\n- **基本設計書**: APIエンドポイントとリソース構造を設計します。\n- **詳細設計書**: 各APIエンドポイントの実装詳細とデータフローを記述します。\n- **API仕様書**: OpenAPI形式でAPIエンドポイントの仕様書を作成します。\n- **テスト詳細書**: 単体テストと結合テストの計画、および自動化テストの設計を行います。');
 /*!40000 ALTER TABLE `note_pages` ENABLE KEYS */;
 UNLOCK TABLES;
 
@@ -231,6 +414,31 @@ INSERT INTO `user_passwords` VALUES (1,'$2a$10$mgbsPyzGbLaUmEVHRjUXLeC.V.6cQzVLq
 /*!40000 ALTER TABLE `user_passwords` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `user_sequences`
+--
+
+DROP TABLE IF EXISTS `user_sequences`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `user_sequences` (
+  `user_id` int NOT NULL,
+  `note_seq` int NOT NULL DEFAULT '0',
+  PRIMARY KEY (`user_id`),
+  CONSTRAINT `fk_user_sequences_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Dumping data for table `user_sequences`
+--
+
+LOCK TABLES `user_sequences` WRITE;
+/*!40000 ALTER TABLE `user_sequences` DISABLE KEYS */;
+INSERT INTO `user_sequences` VALUES (1,25),(2,6);
+/*!40000 ALTER TABLE `user_sequences` ENABLE KEYS */;
+UNLOCK TABLES;
+
 --
 -- Table structure for table `users`
 --